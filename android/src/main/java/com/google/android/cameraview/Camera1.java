@@ -18,12 +18,12 @@ package com.google.android.cameraview;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
+import android.graphics.ImageFormat;
 import android.graphics.SurfaceTexture;
 import android.hardware.Camera;
 import android.media.CamcorderProfile;
 import android.media.MediaRecorder;
 import android.net.Uri;
-import android.opengl.GLES20;
 import android.os.Build;
 import android.os.Handler;
 import android.os.Message;
@@ -32,37 +32,29 @@ import android.support.v4.util.SparseArrayCompat;
 import android.util.Log;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
-import android.view.View;
 
 import com.facebook.react.bridge.NativeMap;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeArray;
 import com.facebook.react.bridge.WritableNativeMap;
-import com.google.android.cameraview.gles.Base64Callback;
 import com.google.android.cameraview.gles.CameraUtils;
 import com.google.android.cameraview.gles.CircularEncoder;
-import com.google.android.cameraview.gles.EglCore;
-import com.google.android.cameraview.gles.FullFrameRect;
-import com.google.android.cameraview.gles.Texture2dProgram;
-import com.google.android.cameraview.gles.WindowSurface;
-
-import org.json.JSONArray;
-import org.json.JSONException;
+import com.google.android.cameraview.gles.FrameExportExecutor;
+import com.google.android.cameraview.gles.RecordedFrameBuffer;
 
 import java.io.File;
 import java.io.IOException;
 import java.lang.ref.WeakReference;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.function.Predicate;
 
 
 @SuppressWarnings("deprecation")
@@ -94,26 +86,40 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
     }
 
 
-    private CameraBufferArray<HashMap<String, Object>> mFramesArray = new CameraBufferArray<>(1000);
     private static final int VIDEO_WIDTH = 720;  // dimensions for 720p video
     private static final int VIDEO_HEIGHT = 1280;
     private static final int DESIRED_PREVIEW_FPS = 30;
-
-    private EglCore mEglCore;
-    private WindowSurface mDisplaySurface;
-    private SurfaceTexture mCameraTexture;  // receives the output from the camera preview
-    private FullFrameRect mFullFrameBlit;
-    private final float[] mTmpMatrix = new float[16];
-    private int mTextureId;
-    private int mFrameNum;
+    private static final int BUFFER_SPAN_SEC = 60;
+
+    // Recorded frame thumbnails are kept JPEG-compressed in a direct buffer; at 200x200
+    // that's roughly 10-15KB a frame, so this covers the encoder's buffered span.
+    private static final int FRAME_BUFFER_SIZE = 32 * 1024 * 1024;
+
+    // Written by the frame encoding threads, read on the main thread.  Guarded by itself.
+    private final RecordedFrameBuffer mFrameBuffer =
+            new RecordedFrameBuffer(FRAME_BUFFER_SIZE, DESIRED_PREVIEW_FPS * BUFFER_SPAN_SEC);
+    private final RecordedFrameBuffer.Range mFrameRange = mFrameBuffer.newRange();
+
+    // Compression of recorded frames.  By default, if it falls behind the camera we drop the
+    // oldest queued frames rather than letting full-size bitmaps pile up.
+    private static final int FRAME_EXPORT_THREADS = 2;
+    private static final int FRAME_EXPORT_QUEUE_DEPTH = 4;
+    private static final FrameExportExecutor.DropPolicy FRAME_EXPORT_DROP_POLICY =
+            FrameExportExecutor.DropPolicy.DROP_OLDEST;
+    private final FrameExportExecutor mFrameExportExecutor = new FrameExportExecutor(
+            FRAME_EXPORT_THREADS, FRAME_EXPORT_QUEUE_DEPTH, FRAME_EXPORT_DROP_POLICY);
+
+    // Draws the preview, and feeds the encoder, off the UI thread.  Exists while the
+    // preview surface does.
+    private PreviewRenderThread mRenderThread;
 
 //    private Camera mCamera;
     private int mCameraPreviewThousandFps;
 
     private File mOutputFile;
     private File mProvisionalFile;
+    private Promise mProvisionalPromise;    // pending generateProvisionalVideo() result
     private CircularEncoder mCircEncoder;
-    private WindowSurface mEncoderSurface;
     private boolean mFileSaveInProgress;
 
     private Camera1.MainHandler mHandler;
@@ -152,64 +158,14 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
 //
 //    };
 
-    private SurfaceTexture.OnFrameAvailableListener frameAvailableListener = new SurfaceTexture.OnFrameAvailableListener()
-    {
-        @Override   // SurfaceTexture.OnFrameAvailableListener; runs on arbitrary thread
-        public void onFrameAvailable(SurfaceTexture surfaceTexture) {
-
-                Log.d(TAG, "frame available");
-                surfaceTexture.getTimestamp();
-                mHandler.sendEmptyMessage(Camera1.MainHandler.MSG_FRAME_AVAILABLE);
-
-        }
-    };
-
-    private SurfaceHolder.Callback surfaceHolderCallback = new SurfaceHolder.Callback()
-    {
-        @Override   // SurfaceHolder.Callback
-        public void surfaceCreated(SurfaceHolder holder) {
-            Log.d(TAG, "surfaceCreated holder=" + holder);
-
-            // Set up everything that requires an EGL context.
-
-            // We had to wait until we had a surface because you can't make an EGL context current
-            // without one, and creating a temporary 1x1 pbuffer is a waste of time.
-            //
-            // The display surface that we use for the SurfaceView, and the encoder surface we
-            // use for video, use the same EGL context.
-            mEglCore = new EglCore(null, EglCore.FLAG_RECORDABLE);
-            mDisplaySurface = new WindowSurface(mEglCore, holder.getSurface(), false);
-            mDisplaySurface.makeCurrent();
-
-            mFullFrameBlit = new FullFrameRect(new Texture2dProgram(Texture2dProgram.ProgramType.TEXTURE_EXT));
-            mTextureId = mFullFrameBlit.createTextureObject();
-            mCameraTexture = new SurfaceTexture(mTextureId);
-            mCameraTexture.setOnFrameAvailableListener(frameAvailableListener);
-
-            startPreview();
-        }
-
-        @Override   // SurfaceHolder.Callback
-        public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
-            Log.d(TAG, "surfaceChanged fmt=" + format + " size=" + width + "x" + height +
-                    " holder=" + holder);
-        }
-
-        @Override   // SurfaceHolder.Callback
-        public void surfaceDestroyed(SurfaceHolder holder) {
-            Log.d(TAG, "surfaceDestroyed holder=" + holder);
-        }
-    };
-
     /**
      * Custom message handler for main UI thread.
      * <p>
-     * Used to handle camera preview "frame available" notifications, and implement the
-     * blinking "recording" text.  Receives callback messages from the encoder thread.
+     * Used to implement the blinking "recording" text.  Receives callback messages from the
+     * encoder thread.  Preview frames are drawn by the {@link PreviewRenderThread}.
      */
     private static class MainHandler extends Handler {
         public static final int MSG_BLINK_TEXT = 0;
-        public static final int MSG_FRAME_AVAILABLE = 1;
         public static final int MSG_FILE_SAVE_COMPLETE = 2;
         public static final int MSG_OFFLINE_FILE_SAVE_COMPLETE = 4;
         public static final int MSG_BUFFER_STATUS = 3;
@@ -276,10 +232,6 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
                     sendEmptyMessageDelayed(MSG_BLINK_TEXT, 1000);
                     break;
                 }
-                case MSG_FRAME_AVAILABLE: {
-                    activity.drawFrame();
-                    break;
-                }
                 case MSG_FILE_SAVE_COMPLETE: {
                     activity.fileSaveComplete(msg.arg1);
                     break;
@@ -300,78 +252,31 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
         }
     }
 
-    private void AddFrame(HashMap frameMap)
+    private void addFrame(long milliseconds, byte[] thumbnail, int thumbnailLength)
     {
-        purgeFrameArray(false);
-        mFramesArray.addLast(frameMap);
+        synchronized (mFrameBuffer) {
+            purgeFrameArray(false);
+            mFrameBuffer.add(milliseconds, thumbnail, thumbnailLength);
+        }
     }
 
+    /**
+     * Drops frames older than the span of video held by the encoder.  Caller must hold the
+     * {@link #mFrameBuffer} lock.
+     */
     private void purgeFrameArray(boolean precise)
     {
-        if(mFramesArray.size() <= 2 || mSecondsOfVideo <= 1)
+        if(mFrameBuffer.size() <= 2 || mSecondsOfVideo <= 1)
         {
             return;
         }
 
-        long lastFrame = (long) mFramesArray.getLast().get("milliseconds");
+        long lastFrame = mFrameBuffer.getLastTimeMs();
         double targetTime = precise ? mSecondsOfVideo : Math.ceil(mSecondsOfVideo);
-        double minimumTime = lastFrame - (targetTime) * 1000;
-
-        while(mFramesArray.size() > 0 && (long)mFramesArray.getFirst().get("milliseconds") < minimumTime )
-        {
-            mFramesArray.popFirst();
-        }
+        mFrameBuffer.purgeOlderThan((long) Math.ceil(lastFrame - (targetTime) * 1000));
     }
 
 
-    private void drawFrame() {
-        //Log.d(TAG, "drawFrame");
-        if (mEglCore == null) {
-            Log.d(TAG, "Skipping drawFrame after shutdown");
-            return;
-        }
-
-        // Latch the next frame from the camera.
-        mDisplaySurface.makeCurrent();
-        mCameraTexture.updateTexImage();
-        mCameraTexture.getTransformMatrix(mTmpMatrix);
-
-        // Fill the SurfaceView with it.
-        View sv = mPreview.getView();
-        int viewWidth = sv.getWidth();
-        int viewHeight = sv.getHeight();
-        GLES20.glViewport(0, 0, viewWidth, viewHeight);
-        mFullFrameBlit.drawFrame(mTextureId, mTmpMatrix);
-        mDisplaySurface.swapBuffers();
-
-        // Send it to the video encoder.
-        if (!mFileSaveInProgress && mIsRecording) {
-            mEncoderSurface.makeCurrent();
-            GLES20.glViewport(0, 0, VIDEO_WIDTH, VIDEO_HEIGHT);
-            mFullFrameBlit.drawFrame(mTextureId, mTmpMatrix);
-            mCircEncoder.frameAvailableSoon();
-
-            final long timestamp = mCameraTexture.getTimestamp();
-            mEncoderSurface.setPresentationTime(timestamp);
-            mEncoderSurface.swapBuffers();
-            mEncoderSurface.base64Image(new Base64Callback() {
-                @Override
-                public void onResponse(HashMap<String, String> base64Image) {
-                    if (base64Image !=  null)
-                    {
-                        HashMap<String, Object> frameData = new HashMap<String, Object>();
-                        frameData.putAll(base64Image);
-                        frameData.put("milliseconds", timestamp/1000000);
-                        Camera1.this.AddFrame(frameData);
-                    }
-                }
-            });
-
-        }
-
-        mFrameNum++;
-    }
-
     /**
      * The file save has completed.  We can resume recording.
      */
@@ -382,48 +287,51 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
             throw new RuntimeException("WEIRD: got fileSaveCmplete when not in progress");
         }
         mFileSaveInProgress = false;
+        updateEncoding();
 
         String targetFile = Uri.fromFile(mOutputFile).toString();
-        purgeFrameArray(true);
-        List<HashMap<String, Object>> frames = mFramesArray.allItems();
-        final HashMap lastItem = frames.get(frames.size()-1);
-        final long lastMillisecond = (long)lastItem.get("milliseconds");
-        frames.removeIf(new Predicate<HashMap<String, Object>>() {
-            @Override
-            public boolean test(HashMap<String, Object> n) {
-                return (Long) n.get("milliseconds") >= lastMillisecond - mSecondsOfVideo;
+        WritableArray frames = new WritableNativeArray();
+        synchronized (mFrameBuffer) {
+            purgeFrameArray(true);
+            if (!mFrameBuffer.isEmpty()) {
+                final long lastMillisecond = mFrameBuffer.getLastTimeMs();
+                // In double precision: a float can't hold camera timestamps to the millisecond.
+                mFrameBuffer.rangeBefore(lastMillisecond - (double) mSecondsOfVideo, mFrameRange);
+                for (int i = 0; i < mFrameRange.size(); i++) {
+                    int index = mFrameRange.getIndex(i);
+                    WritableMap frame = new WritableNativeMap();
+                    frame.putString("thumbnail", mFrameBuffer.encodeThumbnail(index));
+                    frame.putString("milliseconds", Long.toString(mFrameBuffer.getTimeMs(index)));
+                    frames.pushMap(frame);
+                }
             }
-        });
-
-        List<HashMap<String, Object>> filteredFrames = new ArrayList<HashMap<String, Object>>();
-
-        for (int i = 0; i < frames.size(); i++) {
-
-            // accessing each element of array
-            HashMap current = frames.get(i);
-            HashMap newMap = new HashMap(current);
-            newMap.remove("frameData");
-//            current.remove("frameData");
-            filteredFrames.add(newMap);
         }
 
-        JSONArray newArray = new JSONArray(filteredFrames);
-
         final WritableMap response = new WritableNativeMap();
         response.putString("type", "RecordedFrames");
         response.putString("filepath", targetFile);
-        try {
-            response.putArray("frames", NativeMapsUtility.convertJsonToArray(newArray));
-        } catch (JSONException e) {
-            e.printStackTrace();
-        }
+        response.putArray("frames", frames);
 
         mCallback.onReceiveStream(response);
     }
 
     private void offlineFileSaveCompleted(int status)
     {
-//        mCallback.on
+        Log.d(TAG, "offlineFileSaveCompleted " + status);
+        Promise promise = mProvisionalPromise;
+        mProvisionalPromise = null;
+        if (promise == null) {
+            return;
+        }
+
+        if (status == 0) {
+            WritableMap response = new WritableNativeMap();
+            response.putString("type", "outputfile");
+            response.putString("filepath", Uri.fromFile(mProvisionalFile).toString());
+            promise.resolve(response);
+        } else {
+            promise.reject("UNABLE TO PRODUCE OUTPUTFILE", "Error producing output video file");
+        }
     }
 
     private void updateBufferStatus(long durationUsec) {
@@ -435,7 +343,7 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
 //            Log.d(TAG, "starting camera preview");
             try {
 
-                mCamera.setPreviewTexture(mCameraTexture);
+                mCamera.setPreviewTexture(mRenderThread != null ? mRenderThread.getCameraTexture() : null);
             } catch (IOException ioe) {
                 throw new RuntimeException(ioe);
             }
@@ -454,11 +362,22 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
 
         try {
             mCircEncoder = new CircularEncoder(VIDEO_WIDTH, VIDEO_HEIGHT, 6000000,
-                    mCameraPreviewThousandFps / 1000, 60, mHandler.circularEncoderCallback);
+                    mCameraPreviewThousandFps / 1000, BUFFER_SPAN_SEC, mHandler.circularEncoderCallback);
         } catch (IOException ioe) {
             throw new RuntimeException(ioe);
         }
-        mEncoderSurface = new WindowSurface(mEglCore, mCircEncoder.getInputSurface(), true);
+        if (mRenderThread != null) {
+            mRenderThread.setEncoder(mCircEncoder);
+        }
+    }
+
+    /**
+     * Tells the render thread whether frames should go to the encoder.
+     */
+    private void updateEncoding() {
+        if (mRenderThread != null) {
+            mRenderThread.setEncoding(mIsRecording && !mFileSaveInProgress);
+        }
     }
 
     /**
@@ -588,6 +507,22 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
 
     private boolean mIsScanning;
 
+    // Preview frames are delivered into a few recycled buffers rather than a fresh array per
+    // frame.  A buffer goes back to the camera once everyone looking at the frame has
+    // released it; while none are free the camera skips frames.
+    private static final int PREVIEW_BUFFER_COUNT = 4;
+
+    private final PreviewBufferPool mPreviewBuffers = new PreviewBufferPool(
+            new PreviewBufferPool.Recycler() {
+                @Override
+                public void recycle(byte[] buffer) {
+                    Camera camera = mCamera;
+                    if (camera != null) {
+                        camera.addCallbackBuffer(buffer);
+                    }
+                }
+            });
+
     private Context mCurrentContext;
 
     private SurfaceTexture mPreviewTexture;
@@ -598,24 +533,36 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
         preview.getSurfaceHolder().addCallback(new SurfaceHolder.Callback() {
             @Override
             public void surfaceCreated(SurfaceHolder holder) {
-                mEglCore = new EglCore(null, EglCore.FLAG_RECORDABLE);
-                mDisplaySurface = new WindowSurface(mEglCore, mPreview.getSurfaceHolder().getSurface(), false);
-                mDisplaySurface.makeCurrent();
-
-                mFullFrameBlit = new FullFrameRect(new Texture2dProgram(Texture2dProgram.ProgramType.TEXTURE_EXT));
-                mTextureId = mFullFrameBlit.createTextureObject();
-                mCameraTexture = new SurfaceTexture(mTextureId);
-                mCameraTexture.setOnFrameAvailableListener(frameAvailableListener);
+                mRenderThread = new PreviewRenderThread(holder.getSurface(),
+                        holder.getSurfaceFrame().width(), holder.getSurfaceFrame().height(),
+                        mFrameExportExecutor, new PreviewRenderThread.FrameSink() {
+                            @Override
+                            public void onFrameRecorded(long milliseconds, byte[] thumbnail,
+                                    int thumbnailLength) {
+                                addFrame(milliseconds, thumbnail, thumbnailLength);
+                            }
+                        }, VIDEO_WIDTH, VIDEO_HEIGHT);
+                mRenderThread.startAndWait();
+                if (mCircEncoder != null) {
+                    mRenderThread.setEncoder(mCircEncoder);
+                }
+                updateEncoding();
             }
 
             @Override
             public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
-
+                if (mRenderThread != null) {
+                    mRenderThread.resize(width, height);
+                }
             }
 
             @Override
             public void surfaceDestroyed(SurfaceHolder holder) {
-
+                // EGL must let go of the surface before this returns.
+                if (mRenderThread != null) {
+                    mRenderThread.shutdown();
+                    mRenderThread = null;
+                }
             }
         });
         preview.setCallback(new PreviewImpl.Callback() {
@@ -668,7 +615,7 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
     void stop() {
         if (mCamera != null) {
             mCamera.stopPreview();
-            mCamera.setPreviewCallback(null);
+            mCamera.setPreviewCallbackWithBuffer(null);
         }
         mShowingPreview = false;
         if (mMediaRecorder != null) {
@@ -680,11 +627,39 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
                 int deviceOrientation = displayOrientationToOrientationEnum(mDeviceOrientation);
                 mCallback.onVideoRecorded(mVideoPath, mOrientation != Constants.ORIENTATION_AUTO ? mOrientation : deviceOrientation, deviceOrientation);
                 mIsRecording = false;
+                updateEncoding();
             }
         }
         releaseCamera();
     }
 
+    @Override
+    void release() {
+        stop();
+        mFrameExportExecutor.shutdown();
+    }
+
+    @Override
+    void setFrameExportQueueDepth(int depth) {
+        mFrameExportExecutor.setQueueDepth(depth > 0 ? depth : FRAME_EXPORT_QUEUE_DEPTH);
+    }
+
+    @Override
+    void setFrameExportDropPolicy(FrameExportExecutor.DropPolicy dropPolicy) {
+        mFrameExportExecutor.setDropPolicy(dropPolicy != null ? dropPolicy : FRAME_EXPORT_DROP_POLICY);
+    }
+
+    @Override
+    WritableMap getFrameExportStats() {
+        WritableMap stats = new WritableNativeMap();
+        stats.putDouble("submitted", mFrameExportExecutor.getSubmittedCount());
+        stats.putDouble("dropped", mFrameExportExecutor.getDroppedCount());
+        stats.putDouble("completed", mFrameExportExecutor.getCompletedCount());
+        stats.putDouble("queueLatencyMs", mFrameExportExecutor.getAverageQueueLatencyNanos() / 1e6);
+        stats.putDouble("maxQueueLatencyMs", mFrameExportExecutor.getMaxQueueLatencyNanos() / 1e6);
+        return stats;
+    }
+
     // Suppresses Camera#setPreviewTexture
     @SuppressLint("NewApi")
     void setUpPreview() {
@@ -880,20 +855,6 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
 
     }
 
-    List<HashMap<String, Object>> filterFrames(final double start, final double end)
-    {
-        List<HashMap<String, Object>> allItems = new ArrayList<HashMap<String, Object>>(mFramesArray.allItems());
-        allItems.removeIf(new Predicate<HashMap<String, Object>>() {
-            @Override
-            public boolean test(HashMap<String, Object> stringObjectHashMap) {
-                long lastFrame = (long) stringObjectHashMap.get("milliseconds");
-                return !(lastFrame >= start && lastFrame <= end);
-            }
-        });
-
-        return allItems;
-    }
-
     @Override
     void generateProvisionalVideo(ReadableMap options, Promise promise)
     {
@@ -906,7 +867,6 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
         double startTimeStamp = options.getDouble("startTimestamp");
         double endTimeStamp = options.getDouble("endTimestamp");
 
-        List frames = filterFrames(startTimeStamp, endTimeStamp);
 //        mCircEncoder.shutdown();
 //        try {
 //            mCircEncoder = new CircularEncoder(VIDEO_WIDTH, VIDEO_HEIGHT, 6000000, mCameraPreviewThousandFps / 1000, (int)Math.max( Math.ceil((endTimeStamp - startTimeStamp)/1000), 2), mHandler.circularEncoderCallback);
@@ -915,19 +875,23 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
 //            throw new RuntimeException(ioe);
 //        }
 
+        if (mCircEncoder == null) {
+            promise.reject("UNABLE TO PRODUCE OUTPUTFILE", "Not recording");
+            return;
+        }
+        if (mProvisionalPromise != null) {
+            promise.reject("UNABLE TO PRODUCE OUTPUTFILE", "A provisional video is already being saved");
+            return;
+        }
+
         String filePath = this.mCurrentContext.getFilesDir().getPath().toString() + "/provisional.mp4";
         mProvisionalFile = new File(filePath);
-        boolean result = mCircEncoder.saveCustomVideo(mProvisionalFile, frames);
+        mProvisionalPromise = promise;
 
-        if(result)
-        {
-            WritableMap response = new WritableNativeMap();
-            response.putString("type", "outputfile");
-            response.putString("filepath", Uri.fromFile(mProvisionalFile).toString());
-            promise.resolve(response);
-        } else {
-            promise.reject("UNABLE TO PRODUCE OUTPUTFILE", "Error producing output video file");
-        }
+        // Recorded frame timestamps are the camera timestamps in milliseconds, and the same
+        // timestamps are the encoder's presentation times, so the range maps directly.
+        mCircEncoder.saveVideoRange(mProvisionalFile, (long) Math.ceil(startTimeStamp) * 1000,
+                (long) Math.floor(endTimeStamp) * 1000 + 999);
 
 //        NSDictionary *eventRecordedFrames = @{
 ////        @"type" : @"OutputFile",
@@ -1043,13 +1007,11 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
                     if (options.hasKey("pauseAfterCapture") && !options.getBoolean("pauseAfterCapture")) {
                         camera.startPreview();
                         mIsPreviewActive = true;
-                        if (mIsScanning) {
-                            camera.setPreviewCallback(Camera1.this);
-                        }
+                        setScanningInternal(mIsScanning);
                     } else {
                         camera.stopPreview();
                         mIsPreviewActive = false;
-                        camera.setPreviewCallback(null);
+                        setScanningInternal(false, mIsScanning);
                     }
 
                     mOrientation = Constants.ORIENTATION_AUTO;
@@ -1070,6 +1032,7 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
                 mMediaRecorder.prepare();
                 mMediaRecorder.start();
                 mIsRecording = true;
+                updateEncoding();
                 return true;
             } catch (IOException e) {
                 e.printStackTrace();
@@ -1089,6 +1052,7 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
             mIsRecording = false;
             mCallback.onFetchingStream();
             mFileSaveInProgress = true;
+            updateEncoding();
             mCircEncoder.saveVideo(mOutputFile);
         }
     }
@@ -1279,6 +1243,7 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
         if (mCamera != null) {
             mCamera.release();
             mCamera = null;
+            mPreviewBuffers.clear();
             mPictureSize = null;
             mCallback.onCameraClosed();
         }
@@ -1420,20 +1385,53 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
     }
 
     private void setScanningInternal(boolean isScanning) {
+        setScanningInternal(isScanning, isScanning);
+    }
+
+    /**
+     * @param deliverFrames Whether the camera should deliver preview frames right now.
+     * @param isScanning The scanning state to remember for when the preview restarts.
+     */
+    private void setScanningInternal(boolean deliverFrames, boolean isScanning) {
         mIsScanning = isScanning;
         if (isCameraOpened()) {
-            if (mIsScanning) {
-                mCamera.setPreviewCallback(this);
-            } else {
-                mCamera.setPreviewCallback(null);
+            // Clearing the callback also empties the camera's buffer queue, which the pool
+            // relies on when it queues its idle buffers again.
+            mCamera.setPreviewCallbackWithBuffer(null);
+            if (deliverFrames) {
+                Camera.Size previewSize = mCameraParameters.getPreviewSize();
+                int bitsPerPixel = ImageFormat.getBitsPerPixel(mCameraParameters.getPreviewFormat());
+                int bufferSize = previewSize.width * previewSize.height * bitsPerPixel / 8;
+                mPreviewBuffers.reset(PREVIEW_BUFFER_COUNT, bufferSize);
+                mCamera.setPreviewCallbackWithBuffer(this);
             }
         }
     }
 
     @Override
     public void onPreviewFrame(byte[] data, Camera camera) {
-        Camera.Size previewSize = mCameraParameters.getPreviewSize();
-        mCallback.onFramePreview(data, previewSize.width, previewSize.height, mDeviceOrientation);
+        if (data == null) {
+            return;
+        }
+        boolean pooled = mPreviewBuffers.onBufferFilled(data);
+        try {
+            Camera.Size previewSize = mCameraParameters.getPreviewSize();
+            mCallback.onFramePreview(data, previewSize.width, previewSize.height, mDeviceOrientation);
+        } finally {
+            if (pooled) {
+                mPreviewBuffers.release(data);
+            }
+        }
+    }
+
+    @Override
+    void retainPreviewFrame(byte[] data) {
+        mPreviewBuffers.retain(data);
+    }
+
+    @Override
+    void releasePreviewFrame(byte[] data) {
+        mPreviewBuffers.release(data);
     }
 
     private void setUpMediaRecorder(String path, int maxDuration, int maxFileSize, boolean recordAudio, CamcorderProfile profile) {
@@ -37,6 +37,7 @@ import android.graphics.SurfaceTexture;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableMap;
+import com.google.android.cameraview.gles.FrameExportExecutor;
 
 import org.reactnative.camera.RNCameraViewHelper;
 
@@ -284,6 +285,7 @@ public class CameraView extends FrameLayout {
             }
             //store the state and restore this state after fall back to Camera1
             Parcelable state=onSaveInstanceState();
+            mImpl.release();
             // Camera2 uses legacy hardware layer; fall back to Camera1
             mImpl = new Camera1(mCallbacks, createPreviewImpl(getContext()), getContext());
             onRestoreInstanceState(state);
@@ -299,6 +301,14 @@ public class CameraView extends FrameLayout {
         mImpl.stop();
     }
 
+    /**
+     * Stop the camera for good and free its worker threads. This is typically called from
+     * {@link Activity#onDestroy()}; the view can't be started again afterwards.
+     */
+    public void release() {
+        mImpl.release();
+    }
+
     /**
      * @return {@code true} if the camera is opened.
      */
@@ -495,6 +505,22 @@ public class CameraView extends FrameLayout {
 
     public boolean getScanning() { return mImpl.getScanning(); }
 
+    /**
+     * Keeps a frame passed to {@link Callback#onFramePreview} from being reused by the
+     * camera after the callback returns.  Every call must be matched by a call to
+     * {@link #releasePreviewFrame(byte[])}.
+     */
+    public void retainPreviewFrame(byte[] data) {
+        mImpl.retainPreviewFrame(data);
+    }
+
+    /**
+     * Lets the camera reuse a frame kept with {@link #retainPreviewFrame(byte[])}.
+     */
+    public void releasePreviewFrame(byte[] data) {
+        mImpl.releasePreviewFrame(data);
+    }
+
     /**
      * Take a picture. The result will be returned to
      * {@link Callback#onPictureTaken(CameraView, byte[], int)}.
@@ -536,6 +562,25 @@ public class CameraView extends FrameLayout {
         return mImpl.getPreviewSize();
     }
 
+    /**
+     * Sets how many recorded frames may wait to be compressed; 0 means the default.
+     */
+    public void setFrameExportQueueDepth(int depth) {
+        mImpl.setFrameExportQueueDepth(depth);
+    }
+
+    /**
+     * Sets what happens to a recorded frame that arrives while the compression queue is full;
+     * null means the default, {@link FrameExportExecutor.DropPolicy#DROP_OLDEST}.
+     */
+    public void setFrameExportDropPolicy(FrameExportExecutor.DropPolicy dropPolicy) {
+        mImpl.setFrameExportDropPolicy(dropPolicy);
+    }
+
+    public WritableMap getFrameExportStats() {
+        return mImpl.getFrameExportStats();
+    }
+
 
     public void generateVideo(ReadableMap options, Promise promise)
     {
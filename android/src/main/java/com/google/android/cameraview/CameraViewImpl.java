@@ -24,6 +24,7 @@ import android.graphics.SurfaceTexture;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableMap;
+import com.google.android.cameraview.gles.FrameExportExecutor;
 
 import java.util.HashMap;
 import java.util.Set;
@@ -51,6 +52,12 @@ abstract class CameraViewImpl {
 
     abstract void stop();
 
+    /**
+     * Stops the camera and frees the threads and buffers kept across start() and stop().
+     * The instance can't be used afterwards.
+     */
+    abstract void release();
+
     abstract boolean isCameraOpened();
 
     abstract void setFacing(int facing);
@@ -110,6 +117,10 @@ abstract class CameraViewImpl {
     abstract void setScanning(boolean isScanning);
 
     abstract boolean getScanning();
+
+    abstract void retainPreviewFrame(byte[] data);
+
+    abstract void releasePreviewFrame(byte[] data);
     
     abstract public void resumePreview();
     
@@ -119,6 +130,22 @@ abstract class CameraViewImpl {
 
     abstract public Size getPreviewSize();
 
+    /**
+     * Sets how many recorded frames may wait to be compressed; 0 means the default.
+     */
+    abstract void setFrameExportQueueDepth(int depth);
+
+    /**
+     * Sets what happens to a recorded frame that arrives while the compression queue is full;
+     * null means the default.
+     */
+    abstract void setFrameExportDropPolicy(FrameExportExecutor.DropPolicy dropPolicy);
+
+    /**
+     * Returns the recorded frame compression counters and queue latency.
+     */
+    abstract WritableMap getFrameExportStats();
+
     interface Callback {
 
         void onCameraOpened();
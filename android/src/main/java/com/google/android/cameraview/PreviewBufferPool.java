@@ -0,0 +1,144 @@
+package com.google.android.cameraview;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A fixed set of preview callback buffers, shared between the camera and whoever is looking
+ * at the frames.
+ * <p>
+ * Each buffer is either queued with the camera (via the {@link Recycler}) or filled and
+ * reference counted.  The camera's delivery holds the first reference; anyone who keeps
+ * the frame past the callback {@link #retain}s it, and {@link #release}s it when done.
+ * When the last reference goes the buffer is handed back to the camera.
+ * <p>
+ * This class doesn't touch the camera itself, so it can be exercised off-device.
+ * Thread-safe; the recycler is called without the pool's lock held.
+ */
+class PreviewBufferPool {
+
+    /**
+     * Gives a buffer to the camera to fill, e.g. with Camera.addCallbackBuffer().
+     */
+    interface Recycler {
+        void recycle(byte[] buffer);
+    }
+
+    private static class Entry {
+        // Number of holders; 0 while the buffer is queued with the camera or idle.
+        int refs;
+        boolean queued;
+    }
+
+    private final Recycler mRecycler;
+    private final Map<byte[], Entry> mEntries = new IdentityHashMap<>();
+    private int mBufferSize;
+
+    PreviewBufferPool(Recycler recycler) {
+        mRecycler = recycler;
+    }
+
+    /**
+     * Sets up {@code bufferCount} buffers of {@code bufferSize} bytes and queues every idle
+     * one with the camera.  The caller must have cleared the camera's own queue first (e.g.
+     * with setPreviewCallbackWithBuffer(null)), since buffers thought to be queued are
+     * queued again.
+     * <p>
+     * Buffers of the same size are kept, including ones still held; those go back to the
+     * camera when released.  If the size changed, all existing buffers are forgotten.
+     */
+    void reset(int bufferCount, int bufferSize) {
+        List<byte[]> toRecycle = new ArrayList<>();
+        synchronized (this) {
+            if (bufferSize != mBufferSize) {
+                mEntries.clear();
+                mBufferSize = bufferSize;
+            }
+            while (mEntries.size() < bufferCount) {
+                mEntries.put(new byte[bufferSize], new Entry());
+            }
+            for (Map.Entry<byte[], Entry> entry : mEntries.entrySet()) {
+                Entry state = entry.getValue();
+                if (state.refs == 0) {
+                    state.queued = true;
+                    toRecycle.add(entry.getKey());
+                }
+            }
+        }
+        for (byte[] buffer : toRecycle) {
+            mRecycler.recycle(buffer);
+        }
+    }
+
+    /**
+     * Forgets every buffer, e.g. when the camera is closed.  Buffers still held are simply
+     * dropped when released.
+     */
+    synchronized void clear() {
+        mEntries.clear();
+        mBufferSize = 0;
+    }
+
+    /**
+     * Records that the camera has filled {@code buffer}, and takes the delivery's reference
+     * to it.  The caller must {@link #release} it once the frame callback returns.
+     *
+     * @return false if the buffer doesn't belong to the pool.
+     */
+    synchronized boolean onBufferFilled(byte[] buffer) {
+        Entry state = mEntries.get(buffer);
+        if (state == null) {
+            return false;
+        }
+        state.queued = false;
+        state.refs = 1;
+        return true;
+    }
+
+    /**
+     * Adds a reference to a filled buffer.  Has no effect on buffers the pool doesn't know.
+     */
+    synchronized void retain(byte[] buffer) {
+        Entry state = mEntries.get(buffer);
+        if (state != null && state.refs > 0) {
+            state.refs++;
+        }
+    }
+
+    /**
+     * Drops a reference to a filled buffer, and gives it back to the camera if it was the
+     * last one.  Has no effect on buffers the pool doesn't know.
+     */
+    void release(byte[] buffer) {
+        synchronized (this) {
+            Entry state = mEntries.get(buffer);
+            if (state == null || state.refs == 0) {
+                return;
+            }
+            if (--state.refs > 0) {
+                return;
+            }
+            state.queued = true;
+        }
+        mRecycler.recycle(buffer);
+    }
+
+    /**
+     * Returns the number of buffers currently queued with the camera.
+     */
+    synchronized int getQueuedCount() {
+        int count = 0;
+        for (Entry state : mEntries.values()) {
+            if (state.queued) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    synchronized int getBufferCount() {
+        return mEntries.size();
+    }
+}
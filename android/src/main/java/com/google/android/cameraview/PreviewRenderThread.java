@@ -0,0 +1,312 @@
+package com.google.android.cameraview;
+
+import android.graphics.SurfaceTexture;
+import android.opengl.GLES20;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Message;
+import android.util.Log;
+import android.view.Surface;
+
+import com.google.android.cameraview.gles.CircularEncoder;
+import com.google.android.cameraview.gles.EglCore;
+import com.google.android.cameraview.gles.EncodedFrameCallback;
+import com.google.android.cameraview.gles.FrameExportExecutor;
+import com.google.android.cameraview.gles.FrameExporter;
+import com.google.android.cameraview.gles.FullFrameRect;
+import com.google.android.cameraview.gles.Texture2dProgram;
+import com.google.android.cameraview.gles.WindowSurface;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Draws camera preview frames on a thread of its own, so that neither the UI thread nor
+ * the camera has to wait for the other.
+ * <p>
+ * The thread owns the EGL context and everything tied to it: the display surface, the
+ * texture the camera draws into, the blit program, the encoder's input surface and the
+ * frame exporter.  Everyone else talks to it through messages: {@link #resize},
+ * {@link #setEncoder}, {@link #setEncoding} and {@link #shutdown}.
+ * <p>
+ * For each camera frame it draws the display, then (while encoding) the encoder's input
+ * and the recorded frame export.
+ */
+class PreviewRenderThread extends Thread {
+    private static final String TAG = "PreviewRenderThread";
+
+    /**
+     * Receives recorded frames once they're compressed.  Called on the export threads.
+     */
+    interface FrameSink {
+        void onFrameRecorded(long milliseconds, byte[] thumbnail, int thumbnailLength);
+    }
+
+    private final Surface mDisplaySurfaceTarget;
+    private final FrameExportExecutor mFrameExportExecutor;
+    private final FrameSink mFrameSink;
+    private final int mVideoWidth;
+    private final int mVideoHeight;
+
+    private final Object mLock = new Object();
+    private boolean mReady;
+    private RenderHandler mHandler;
+    private SurfaceTexture mCameraTexture;
+
+    // Render thread only.
+    private EglCore mEglCore;
+    private WindowSurface mDisplaySurface;
+    private FullFrameRect mFullFrameBlit;
+    private int mTextureId;
+    private final float[] mTmpMatrix = new float[16];
+    private int mViewportWidth;
+    private int mViewportHeight;
+    private CircularEncoder mEncoder;
+    private WindowSurface mEncoderSurface;
+    private boolean mEncoding;
+    private FrameExporter mFrameExporter;   // created on first recorded frame
+
+    // Shared by every exported frame, which carries its own timestamp.
+    private final EncodedFrameCallback mEncodedFrameCallback = new EncodedFrameCallback() {
+        @Override
+        public void onFrameEncoded(long timestampMs, byte[] thumbnail, int thumbnailLength) {
+            mFrameSink.onFrameRecorded(timestampMs, thumbnail, thumbnailLength);
+        }
+    };
+
+    /**
+     * @param displaySurface Where the preview is shown, e.g. the SurfaceView's surface.
+     * @param width Current size of the display surface; see {@link #resize}.
+     * @param videoWidth Size of the encoder's input surface.
+     */
+    PreviewRenderThread(Surface displaySurface, int width, int height,
+            FrameExportExecutor frameExportExecutor, FrameSink frameSink,
+            int videoWidth, int videoHeight) {
+        super(TAG);
+        mDisplaySurfaceTarget = displaySurface;
+        mViewportWidth = width;
+        mViewportHeight = height;
+        mFrameExportExecutor = frameExportExecutor;
+        mFrameSink = frameSink;
+        mVideoWidth = videoWidth;
+        mVideoHeight = videoHeight;
+    }
+
+    /**
+     * Starts the thread and waits until its EGL context and camera texture are set up.
+     */
+    void startAndWait() {
+        start();
+        synchronized (mLock) {
+            while (!mReady) {
+                try {
+                    mLock.wait();
+                } catch (InterruptedException ie) { /* not expected */ }
+            }
+        }
+    }
+
+    /**
+     * Returns the texture the camera should draw its preview into, or null once the thread
+     * has shut down.
+     */
+    SurfaceTexture getCameraTexture() {
+        synchronized (mLock) {
+            return mCameraTexture;
+        }
+    }
+
+    /**
+     * Sets the size of the display surface.
+     */
+    void resize(int width, int height) {
+        sendMessage(RenderHandler.MSG_RESIZE, width, height, null);
+    }
+
+    /**
+     * Sets the encoder to feed while {@link #setEncoding encoding}, or none.  The previous
+     * encoder's input surface is released, but the encoder itself is left alone.
+     */
+    void setEncoder(CircularEncoder encoder) {
+        sendMessage(RenderHandler.MSG_SET_ENCODER, 0, 0, encoder);
+    }
+
+    /**
+     * Sets whether frames go to the encoder and the recorded frame export.
+     */
+    void setEncoding(boolean encoding) {
+        sendMessage(RenderHandler.MSG_SET_ENCODING, encoding ? 1 : 0, 0, null);
+    }
+
+    /**
+     * Releases everything and ends the thread, and waits for it.  The display surface must
+     * not be used by EGL after this returns, so call it before the surface is destroyed.
+     */
+    void shutdown() {
+        if (sendMessage(RenderHandler.MSG_SHUTDOWN, 0, 0, null)) {
+            try {
+                join();
+            } catch (InterruptedException ie) { /* not expected */ }
+        }
+    }
+
+    @Override
+    public void run() {
+        Looper.prepare();
+        mEglCore = new EglCore(null, EglCore.FLAG_RECORDABLE | EglCore.FLAG_TRY_GLES3);
+        mDisplaySurface = new WindowSurface(mEglCore, mDisplaySurfaceTarget, false);
+        mDisplaySurface.makeCurrent();
+
+        mFullFrameBlit = new FullFrameRect(new Texture2dProgram(Texture2dProgram.ProgramType.TEXTURE_EXT));
+        mTextureId = mFullFrameBlit.createTextureObject();
+        // Created on this thread, which has a looper, so frame notifications arrive here.
+        SurfaceTexture cameraTexture = new SurfaceTexture(mTextureId);
+        final RenderHandler handler = new RenderHandler(this);
+        cameraTexture.setOnFrameAvailableListener(new SurfaceTexture.OnFrameAvailableListener() {
+            @Override
+            public void onFrameAvailable(SurfaceTexture surfaceTexture) {
+                handler.sendEmptyMessage(RenderHandler.MSG_FRAME_AVAILABLE);
+            }
+        });
+
+        synchronized (mLock) {
+            mHandler = handler;
+            mCameraTexture = cameraTexture;
+            mReady = true;
+            mLock.notifyAll();
+        }
+
+        Looper.loop();
+
+        synchronized (mLock) {
+            mReady = false;
+            mHandler = null;
+            mCameraTexture = null;
+        }
+        releaseGl(cameraTexture);
+        Log.d(TAG, "looper quit");
+    }
+
+    private boolean sendMessage(int what, int arg1, int arg2, Object obj) {
+        synchronized (mLock) {
+            if (mHandler == null) {
+                return false;
+            }
+            mHandler.sendMessage(mHandler.obtainMessage(what, arg1, arg2, obj));
+            return true;
+        }
+    }
+
+    private void drawFrame() {
+        // Latch the next frame from the camera.
+        mDisplaySurface.makeCurrent();
+        mCameraTexture.updateTexImage();
+        mCameraTexture.getTransformMatrix(mTmpMatrix);
+
+        // Fill the SurfaceView with it.
+        GLES20.glViewport(0, 0, mViewportWidth, mViewportHeight);
+        mFullFrameBlit.drawFrame(mTextureId, mTmpMatrix);
+        mDisplaySurface.swapBuffers();
+
+        // Send it to the video encoder.
+        if (mEncoding && mEncoderSurface != null) {
+            mEncoderSurface.makeCurrent();
+            GLES20.glViewport(0, 0, mVideoWidth, mVideoHeight);
+            mFullFrameBlit.drawFrame(mTextureId, mTmpMatrix);
+            mEncoder.frameAvailableSoon();
+
+            final long timestamp = mCameraTexture.getTimestamp();
+            mEncoderSurface.setPresentationTime(timestamp);
+            mEncoderSurface.swapBuffers();
+
+            // Thumbnails are drawn upright and to size by the GPU before they're read back.
+            // Provisional videos are cut from the encoder's buffer, so only thumbnails are
+            // exported.
+            if (mFrameExporter == null) {
+                mFrameExporter = new FrameExporter(mFrameExportExecutor,
+                        FrameExporter.DEFAULT_THUMBNAIL_WIDTH, FrameExporter.DEFAULT_THUMBNAIL_HEIGHT,
+                        mEglCore.getGlVersion());
+            }
+            mFrameExporter.exportFrame(mFullFrameBlit, mTextureId, mTmpMatrix, timestamp / 1000000,
+                    mEncodedFrameCallback);
+
+        } else if (mFrameExporter != null && mFrameExporter.hasPendingReadback()) {
+            // Recording stopped; export the frames whose readback is still in flight.
+            mFrameExporter.flush();
+        }
+    }
+
+    private void setEncoderInternal(CircularEncoder encoder) {
+        if (mEncoderSurface != null) {
+            mEncoderSurface.release();
+            mEncoderSurface = null;
+        }
+        mEncoder = encoder;
+        if (encoder != null) {
+            mEncoderSurface = new WindowSurface(mEglCore, encoder.getInputSurface(), true);
+        }
+    }
+
+    private void releaseGl(SurfaceTexture cameraTexture) {
+        mDisplaySurface.makeCurrent();
+        if (mFrameExporter != null) {
+            mFrameExporter.flush();
+            mFrameExporter.release();
+            mFrameExporter = null;
+        }
+        setEncoderInternal(null);
+        cameraTexture.release();
+        mFullFrameBlit.release(true);
+        mFullFrameBlit = null;
+        mDisplaySurface.release();
+        mDisplaySurface = null;
+        mEglCore.release();
+        mEglCore = null;
+    }
+
+    /**
+     * Runs the render thread's side of the messages.
+     */
+    private static class RenderHandler extends Handler {
+        static final int MSG_FRAME_AVAILABLE = 0;
+        static final int MSG_RESIZE = 1;
+        static final int MSG_SET_ENCODER = 2;
+        static final int MSG_SET_ENCODING = 3;
+        static final int MSG_SHUTDOWN = 4;
+
+        private final WeakReference<PreviewRenderThread> mWeakThread;
+
+        RenderHandler(PreviewRenderThread thread) {
+            mWeakThread = new WeakReference<>(thread);
+        }
+
+        @Override
+        public void handleMessage(Message msg) {
+            PreviewRenderThread thread = mWeakThread.get();
+            if (thread == null) {
+                Log.w(TAG, "RenderHandler.handleMessage: thread is null");
+                return;
+            }
+
+            switch (msg.what) {
+                case MSG_FRAME_AVAILABLE:
+                    thread.drawFrame();
+                    break;
+                case MSG_RESIZE:
+                    thread.mViewportWidth = msg.arg1;
+                    thread.mViewportHeight = msg.arg2;
+                    break;
+                case MSG_SET_ENCODER:
+                    thread.setEncoderInternal((CircularEncoder) msg.obj);
+                    break;
+                case MSG_SET_ENCODING:
+                    thread.mEncoding = msg.arg1 != 0;
+                    break;
+                case MSG_SHUTDOWN:
+                    Looper.myLooper().quit();
+                    break;
+                default:
+                    throw new RuntimeException("unknown message " + msg.what);
+            }
+        }
+    }
+}
@@ -17,8 +17,6 @@
 package com.google.android.cameraview.gles;
 
 
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.media.MediaCodec;
 import android.media.MediaCodecInfo;
 import android.media.MediaFormat;
@@ -26,24 +24,16 @@ import android.media.MediaMuxer;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
-import android.util.Base64;
 import android.util.Log;
 import android.view.Surface;
 
 import com.google.android.cameraview.BitmapUtils;
 
-import org.jcodec.api.SequenceEncoder;
-import org.jcodec.common.model.ColorSpace;
-import org.jcodec.common.model.Picture;
-import org.jcodec.scale.BitmapUtil;
-
 import java.io.File;
 import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
-import java.util.HashMap;
-import java.util.List;
 
 /**
  * Encodes video in a fixed-size circular buffer.
@@ -85,7 +75,12 @@ public class CircularEncoder {
          */
         void fileSaveComplete(int status);
 
-
+        /**
+         * Called some time after saveVideoRange(), when all data has been written to the
+         * output file.
+         *
+         * @param status Zero means success, nonzero indicates failure.
+         */
         void updatedFileSaveComplete(int status);
 
         /**
@@ -99,14 +94,16 @@ public class CircularEncoder {
         void clearingBuffer(long timeCleared);
     }
 
-    private class ProvisionalFile
+    private static class ProvisionalFile
     {
         public File targetFile;
-        public List frames;
-        public ProvisionalFile(File file, List list)
+        public long startUsec;
+        public long endUsec;
+        public ProvisionalFile(File file, long start, long end)
         {
-            frames = list;
             targetFile = file;
+            startUsec = start;
+            endUsec = end;
         }
     }
 
@@ -121,6 +118,23 @@ public class CircularEncoder {
      */
     public CircularEncoder(int width, int height, int bitRate, int frameRate, int desiredSpanSec,
             Callback cb) throws IOException {
+        this(width, height, bitRate, frameRate, desiredSpanSec, false, cb);
+    }
+
+    /**
+     * Configures encoder, and prepares the input Surface.
+     *
+     * @param width Width of encoded video, in pixels.  Should be a multiple of 16.
+     * @param height Height of encoded video, in pixels.  Usually a multiple of 16 (1080 is ok).
+     * @param bitRate Target bit rate, in bits.
+     * @param frameRate Expected frame rate.
+     * @param desiredSpanSec How many seconds of video we want to have in our buffer at any time.
+     * @param powerOfTwoBuffer Round the circular buffer up to a power of two.  Index wrapping
+     *        is cheap either way; this trades up to twice the memory (64MB rather than 45MB at
+     *        6Mbps for 60 seconds) for mask arithmetic, so the other constructor leaves it off.
+     */
+    public CircularEncoder(int width, int height, int bitRate, int frameRate, int desiredSpanSec,
+            boolean powerOfTwoBuffer, Callback cb) throws IOException {
         // The goal is to size the buffer so that we can accumulate N seconds worth of video,
         // where N is passed in as "desiredSpanSec".  If the codec generates data at roughly
         // the requested bit rate, we can compute it as time * bitRate / bitsPerByte.
@@ -135,7 +149,7 @@ public class CircularEncoder {
                     " vs. " + (IFRAME_INTERVAL * 2));
         }
         CircularEncoderBuffer encBuffer = new CircularEncoderBuffer(bitRate, frameRate,
-                desiredSpanSec);
+                desiredSpanSec, powerOfTwoBuffer);
 
         MediaFormat format = MediaFormat.createVideoFormat(MIME_TYPE, width, height);
 
@@ -228,11 +242,26 @@ public class CircularEncoder {
     }
 
 
-    public boolean saveCustomVideo(File outputFile, List frames) {
-//        Handler handler = mEncoderThread.getHandler();
-        return mEncoderThread.saveVideoWithFrames(frames, outputFile);
-//        handler.sendMessage(handler.obtainMessage(
-//                EncoderThread.EncoderHandler.MSG_SAVE_OFFLINE_VIDEO, new ProvisionalFile(outputFile, frames)));
+    /**
+     * Initiates saving the buffered video between two presentation times to the specified
+     * output file.  The call returns immediately; when the file save completes,
+     * {@link Callback#updatedFileSaveComplete(int)} is called.
+     * <p>
+     * The packets are remuxed as they are, so no frames are re-encoded.  Output starts at
+     * the last sync frame at or before {@code startUsec}, which may be up to one sync frame
+     * interval early.
+     * <p>
+     * Like {@link #saveVideo(File)}, this runs on the encoder thread.
+     *
+     * @param startUsec Start time, in the timebase of the presentation times given to the
+     *     encoder's input surface, in microseconds.
+     * @param endUsec End time, inclusive.
+     */
+    public void saveVideoRange(File outputFile, long startUsec, long endUsec) {
+        Handler handler = mEncoderThread.getHandler();
+        handler.sendMessage(handler.obtainMessage(
+                EncoderThread.EncoderHandler.MSG_SAVE_OFFLINE_VIDEO,
+                new ProvisionalFile(outputFile, startUsec, endUsec)));
     }
 
 
@@ -430,12 +459,14 @@ public class CircularEncoder {
 
             MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
             MediaMuxer muxer = null;
+            boolean started = false;
             int result = -1;
             try {
                 muxer = new MediaMuxer(outputFile.getPath(),
                         MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
                 int videoTrack = muxer.addTrack(mEncodedFormat);
                 muxer.start();
+                started = true;
 
                 do {
                     ByteBuffer buf = mEncBuffer.getChunk(index, info);
@@ -446,13 +477,12 @@ public class CircularEncoder {
                     index = mEncBuffer.getNextIndex(index);
                 } while (index >= 0);
                 result = 0;
-            } catch (IOException ioe) {
-                Log.w(TAG, "muxer failed", ioe);
+            } catch (IOException | RuntimeException e) {
+                Log.w(TAG, "muxer failed", e);
                 result = 2;
             } finally {
-                if (muxer != null) {
-                    muxer.stop();
-                    muxer.release();
+                if (muxer != null && !closeMuxer(muxer, started) && result == 0) {
+                    result = 2;
                 }
             }
 
@@ -462,83 +492,80 @@ public class CircularEncoder {
             mCallback.fileSaveComplete(result);
         }
 
-        public boolean saveVideoWithFrames(List frames, File outputFile)
-        {
+        /**
+         * Saves the encoder output between two presentation times to a .mp4 file.
+         * <p>
+         * Starts at the last sync frame at or before the start time, since the muxed file
+         * has to.  If the start time is older than anything buffered, starts at the oldest
+         * sync frame instead.
+         */
+        void saveVideoRange(File outputFile, long startUsec, long endUsec) {
+            if (VERBOSE) Log.d(TAG, "saveVideoRange " + outputFile + " " + startUsec + "-" + endUsec);
+
+            CircularEncoderBuffer.RangeIterator packets =
+                    mEncBuffer.rangeIterator(startUsec, endUsec);
+            if (!packets.hasNext() || mEncodedFormat == null) {
+                Log.w(TAG, "No buffered video in range " + startUsec + "-" + endUsec);
+                mCallback.updatedFileSaveComplete(1);
+                return;
+            }
+
             MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
-//            MediaMuxer muxer = null;
-            HashMap<String, Object> firstEntry = (HashMap<String, Object>) frames.get(0);
-            long firstTimestamp = (long)firstEntry.get("milliseconds");
+            MediaMuxer muxer = null;
+            boolean started = false;
             int result = -1;
-            int index = 0;
             try {
-//...
-                SequenceEncoder enc = SequenceEncoder.createSequenceEncoder(outputFile,30);
-// GOP size will be supported in 0.2
-// enc.getEncoder().setKeyInterval(25);
-//                for(...) {
-//                    BufferedImage image = ... // Obtain an image to encode
-//                    enc.encodeImage(image);
-//                }
-
-
-//                muxer = new MediaMuxer(outputFile.getPath(),
-//                        MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
-//                int videoTrack = muxer.addTrack(mEncodedFormat);
-//                muxer.start();
+                muxer = new MediaMuxer(outputFile.getPath(),
+                        MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
+                int videoTrack = muxer.addTrack(mEncodedFormat);
+                muxer.start();
+                started = true;
 
                 do {
-                    HashMap<String, Object> targetEntry = (HashMap<String, Object>) frames.get(index);
-                    long timestamp = (long)targetEntry.get("milliseconds");
-                    info.offset = 0;
-                    info.presentationTimeUs =  (timestamp -firstTimestamp) * 1000;
-
-                    byte[] decodedString = Base64.decode( (String)targetEntry.get("frameData"), Base64.DEFAULT);
-                    Bitmap decodedByte = BitmapFactory.decodeByteArray(decodedString, 0, decodedString.length);
-//                    ByteBuffer buf = BitmapUtils.convertBitmapToByteBuffer(decodedByte);
-//
-//                    int width = decodedByte.getWidth();
-//                    int height = decodedByte.getHeight();
-//                    int testSize = decodedByte.getByteCount();
-//
-//                    int size = decodedByte.getRowBytes() * decodedByte.getHeight();
-//                    ByteBuffer byteBuffer = ByteBuffer.allocate(size);
-//                    decodedByte.copyPixelsToBuffer(byteBuffer);
-//                    byte[] byteArray = byteBuffer.array();
-////                    decodedByte.copyPixelsToBuffer();
-//                    info.size = decodedByte.getByteCount();
-////                    d
-//                    byte[][] array2D = new byte[decodedByte.getHeight()][decodedByte.getWidth()];
-//
-//                    for(int i = 0 ; i < height ; i++)
-//                    {
-//                        for(int j = 0 ; j < width ; j++)
-//                        {
-//                            array2D[i][j] = byteArray[i * width + j];
-//                        }
-//                    }
-
-                    Picture pic = BitmapUtil.fromBitmap(decodedByte);
-                    enc.encodeNativeFrame(pic);
-                    index++;
-                } while (index < frames.size());
-                enc.finish();
+                    ByteBuffer buf = mEncBuffer.getChunk(packets.next(), info);
+                    muxer.writeSampleData(videoTrack, buf, info);
+                } while (packets.hasNext());
                 result = 0;
-            } catch (Exception ioe) {
-                Log.w(TAG, "muxer failed", ioe);
+            } catch (IOException | RuntimeException e) {
+                // MediaMuxer reports most failures (bad format, bad timestamps, disk full)
+                // with IllegalStateException or IllegalArgumentException.
+                Log.w(TAG, "muxer failed", e);
                 result = 2;
             } finally {
-//                if (muxer != null) {
-//                    muxer.stop();
-//                    muxer.release();
-//                }
+                if (muxer != null && !closeMuxer(muxer, started) && result == 0) {
+                    result = 2;
+                }
             }
 
             if (VERBOSE) {
                 Log.d(TAG, "muxer stopped, result=" + result);
             }
-//            mCallback.updatedFileSaveComplete(result);
+            mCallback.updatedFileSaveComplete(result);
+        }
 
-            return result == 0;
+        /**
+         * Stops (if it was started) and releases a muxer, without throwing, so that cleaning
+         * up after a failure can't hide it or keep the save callback from being called.
+         *
+         * @return false if the muxer was started and couldn't be stopped, in which case the
+         *     output file is unusable.
+         */
+        private static boolean closeMuxer(MediaMuxer muxer, boolean started) {
+            boolean stopped = !started;
+            if (started) {
+                try {
+                    muxer.stop();
+                    stopped = true;
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "muxer stop failed", e);
+                }
+            }
+            try {
+                muxer.release();
+            } catch (RuntimeException e) {
+                Log.w(TAG, "muxer release failed", e);
+            }
+            return stopped;
         }
 
         /**
@@ -597,7 +624,8 @@ public class CircularEncoder {
                         break;
                     case MSG_SAVE_OFFLINE_VIDEO:
                         ProvisionalFile provisionalFile = (ProvisionalFile) msg.obj;
-                        encoderThread.saveVideoWithFrames( provisionalFile.frames, provisionalFile.targetFile);
+                        encoderThread.saveVideoRange(provisionalFile.targetFile,
+                                provisionalFile.startUsec, provisionalFile.endUsec);
                         break;
                     default:
                         throw new RuntimeException("unknown message " + what);
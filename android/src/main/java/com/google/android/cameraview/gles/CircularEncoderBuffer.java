@@ -21,6 +21,7 @@ import android.media.MediaCodec;
 import android.util.Log;
 
 import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
 
 /**
  * Holds encoded video data in a circular buffer.
@@ -44,10 +45,12 @@ public class CircularEncoderBuffer {
     //
     // It's much more convenient to work with a byte[], so we just wrap it with a ByteBuffer
     // as needed.  This is a bit awkward when we hit the edge of the buffer, but for that
-    // we can just do an allocation and data copy (we know it happens at most once per file
-    // save operation).
+    // we can just copy the packet into a scratch buffer.  That happens for at most one packet
+    // per save, but provisional videos can be saved every few seconds, so the scratch buffer
+    // is kept and only reallocated when a bigger packet comes along.
     private ByteBuffer mDataBufferWrapper;
     private byte[] mDataBuffer;
+    private ByteBuffer mChunkScratch;
 
     // Meta-data held here.  We're using a collection of arrays, rather than an array of
     // objects with multiple fields, to minimize allocations and heap footprint.
@@ -61,15 +64,40 @@ public class CircularEncoderBuffer {
     private int mMetaHead;
     private int mMetaTail;
 
+    // Meta-data indices of the sync frames in the buffer, oldest first.  Packets are added
+    // and removed in order, so this is one more circular buffer, kept in step by add() and
+    // removeTail().  It has as many slots as the meta-data, so it can't fill up first.
+    private int[] mSyncIndex;
+    private int mSyncHead;
+    private int mSyncTail;
+
+    // Index masks, for buffers whose sizes are powers of two; -1 otherwise.  Either way
+    // indices are wrapped without integer division, which not all ARM CPUs have in
+    // hardware.  See wrapData() and wrapMeta().
+    private final int mDataMask;
+    private final int mMetaMask;
+
     /**
      * Allocates the circular buffers we use for encoded data and meta-data.
      */
     public CircularEncoderBuffer(int bitRate, int frameRate, int desiredSpanSec) {
+        this(bitRate, frameRate, desiredSpanSec, false);
+    }
+
+    /**
+     * Allocates the circular buffers we use for encoded data and meta-data.
+     *
+     * @param powerOfTwo If set, round both buffers up to a power of two so indices can be
+     *     wrapped with a mask.  This holds a bit more video, at the cost of up to twice the
+     *     memory.
+     */
+    public CircularEncoderBuffer(int bitRate, int frameRate, int desiredSpanSec,
+            boolean powerOfTwo) {
         // For the encoded data, we assume the encoded bit rate is close to what we request.
-        //
-        // There would be a minor performance advantage to using a power of two here, because
-        // not all ARM CPUs support integer modulus.
         int dataBufferSize = bitRate * desiredSpanSec / 8;
+        if (powerOfTwo) {
+            dataBufferSize = roundUpToPowerOfTwo(dataBufferSize);
+        }
         mDataBuffer = new byte[dataBufferSize];
         mDataBufferWrapper = ByteBuffer.wrap(mDataBuffer);
 
@@ -77,10 +105,16 @@ public class CircularEncoderBuffer {
         // a bit.  This should ensure that we drop packets because we ran out of (expensive)
         // data storage rather than (inexpensive) metadata storage.
         int metaBufferCount = frameRate * desiredSpanSec * 2;
+        if (powerOfTwo) {
+            metaBufferCount = roundUpToPowerOfTwo(metaBufferCount);
+        }
         mPacketFlags = new int[metaBufferCount];
         mPacketPtsUsec = new long[metaBufferCount];
         mPacketStart = new int[metaBufferCount];
         mPacketLength = new int[metaBufferCount];
+        mSyncIndex = new int[metaBufferCount];
+        mDataMask = powerOfTwo ? dataBufferSize - 1 : -1;
+        mMetaMask = powerOfTwo ? metaBufferCount - 1 : -1;
 
         if (VERBOSE) {
             Log.d(TAG, "CBE: bitRate=" + bitRate + " frameRate=" + frameRate +
@@ -102,7 +136,7 @@ public class CircularEncoderBuffer {
         }
 
         // head points to the next available node, so grab the previous one
-        int beforeHead = (mMetaHead + metaLen - 1) % metaLen;
+        int beforeHead = wrapMeta(mMetaHead + metaLen - 1);
         return mPacketPtsUsec[beforeHead] - mPacketPtsUsec[mMetaTail];
     }
 
@@ -126,12 +160,15 @@ public class CircularEncoderBuffer {
         }
 
         final int dataLen = mDataBuffer.length;
-        final int metaLen = mPacketStart.length;
         int packetStart = getHeadStart();
         mPacketFlags[mMetaHead] = flags;
         mPacketPtsUsec[mMetaHead] = ptsUsec;
         mPacketStart[mMetaHead] = packetStart;
         mPacketLength[mMetaHead] = size;
+        if ((flags & MediaCodec.BUFFER_FLAG_SYNC_FRAME) != 0) {
+            mSyncIndex[mSyncHead] = mMetaHead;
+            mSyncHead = wrapMeta(mSyncHead + 1);
+        }
 
         // Copy the data in.  Take care if it gets split in half.
         if (packetStart + size < dataLen) {
@@ -145,7 +182,7 @@ public class CircularEncoderBuffer {
             buf.get(mDataBuffer, 0, size - firstSize);
         }
 
-        mMetaHead = (mMetaHead + 1) % metaLen;
+        mMetaHead = wrapMeta(mMetaHead + 1);
 
         if (EXTRA_DEBUG) {
             // The head packet is the next-available spot.
@@ -162,29 +199,52 @@ public class CircularEncoderBuffer {
      * When sending output to a MediaMuxer, start here.
      */
     public int getFirstIndex() {
+        if (mSyncHead == mSyncTail) {
+            Log.w(TAG, "HEY: could not find sync frame in buffer");
+            return -1;
+        }
+        return mSyncIndex[mSyncTail];
+    }
+
+    /**
+     * Returns the index of the newest sync frame with a presentation time at or before
+     * {@code ptsUsec}, or -1 if there isn't one.  Valid until the next add().
+     * <p>
+     * This is a binary search over the sync frames, which assumes presentation times
+     * increase from one sync frame to the next.
+     */
+    public int findSyncAtOrBefore(long ptsUsec) {
         final int metaLen = mPacketStart.length;
 
-        int index = mMetaTail;
-        while (index != mMetaHead) {
-            if ((mPacketFlags[index] & MediaCodec.BUFFER_FLAG_SYNC_FRAME) != 0) {
-                break;
+        // Find the first sync frame after ptsUsec; the one before it is the answer.
+        int low = 0;
+        int high = wrapMeta(mSyncHead - mSyncTail + metaLen);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mPacketPtsUsec[mSyncIndex[wrapMeta(mSyncTail + mid)]] <= ptsUsec) {
+                low = mid + 1;
+            } else {
+                high = mid;
             }
-            index = (index + 1) % metaLen;
         }
+        return low == 0 ? -1 : mSyncIndex[wrapMeta(mSyncTail + low - 1)];
+    }
 
-        if (index == mMetaHead) {
-            Log.w(TAG, "HEY: could not find sync frame in buffer");
-            index = -1;
-        }
-        return index;
+    /**
+     * Returns an iterator over the packets needed to play back from {@code startUsec}
+     * through {@code endUsec}.  See {@link RangeIterator#reset(long, long)}.
+     */
+    public RangeIterator rangeIterator(long startUsec, long endUsec) {
+        RangeIterator iterator = new RangeIterator();
+        iterator.reset(startUsec, endUsec);
+        return iterator;
     }
 
     /**
      * Returns the index of the next packet, or -1 if we've reached the end.
      */
     public int getNextIndex(int index) {
-        final int metaLen = mPacketStart.length;
-        int next = (index + 1) % metaLen;
+        int next = wrapMeta(index + 1);
         if (next == mMetaHead) {
             next = -1;
         }
@@ -192,11 +252,10 @@ public class CircularEncoderBuffer {
     }
 
     /**
-     * Returns a reference to a "direct" ByteBuffer with the data, and fills in the
-     * BufferInfo.
+     * Returns a reference to a ByteBuffer with the data, and fills in the BufferInfo.
      * <p>
      * The caller must not modify the contents of the returned ByteBuffer.  Altering
-     * the position and limit is allowed.
+     * the position and limit is allowed.  The ByteBuffer may be reused by the next call.
      */
     public ByteBuffer getChunk(int index, MediaCodec.BufferInfo info) {
         final int dataLen = mDataBuffer.length;
@@ -213,7 +272,12 @@ public class CircularEncoderBuffer {
             return mDataBufferWrapper;
         } else {
             // two chunks
-            ByteBuffer tempBuf = ByteBuffer.allocateDirect(length);
+            if (mChunkScratch == null || mChunkScratch.capacity() < length) {
+                // Leave some room, so the next slightly larger packet doesn't reallocate.
+                mChunkScratch = ByteBuffer.allocateDirect(length + length / 2);
+            }
+            ByteBuffer tempBuf = mChunkScratch;
+            tempBuf.clear();
             int firstSize = dataLen - packetStart;
             tempBuf.put(mDataBuffer, mPacketStart[index], firstSize);
             tempBuf.put(mDataBuffer, 0, length - firstSize);
@@ -226,6 +290,8 @@ public class CircularEncoderBuffer {
      * Computes the data buffer offset for the next place to store data.
      * <p>
      * Equal to the start of the previous packet's data plus the previous packet's length.
+     * There's no gap after it: one could land on the tail packet's first byte and put the
+     * head just past the tail, which canAdd() would take for a nearly empty buffer.
      */
     private int getHeadStart() {
         if (mMetaHead == mMetaTail) {
@@ -233,11 +299,10 @@ public class CircularEncoderBuffer {
             return 0;
         }
 
-        final int dataLen = mDataBuffer.length;
         final int metaLen = mPacketStart.length;
 
-        int beforeHead = (mMetaHead + metaLen - 1) % metaLen;
-        return (mPacketStart[beforeHead] + mPacketLength[beforeHead] + 1) % dataLen;
+        int beforeHead = wrapMeta(mMetaHead + metaLen - 1);
+        return wrapData(mPacketStart[beforeHead] + mPacketLength[beforeHead]);
     }
 
     /**
@@ -260,7 +325,7 @@ public class CircularEncoderBuffer {
         }
 
         // Make sure we can advance head without stepping on the tail.
-        int nextHead = (mMetaHead + 1) % metaLen;
+        int nextHead = wrapMeta(mMetaHead + 1);
         if (nextHead == mMetaTail) {
             if (VERBOSE) {
                 Log.v(TAG, "ran out of metadata (head=" + mMetaHead + " tail=" + mMetaTail +")");
@@ -272,7 +337,7 @@ public class CircularEncoderBuffer {
         // "head" will store its data.
         int headStart = getHeadStart();
         int tailStart = mPacketStart[mMetaTail];
-        int freeSpace = (tailStart + dataLen - headStart) % dataLen;
+        int freeSpace = wrapData(tailStart + dataLen - headStart);
         if (size > freeSpace) {
             if (VERBOSE) {
                 Log.v(TAG, "ran out of data (tailStart=" + tailStart + " headStart=" + headStart +
@@ -283,12 +348,39 @@ public class CircularEncoderBuffer {
 
         if (VERBOSE) {
             Log.v(TAG, "OK: size=" + size + " free=" + freeSpace + " metaFree=" +
-                    ((mMetaTail + metaLen - mMetaHead) % metaLen - 1));
+                    (wrapMeta(mMetaTail + metaLen - mMetaHead) - 1));
         }
 
         return true;
     }
 
+    /**
+     * Wraps a data buffer offset in [0, 2 * length) back into the buffer.
+     */
+    private int wrapData(int offset) {
+        if (mDataMask >= 0) {
+            return offset & mDataMask;
+        }
+        final int dataLen = mDataBuffer.length;
+        return offset < dataLen ? offset : offset - dataLen;
+    }
+
+    /**
+     * Wraps a meta-data index in [0, 2 * length) back into the buffer.
+     */
+    private int wrapMeta(int index) {
+        if (mMetaMask >= 0) {
+            return index & mMetaMask;
+        }
+        final int metaLen = mPacketStart.length;
+        return index < metaLen ? index : index - metaLen;
+    }
+
+    private static int roundUpToPowerOfTwo(int value) {
+        int highest = Integer.highestOneBit(value);
+        return highest == value ? value : highest << 1;
+    }
+
     /**
      * Removes the tail packet.
      */
@@ -296,7 +388,50 @@ public class CircularEncoderBuffer {
         if (mMetaHead == mMetaTail) {
             throw new RuntimeException("Can't removeTail() in empty buffer");
         }
-        final int metaLen = mPacketStart.length;
-        mMetaTail = (mMetaTail + 1) % metaLen;
+        if (mSyncHead != mSyncTail && mSyncIndex[mSyncTail] == mMetaTail) {
+            mSyncTail = wrapMeta(mSyncTail + 1);
+        }
+        mMetaTail = wrapMeta(mMetaTail + 1);
+    }
+
+    /**
+     * Walks the packet indices in a time range, in order, for handing to
+     * {@link #getChunk(int, MediaCodec.BufferInfo)}.  The buffer must not be added to while
+     * an iterator is in use; {@link #reset(long, long)} lets one be reused.
+     */
+    public final class RangeIterator {
+        private int mIndex;
+        private long mEndUsec;
+
+        /**
+         * Positions the iterator at the newest sync frame at or before {@code startUsec}, or
+         * at the oldest sync frame if {@code startUsec} is older than anything buffered.
+         * Iteration stops before the first packet after {@code endUsec}.
+         */
+        public void reset(long startUsec, long endUsec) {
+            mIndex = findSyncAtOrBefore(startUsec);
+            if (mIndex < 0 && mSyncHead != mSyncTail) {
+                mIndex = mSyncIndex[mSyncTail];
+            }
+            mEndUsec = endUsec;
+        }
+
+        public boolean hasNext() {
+            return mIndex >= 0 && mPacketPtsUsec[mIndex] <= mEndUsec;
+        }
+
+        /**
+         * Returns the current packet index and advances the iterator.
+         *
+         * @throws NoSuchElementException if there are no more packets.
+         */
+        public int next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int index = mIndex;
+            mIndex = getNextIndex(index);
+            return index;
+        }
     }
 }
@@ -0,0 +1,14 @@
+package com.google.android.cameraview.gles;
+
+/**
+ * Receives a frame thumbnail read back from an EGL surface, compressed as JPEG.
+ * <p>
+ * Called on a worker thread.  The array is reused for later frames, so the data must be
+ * copied out before returning.
+ */
+public interface EncodedFrameCallback {
+    /**
+     * @param timestampMs The timestamp the frame was exported with.
+     */
+    void onFrameEncoded(long timestampMs, byte[] thumbnail, int thumbnailLength);
+}
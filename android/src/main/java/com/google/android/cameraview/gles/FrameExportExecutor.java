@@ -0,0 +1,284 @@
+package com.google.android.cameraview.gles;
+
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs frame export work (rotate, compress) on a fixed set of worker threads, fed from a
+ * bounded queue.
+ * <p>
+ * The camera produces frames at a fixed rate whether or not we keep up with it.  If export
+ * falls behind, an unbounded queue just fills up with full-size Bitmaps until we run out of
+ * memory, so instead the queue has a limited depth and a {@link DropPolicy} decides what
+ * happens to a frame that doesn't fit.  Both can be changed while running, and counters
+ * are kept so they can be tuned.
+ * <p>
+ * Thread-safe.
+ */
+public class FrameExportExecutor {
+    private static final String TAG = "FrameExportExecutor";
+
+    /**
+     * What to do with a job submitted while the queue is full.
+     */
+    public enum DropPolicy {
+        /** Discard the job that has waited longest, and queue the new one. */
+        DROP_OLDEST,
+        /** Discard the new job. */
+        DROP_NEWEST,
+        /** Wait for room in the queue.  Stalls the submitting thread. */
+        BLOCK
+    }
+
+    /**
+     * A unit of export work.  If the job is dropped, {@link #onDropped()} is called instead
+     * of {@link #run()}, so it can release whatever it holds.
+     */
+    public static abstract class Job implements Runnable {
+        private long mEnqueuedNanos;
+
+        protected void onDropped() {}
+    }
+
+    // Guards the queue, the settings and the shutdown flag.  Workers wait on it for jobs, and
+    // a BLOCK submitter waits on it for room.
+    private final Object mLock = new Object();
+    private final ArrayDeque<Job> mQueue = new ArrayDeque<>();
+    private int mQueueDepth;
+    private DropPolicy mDropPolicy;
+    private boolean mShutdown;
+    private final Thread[] mWorkers;
+
+    private final AtomicLong mSubmitted = new AtomicLong();
+    private final AtomicLong mDropped = new AtomicLong();
+    private final AtomicLong mCompleted = new AtomicLong();
+    private final AtomicLong mTotalQueueNanos = new AtomicLong();
+    private final AtomicLong mMaxQueueNanos = new AtomicLong();
+
+    /**
+     * Starts the worker threads.
+     *
+     * @param threadCount Number of worker threads.
+     * @param queueDepth Number of jobs that may wait for a worker.
+     * @param dropPolicy What to do with a job when the queue is full.
+     */
+    public FrameExportExecutor(int threadCount, int queueDepth, DropPolicy dropPolicy) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("threadCount must be >= 1");
+        }
+        setQueueDepth(queueDepth);
+        setDropPolicy(dropPolicy);
+        mWorkers = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            mWorkers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    runWorker();
+                }
+            }, TAG + "-" + i);
+            mWorkers[i].setDaemon(true);
+            mWorkers[i].start();
+        }
+    }
+
+    /**
+     * Changes the number of jobs that may wait for a worker.  Jobs already queued beyond a
+     * smaller depth are left to run; the new depth applies to jobs submitted from now on.
+     */
+    public void setQueueDepth(int queueDepth) {
+        if (queueDepth < 1) {
+            throw new IllegalArgumentException("queueDepth must be >= 1");
+        }
+        synchronized (mLock) {
+            mQueueDepth = queueDepth;
+            mLock.notifyAll();
+        }
+    }
+
+    public int getQueueDepth() {
+        synchronized (mLock) {
+            return mQueueDepth;
+        }
+    }
+
+    /**
+     * Changes what happens to jobs submitted while the queue is full.
+     */
+    public void setDropPolicy(DropPolicy dropPolicy) {
+        if (dropPolicy == null) {
+            throw new IllegalArgumentException("dropPolicy must not be null");
+        }
+        synchronized (mLock) {
+            mDropPolicy = dropPolicy;
+            mLock.notifyAll();
+        }
+    }
+
+    public DropPolicy getDropPolicy() {
+        synchronized (mLock) {
+            return mDropPolicy;
+        }
+    }
+
+    /**
+     * Returns true if a job submitted now would be discarded without running.  Lets the
+     * caller skip the work of preparing it.  A frame skipped this way counts as dropped.
+     */
+    public boolean dropIfSaturated() {
+        synchronized (mLock) {
+            if (!mShutdown &&
+                    (mDropPolicy != DropPolicy.DROP_NEWEST || mQueue.size() < mQueueDepth)) {
+                return false;
+            }
+        }
+        mSubmitted.incrementAndGet();
+        mDropped.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Queues a job, applying the drop policy if the queue is full.  After {@link #shutdown()}
+     * the job is dropped straight away.
+     */
+    public void execute(Job job) {
+        mSubmitted.incrementAndGet();
+        Job dropped = null;
+        synchronized (mLock) {
+            while (!mShutdown && mQueue.size() >= mQueueDepth) {
+                if (mDropPolicy == DropPolicy.DROP_OLDEST) {
+                    dropped = mQueue.poll();
+                    break;
+                } else if (mDropPolicy == DropPolicy.DROP_NEWEST) {
+                    dropped = job;
+                    break;
+                }
+                try {
+                    mLock.wait();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    dropped = job;
+                    break;
+                }
+            }
+            if (mShutdown) {
+                dropped = job;
+            } else if (dropped != job) {
+                job.mEnqueuedNanos = System.nanoTime();
+                mQueue.add(job);
+                mLock.notifyAll();
+            }
+        }
+        // Outside the lock, since onDropped() may do real work.
+        if (dropped != null) {
+            drop(dropped);
+        }
+    }
+
+    /**
+     * Stops the worker threads.  Jobs still waiting in the queue are dropped, and so is
+     * anything submitted afterwards; jobs already running are allowed to finish.
+     */
+    public void shutdown() {
+        Job[] waiting;
+        synchronized (mLock) {
+            if (mShutdown) {
+                return;
+            }
+            mShutdown = true;
+            waiting = mQueue.toArray(new Job[0]);
+            mQueue.clear();
+            mLock.notifyAll();
+        }
+        for (Job job : waiting) {
+            drop(job);
+        }
+    }
+
+    public boolean isShutdown() {
+        synchronized (mLock) {
+            return mShutdown;
+        }
+    }
+
+    public long getSubmittedCount() {
+        return mSubmitted.get();
+    }
+
+    public long getDroppedCount() {
+        return mDropped.get();
+    }
+
+    public long getCompletedCount() {
+        return mCompleted.get();
+    }
+
+    /**
+     * Returns the mean time a completed job waited in the queue, in nanoseconds.
+     */
+    public long getAverageQueueLatencyNanos() {
+        long completed = mCompleted.get();
+        return completed == 0 ? 0 : mTotalQueueNanos.get() / completed;
+    }
+
+    /**
+     * Returns the longest time a job waited in the queue, in nanoseconds.
+     */
+    public long getMaxQueueLatencyNanos() {
+        return mMaxQueueNanos.get();
+    }
+
+    @Override
+    public String toString() {
+        return "submitted=" + getSubmittedCount() + " dropped=" + getDroppedCount() +
+                " completed=" + getCompletedCount() +
+                " avgQueueUsec=" + getAverageQueueLatencyNanos() / 1000 +
+                " maxQueueUsec=" + getMaxQueueLatencyNanos() / 1000;
+    }
+
+    private void drop(Job job) {
+        mDropped.incrementAndGet();
+        try {
+            job.onDropped();
+        } catch (RuntimeException e) {
+            Log.w(TAG, "onDropped failed", e);
+        }
+    }
+
+    private void runWorker() {
+        while (true) {
+            Job job;
+            synchronized (mLock) {
+                while (!mShutdown && mQueue.isEmpty()) {
+                    try {
+                        mLock.wait();
+                    } catch (InterruptedException ie) {
+                        // Only shutdown() stops a worker.
+                    }
+                }
+                if (mShutdown) {
+                    return;
+                }
+                job = mQueue.poll();
+                // Makes room for a BLOCK submitter.
+                mLock.notifyAll();
+            }
+
+            long waited = System.nanoTime() - job.mEnqueuedNanos;
+            mTotalQueueNanos.addAndGet(waited);
+            long max;
+            while (waited > (max = mMaxQueueNanos.get()) &&
+                    !mMaxQueueNanos.compareAndSet(max, waited)) {
+                // retry
+            }
+
+            try {
+                job.run();
+            } catch (RuntimeException e) {
+                Log.w(TAG, "frame export failed", e);
+            }
+            mCompleted.incrementAndGet();
+        }
+    }
+}
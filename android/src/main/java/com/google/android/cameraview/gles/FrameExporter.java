@@ -0,0 +1,221 @@
+package com.google.android.cameraview.gles;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES20;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Renders camera frames into an offscreen thumbnail framebuffer, reads them back and
+ * compresses them to JPEG on a {@link FrameExportExecutor}.
+ * <p>
+ * Each frame is drawn the right way up and at thumbnail size by the GPU, so the worker
+ * threads only have to compress what they're given and the CPU never sees more than a
+ * thumbnail's worth of pixels.
+ * <p>
+ * With a GLES3 context the readback goes through a ring of pixel pack buffers, so frames
+ * reach their callback {@link ReadbackRing#getFrameLag()} frames late; call
+ * {@link #flush()} to export the frames still in flight.  With GLES2 each frame is read
+ * with a plain glReadPixels().
+ * <p>
+ * All methods must be called on the thread with the EGL context current.
+ */
+public class FrameExporter {
+    private static final String TAG = GlUtil.TAG;
+
+    public static final int DEFAULT_THUMBNAIL_WIDTH = 200;
+    public static final int DEFAULT_THUMBNAIL_HEIGHT = 200;
+    private static final int READBACK_BUFFERS = 3;
+    private static final int JPEG_QUALITY = 90;
+
+    // glReadPixels() returns the bottom row first, and Bitmap.copyPixelsFromBuffer() puts
+    // the first row at the top.  Drawing vertically flipped (a 180 degree turn plus a
+    // mirror) cancels that out, so the bitmaps come out upright.
+    private static final int READBACK_ROTATION = 180;
+    private static final boolean READBACK_MIRROR = true;
+
+    private final FrameExportExecutor mExecutor;
+    private final float[] mOrientation = new float[16];
+    private final float[] mTexMatrix = new float[16];
+
+    private final FramebufferTarget mThumbnailTarget;
+
+    // Asynchronous readback state; null with a GLES2 context.  The ring's tags are the
+    // callbacks, and each slot's frame timestamp is kept alongside.
+    private final ReadbackRing<EncodedFrameCallback> mReadbackRing;
+    private final long[] mReadbackTimestamps;
+    private PixelBufferReader mThumbnailPixels;
+
+    // glReadPixels() destination for the synchronous path.
+    private ByteBuffer mSyncBuffer;
+
+    // Compression output, kept per worker thread so the backing array is reused from
+    // frame to frame instead of being copied out with toByteArray().
+    private static final ThreadLocal<ReusableByteArrayOutputStream> sThumbnailStream =
+            new ThreadLocal<ReusableByteArrayOutputStream>() {
+                @Override
+                protected ReusableByteArrayOutputStream initialValue() {
+                    return new ReusableByteArrayOutputStream();
+                }
+            };
+
+    private static class ReusableByteArrayOutputStream extends ByteArrayOutputStream {
+        byte[] getBuffer() {
+            return buf;
+        }
+    }
+
+    /**
+     * @param executor Runs the compression work.  Not shut down by {@link #release()}.
+     * @param thumbnailWidth Thumbnail width; the frame is scaled to fit, ignoring aspect.
+     * @param thumbnailHeight Thumbnail height.
+     * @param glVersion Version of the current context, from {@link EglCore#getGlVersion()}.
+     */
+    public FrameExporter(FrameExportExecutor executor, int thumbnailWidth, int thumbnailHeight,
+            int glVersion) {
+        mExecutor = executor;
+        FrameTransform.getOrientation(READBACK_ROTATION, READBACK_MIRROR, mOrientation);
+
+        mThumbnailTarget = new FramebufferTarget(thumbnailWidth, thumbnailHeight);
+        if (glVersion >= 3) {
+            mReadbackRing = new ReadbackRing<>(READBACK_BUFFERS);
+            mReadbackTimestamps = new long[READBACK_BUFFERS];
+            mThumbnailPixels = new PixelBufferReader(READBACK_BUFFERS,
+                    thumbnailWidth, thumbnailHeight);
+        } else {
+            Log.w(TAG, "async readback needs GLES3, using glReadPixels()");
+            mReadbackRing = null;
+            mReadbackTimestamps = null;
+        }
+    }
+
+    /**
+     * Returns true if frames passed to {@link #exportFrame} are waiting to be read back.
+     */
+    public boolean hasPendingReadback() {
+        return mReadbackRing != null && mReadbackRing.hasPending();
+    }
+
+    /**
+     * Draws the texture into the thumbnail framebuffer and queues it for compression.  If the
+     * export queue is full the frame may be dropped, according to the executor's
+     * {@link FrameExportExecutor.DropPolicy}.
+     * <p>
+     * Leaves the default framebuffer bound; the caller must restore its viewport.
+     *
+     * @param blit Program used to draw the texture.
+     * @param texMatrix The texture's transform, e.g. from SurfaceTexture.getTransformMatrix().
+     * @param timestampMs Passed on to the callback with the frame, so one callback can serve
+     *        every frame.
+     */
+    public void exportFrame(FullFrameRect blit, int textureId, float[] texMatrix,
+            long timestampMs, EncodedFrameCallback callback) {
+        // Reading the oldest frame now, rather than right after it was started, is the whole
+        // point: by the time every slot is in use the GPU has long since finished it.
+        if (mReadbackRing != null && mReadbackRing.isFull()) {
+            finishOldestReadback();
+        }
+        if (mExecutor.dropIfSaturated()) {
+            // Don't bother drawing and reading back a frame that would just be thrown away.
+            return;
+        }
+
+        FrameTransform.multiply(texMatrix, mOrientation, mTexMatrix);
+        try {
+            if (mReadbackRing != null) {
+                int slot = mReadbackRing.begin(callback);
+                mReadbackTimestamps[slot] = timestampMs;
+                draw(mThumbnailTarget, blit, textureId);
+                mThumbnailPixels.startRead(slot);
+            } else {
+                compress(readSync(mThumbnailTarget, blit, textureId), timestampMs, callback);
+            }
+        } finally {
+            FramebufferTarget.unbind();
+        }
+    }
+
+    /**
+     * Reads back and exports every frame still in flight.
+     */
+    public void flush() {
+        while (hasPendingReadback()) {
+            finishOldestReadback();
+        }
+    }
+
+    /**
+     * Releases GL resources.  Frames still in flight are discarded.
+     */
+    public void release() {
+        if (mReadbackRing != null) {
+            mReadbackRing.clear();
+        }
+        if (mThumbnailPixels != null) {
+            mThumbnailPixels.release();
+            mThumbnailPixels = null;
+        }
+        mThumbnailTarget.release();
+        mSyncBuffer = null;
+    }
+
+    private void draw(FramebufferTarget target, FullFrameRect blit, int textureId) {
+        target.bind();
+        blit.drawFrame(textureId, mTexMatrix);
+    }
+
+    private Bitmap readSync(FramebufferTarget target, FullFrameRect blit, int textureId) {
+        draw(target, blit, textureId);
+        int width = target.getWidth();
+        int height = target.getHeight();
+        int size = width * height * 4;
+        if (mSyncBuffer == null || mSyncBuffer.capacity() < size) {
+            mSyncBuffer = ByteBuffer.allocateDirect(size);
+            mSyncBuffer.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        mSyncBuffer.clear();
+        GLES20.glReadPixels(0, 0, width, height,
+                GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, mSyncBuffer);
+        GlUtil.checkGlError("glReadPixels");
+        mSyncBuffer.rewind();
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        bitmap.copyPixelsFromBuffer(mSyncBuffer);
+        return bitmap;
+    }
+
+    private void finishOldestReadback() {
+        int slot = mReadbackRing.getOldestSlot();
+        long timestampMs = mReadbackTimestamps[slot];
+        EncodedFrameCallback callback = mReadbackRing.finishOldest();
+        Bitmap thumbnail = Bitmap.createBitmap(mThumbnailTarget.getWidth(),
+                mThumbnailTarget.getHeight(), Bitmap.Config.ARGB_8888);
+        mThumbnailPixels.copyTo(slot, thumbnail);
+        compress(thumbnail, timestampMs, callback);
+    }
+
+    /**
+     * Hands a read-back thumbnail to the export executor for compression.
+     */
+    private void compress(final Bitmap thumbnail, final long timestampMs,
+            final EncodedFrameCallback callback) {
+        mExecutor.execute(new FrameExportExecutor.Job() {
+            @Override
+            protected void onDropped() {
+                thumbnail.recycle();
+            }
+
+            @Override
+            public void run() {
+                ReusableByteArrayOutputStream stream = sThumbnailStream.get();
+                stream.reset();
+                thumbnail.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, stream);
+                thumbnail.recycle();
+
+                callback.onFrameEncoded(timestampMs, stream.getBuffer(), stream.size());
+            }
+        });
+    }
+}
@@ -0,0 +1,74 @@
+package com.google.android.cameraview.gles;
+
+/**
+ * Builds texture matrices that rotate and mirror a frame as it is drawn, so the GPU does
+ * the reorientation instead of a Bitmap copy afterwards.
+ * <p>
+ * Matrices are 4x4 and column-major, as used by GLES and android.opengl.Matrix.  This
+ * class doesn't depend on either, so the composition can be checked off-device.
+ */
+public final class FrameTransform {
+    private FrameTransform() {}
+
+    /**
+     * Fills {@code out} with the matrix that mirrors texture coordinates horizontally about
+     * the center (if {@code mirror}) and then rotates them about the center by
+     * {@code rotationDegrees}.  Combine it with the SurfaceTexture transform using
+     * {@link #multiply}, as {@code texMatrix * orientation}.
+     * <p>
+     * Because the texture coordinates are transformed, the drawn image moves the opposite
+     * way: a 90 degree rotation here turns the picture 90 degrees clockwise.  A 180 degree
+     * rotation with a mirror is a vertical flip, which is what turns a glReadPixels() image
+     * (bottom row first) the right way up.
+     *
+     * @param rotationDegrees 0, 90, 180 or 270.
+     */
+    public static void getOrientation(int rotationDegrees, boolean mirror, float[] out) {
+        // 2x2 linear part: R * S, where S = diag(-1, 1) when mirroring.  Sticking to quarter
+        // turns keeps every entry exactly 0 or +/-1.
+        float cos, sin;
+        switch (rotationDegrees) {
+            case 0:   cos = 1;  sin = 0;  break;
+            case 90:  cos = 0;  sin = 1;  break;
+            case 180: cos = -1; sin = 0;  break;
+            case 270: cos = 0;  sin = -1; break;
+            default:
+                throw new IllegalArgumentException("rotation must be a multiple of 90: " +
+                        rotationDegrees);
+        }
+        float sx = mirror ? -1 : 1;
+        float a00 = cos * sx, a01 = -sin;
+        float a10 = sin * sx, a11 = cos;
+
+        // Translation that keeps the center fixed: c - A * c, with c = (0.5, 0.5).
+        float tx = 0.5f - 0.5f * (a00 + a01);
+        float ty = 0.5f - 0.5f * (a10 + a11);
+
+        for (int i = 0; i < 16; i++) {
+            out[i] = 0;
+        }
+        out[0] = a00;
+        out[1] = a10;
+        out[4] = a01;
+        out[5] = a11;
+        out[10] = 1;
+        out[12] = tx;
+        out[13] = ty;
+        out[15] = 1;
+    }
+
+    /**
+     * Computes {@code lhs * rhs} into {@code out}.  {@code out} may not be either input.
+     */
+    public static void multiply(float[] lhs, float[] rhs, float[] out) {
+        for (int col = 0; col < 4; col++) {
+            for (int row = 0; row < 4; row++) {
+                float sum = 0;
+                for (int k = 0; k < 4; k++) {
+                    sum += lhs[k * 4 + row] * rhs[col * 4 + k];
+                }
+                out[col * 4 + row] = sum;
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.google.android.cameraview.gles;
+
+import android.opengl.GLES20;
+
+/**
+ * An offscreen framebuffer with an RGBA texture as its color attachment.  Drawing into it
+ * and reading it back with glReadPixels() leaves the window surfaces alone, so a frame can
+ * be rendered at whatever size and orientation we want to export it at.
+ * <p>
+ * Must be used on the thread with the EGL context current.
+ */
+class FramebufferTarget {
+    private final int mWidth;
+    private final int mHeight;
+    private int mFramebuffer;
+    private int mTexture;
+
+    FramebufferTarget(int width, int height) {
+        mWidth = width;
+        mHeight = height;
+
+        int[] values = new int[1];
+        GLES20.glGenTextures(1, values, 0);
+        mTexture = values[0];
+        GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, mTexture);
+        GLES20.glTexImage2D(GLES20.GL_TEXTURE_2D, 0, GLES20.GL_RGBA, width, height, 0,
+                GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, null);
+        GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER,
+                GLES20.GL_LINEAR);
+        GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER,
+                GLES20.GL_LINEAR);
+        GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S,
+                GLES20.GL_CLAMP_TO_EDGE);
+        GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T,
+                GLES20.GL_CLAMP_TO_EDGE);
+        GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
+        GlUtil.checkGlError("glTexImage2D");
+
+        GLES20.glGenFramebuffers(1, values, 0);
+        mFramebuffer = values[0];
+        GLES20.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, mFramebuffer);
+        GLES20.glFramebufferTexture2D(GLES20.GL_FRAMEBUFFER, GLES20.GL_COLOR_ATTACHMENT0,
+                GLES20.GL_TEXTURE_2D, mTexture, 0);
+        int status = GLES20.glCheckFramebufferStatus(GLES20.GL_FRAMEBUFFER);
+        GLES20.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, 0);
+        if (status != GLES20.GL_FRAMEBUFFER_COMPLETE) {
+            release();
+            throw new RuntimeException("Framebuffer not complete, status=" + status);
+        }
+        GlUtil.checkGlError("glFramebufferTexture2D");
+    }
+
+    int getWidth() {
+        return mWidth;
+    }
+
+    int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * Directs drawing and glReadPixels() to this framebuffer, and sets the viewport to
+     * cover it.
+     */
+    void bind() {
+        GLES20.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, mFramebuffer);
+        GLES20.glViewport(0, 0, mWidth, mHeight);
+    }
+
+    /**
+     * Restores the window surface as the draw target.  The caller is responsible for
+     * restoring its viewport.
+     */
+    static void unbind() {
+        GLES20.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, 0);
+    }
+
+    void release() {
+        int[] values = new int[1];
+        if (mFramebuffer != 0) {
+            values[0] = mFramebuffer;
+            GLES20.glDeleteFramebuffers(1, values, 0);
+            mFramebuffer = 0;
+        }
+        if (mTexture != 0) {
+            values[0] = mTexture;
+            GLES20.glDeleteTextures(1, values, 0);
+            mTexture = 0;
+        }
+    }
+}
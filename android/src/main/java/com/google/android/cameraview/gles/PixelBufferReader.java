@@ -0,0 +1,76 @@
+package com.google.android.cameraview.gles;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.opengl.GLES20;
+import android.opengl.GLES30;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A set of GLES3 pixel pack buffers for reading frames back without stalling.
+ * <p>
+ * glReadPixels() into a pixel pack buffer returns as soon as the copy is queued; the data
+ * is only waited for when the buffer is mapped.  Which buffer to use when is tracked by
+ * {@link ReadbackRing}.
+ * <p>
+ * Must be used on the thread with the EGL context current, and only with a GLES3 context.
+ */
+@TargetApi(18)
+class PixelBufferReader {
+    private final int[] mBuffers;
+    private final int mWidth;
+    private final int mHeight;
+    private final int mSize;
+
+    /**
+     * Allocates {@code count} buffers, each big enough for a width x height RGBA frame.
+     */
+    PixelBufferReader(int count, int width, int height) {
+        mWidth = width;
+        mHeight = height;
+        mSize = width * height * 4;
+        mBuffers = new int[count];
+
+        GLES20.glGenBuffers(count, mBuffers, 0);
+        GlUtil.checkGlError("glGenBuffers");
+        for (int buffer : mBuffers) {
+            GLES20.glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, buffer);
+            GLES20.glBufferData(GLES30.GL_PIXEL_PACK_BUFFER, mSize, null, GLES30.GL_STREAM_READ);
+        }
+        GLES20.glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, 0);
+        GlUtil.checkGlError("glBufferData");
+    }
+
+    /**
+     * Queues a copy of the current read surface into the given buffer.  Returns without
+     * waiting for the copy.
+     */
+    void startRead(int slot) {
+        GLES20.glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, mBuffers[slot]);
+        GLES30.glReadPixels(0, 0, mWidth, mHeight, GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, 0);
+        GLES20.glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, 0);
+        GlUtil.checkGlError("glReadPixels");
+    }
+
+    /**
+     * Copies the given buffer's contents into {@code bitmap}, waiting for the read started
+     * with {@link #startRead} to finish if it hasn't already.
+     */
+    void copyTo(int slot, Bitmap bitmap) {
+        GLES20.glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, mBuffers[slot]);
+        ByteBuffer pixels = (ByteBuffer) GLES30.glMapBufferRange(GLES30.GL_PIXEL_PACK_BUFFER,
+                0, mSize, GLES30.GL_MAP_READ_BIT);
+        GlUtil.checkGlError("glMapBufferRange");
+        try {
+            bitmap.copyPixelsFromBuffer(pixels);
+        } finally {
+            GLES30.glUnmapBuffer(GLES30.GL_PIXEL_PACK_BUFFER);
+            GLES20.glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, 0);
+        }
+    }
+
+    void release() {
+        GLES20.glDeleteBuffers(mBuffers.length, mBuffers, 0);
+    }
+}
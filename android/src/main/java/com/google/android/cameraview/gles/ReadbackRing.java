@@ -0,0 +1,107 @@
+package com.google.android.cameraview.gles;
+
+/**
+ * Bookkeeping for asynchronous frame readback through a small ring of buffers.
+ * <p>
+ * A readback is started into a free slot each frame, and the oldest slot is only read
+ * once every slot is in use, so with N slots frame K is read while frame K+N-1 is being
+ * rendered.  That leaves the GPU N-1 frames to finish the copy before we wait on it.
+ * <p>
+ * This class knows nothing about GL; it only tracks which slot holds which frame, along
+ * with a tag for each frame (typically whatever should be done with it once it's read).
+ * <p>
+ * Not thread-safe.
+ */
+public final class ReadbackRing<T> {
+    private final Object[] mTags;
+
+    // Slot the next readback will be started in.
+    private int mHead;
+
+    // Number of slots with a readback in flight.
+    private int mPending;
+
+    /**
+     * @param slotCount Number of buffers, at least 2.
+     */
+    public ReadbackRing(int slotCount) {
+        if (slotCount < 2) {
+            throw new IllegalArgumentException("slotCount must be >= 2");
+        }
+        mTags = new Object[slotCount];
+    }
+
+    /**
+     * Returns the number of frames between the one being started and the one read back,
+     * once the ring is full.
+     */
+    public int getFrameLag() {
+        return mTags.length - 1;
+    }
+
+    public boolean hasPending() {
+        return mPending != 0;
+    }
+
+    /**
+     * Returns true if every slot has a readback in flight, in which case the oldest must be
+     * finished before another can be started.
+     */
+    public boolean isFull() {
+        return mPending == mTags.length;
+    }
+
+    /**
+     * Claims the next free slot for a new readback.
+     *
+     * @return The slot to read into.
+     * @throws IllegalStateException if the ring is full.
+     */
+    public int begin(T tag) {
+        if (isFull()) {
+            throw new IllegalStateException("no free readback slot");
+        }
+        int slot = mHead;
+        mTags[slot] = tag;
+        mHead = (mHead + 1) % mTags.length;
+        mPending++;
+        return slot;
+    }
+
+    /**
+     * Returns the slot holding the oldest readback in flight.
+     *
+     * @throws IllegalStateException if nothing is pending.
+     */
+    public int getOldestSlot() {
+        if (mPending == 0) {
+            throw new IllegalStateException("no readback pending");
+        }
+        return (mHead - mPending + mTags.length) % mTags.length;
+    }
+
+    /**
+     * Releases the oldest slot, after its data has been read.
+     *
+     * @return The tag it was started with.
+     */
+    @SuppressWarnings("unchecked")
+    public T finishOldest() {
+        int slot = getOldestSlot();
+        T tag = (T) mTags[slot];
+        mTags[slot] = null;
+        mPending--;
+        return tag;
+    }
+
+    /**
+     * Forgets every readback in flight.
+     */
+    public void clear() {
+        for (int i = 0; i < mTags.length; i++) {
+            mTags[i] = null;
+        }
+        mHead = 0;
+        mPending = 0;
+    }
+}
@@ -0,0 +1,294 @@
+package com.google.android.cameraview.gles;
+
+import android.util.Base64;
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Holds thumbnails of recently recorded frames in a circular buffer.
+ * <p>
+ * Like {@link CircularEncoderBuffer}, this is a pair of circular buffers, one for the
+ * thumbnail data and one for the meta-data (timestamp and offsets).  The thumbnail data
+ * lives in a single "direct" ByteBuffer, so it stays off the Java heap, and the meta-data
+ * is kept in primitive arrays.  Nothing is allocated when a frame is added in the steady
+ * state.
+ * <p>
+ * Each frame is stored as its compressed thumbnail.  Conversion to base64 only happens
+ * when a frame is read back out, which for most frames is never.
+ * <p>
+ * Unlike the encoder buffer, a frame is never split across the end of the data buffer;
+ * if it doesn't fit we skip the remaining bytes and start again at zero.  That way every
+ * frame can be read with a single copy.
+ * <p>
+ * Timestamps are kept in order, so purging and selecting a time range are binary searches
+ * over the timestamp array.  A selected range is returned as a {@link Range} view over the
+ * buffer rather than as a copy.
+ * <p>
+ * Not thread-safe.
+ */
+public class RecordedFrameBuffer {
+    private static final String TAG = "RecordedFrameBuffer";
+    private static final boolean VERBOSE = false;
+
+    // Compressed thumbnail data.
+    private final ByteBuffer mData;
+
+    // Meta-data, one entry per frame.
+    private final long[] mFrameTimeMs;
+    private final int[] mFrameStart;
+    private final int[] mThumbnailLength;
+
+    // Frames are added at head and removed from tail.  Head points to an empty node, so if
+    // head==tail the list is empty.
+    private int mMetaHead;
+    private int mMetaTail;
+
+    // Used to read a frame out of the direct buffer.  Grows to fit the largest frame read.
+    private byte[] mScratch = new byte[0];
+
+    /**
+     * Allocates the buffers.
+     *
+     * @param dataBufferSize Number of bytes available for compressed thumbnails.
+     * @param maxFrames Maximum number of frames held at once.
+     */
+    public RecordedFrameBuffer(int dataBufferSize, int maxFrames) {
+        mData = ByteBuffer.allocateDirect(dataBufferSize);
+
+        // One extra node, since head always points to an empty one.
+        int metaBufferCount = maxFrames + 1;
+        mFrameTimeMs = new long[metaBufferCount];
+        mFrameStart = new int[metaBufferCount];
+        mThumbnailLength = new int[metaBufferCount];
+
+        if (VERBOSE) {
+            Log.d(TAG, "RFB: dataBufferSize=" + dataBufferSize + " maxFrames=" + maxFrames);
+        }
+    }
+
+    /**
+     * Adds a frame's thumbnail to the buffer, dropping the oldest frames if there isn't room.
+     * <p>
+     * The data is copied, so the caller may reuse the array as soon as this returns.
+     *
+     * @param timeMs Frame timestamp, in milliseconds.  Must not be older than the newest
+     *     frame already in the buffer.
+     * @return false if the frame was rejected.
+     */
+    public boolean add(long timeMs, byte[] thumbnail, int thumbnailLength) {
+        if (thumbnailLength >= mData.capacity()) {
+            Log.w(TAG, "Enormous frame: " + thumbnailLength + " vs. buffer " + mData.capacity());
+            return false;
+        }
+        if (!isEmpty() && timeMs < getLastTimeMs()) {
+            // Frames are encoded on a pool of threads, so they occasionally finish out
+            // of order.  We rely on the timestamps being sorted, so just drop it.
+            if (VERBOSE) Log.v(TAG, "dropping out-of-order frame at " + timeMs);
+            return false;
+        }
+
+        int start;
+        while ((start = findSpace(thumbnailLength)) < 0) {
+            removeTail();
+        }
+
+        mFrameTimeMs[mMetaHead] = timeMs;
+        mFrameStart[mMetaHead] = start;
+        mThumbnailLength[mMetaHead] = thumbnailLength;
+
+        mData.position(start);
+        mData.put(thumbnail, 0, thumbnailLength);
+
+        mMetaHead = (mMetaHead + 1) % mFrameStart.length;
+        return true;
+    }
+
+    /**
+     * Drops every frame with a timestamp before {@code minTimeMs}.
+     */
+    public void purgeOlderThan(long minTimeMs) {
+        mMetaTail = toIndex(countOlderThan(minTimeMs));
+    }
+
+    /**
+     * Creates a range for use with {@link #rangeByTime}.  Ranges can be reused.
+     */
+    public Range newRange() {
+        return new Range();
+    }
+
+    /**
+     * Sets {@code range} to the frames with timestamps between {@code startMs} and
+     * {@code endMs}, inclusive.  The range is valid until the next add() or purge.
+     *
+     * @return The range that was passed in.
+     */
+    public Range rangeByTime(long startMs, long endMs, Range range) {
+        int first = countOlderThan(startMs);
+        int end = endMs == Long.MAX_VALUE ? size() : countOlderThan(endMs + 1);
+        range.mFirst = toIndex(first);
+        range.mCount = Math.max(end - first, 0);
+        return range;
+    }
+
+    /**
+     * Sets {@code range} to the frames with timestamps before {@code timeMs}, which need not
+     * be a whole number of milliseconds.  The range is valid until the next add() or purge.
+     *
+     * @return The range that was passed in.
+     */
+    public Range rangeBefore(double timeMs, Range range) {
+        // For whole milliseconds t, t < timeMs exactly when t <= ceil(timeMs) - 1.
+        return rangeByTime(Long.MIN_VALUE, (long) Math.ceil(timeMs) - 1, range);
+    }
+
+    /**
+     * Drops every frame.
+     */
+    public void clear() {
+        mMetaHead = mMetaTail = 0;
+    }
+
+    public boolean isEmpty() {
+        return mMetaHead == mMetaTail;
+    }
+
+    /**
+     * Returns the number of frames held.
+     */
+    public int size() {
+        final int metaLen = mFrameStart.length;
+        return (mMetaHead + metaLen - mMetaTail) % metaLen;
+    }
+
+    /**
+     * Returns the index of the newest frame, or -1 if the buffer is empty.
+     */
+    public int getLastIndex() {
+        if (isEmpty()) {
+            return -1;
+        }
+        final int metaLen = mFrameStart.length;
+        return (mMetaHead + metaLen - 1) % metaLen;
+    }
+
+    public long getTimeMs(int index) {
+        return mFrameTimeMs[index];
+    }
+
+    public long getLastTimeMs() {
+        return mFrameTimeMs[getLastIndex()];
+    }
+
+    /**
+     * Returns the frame's thumbnail as a base64-encoded JPEG.
+     */
+    public String encodeThumbnail(int index) {
+        int length = mThumbnailLength[index];
+        readData(mFrameStart[index], length);
+        return Base64.encodeToString(mScratch, 0, length, Base64.NO_WRAP);
+    }
+
+    /**
+     * Returns the number of frames with a timestamp before {@code timeMs}.
+     */
+    private int countOlderThan(long timeMs) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mFrameTimeMs[toIndex(mid)] < timeMs) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Converts a position counted from the oldest frame into a meta-data index.
+     */
+    private int toIndex(int position) {
+        return (mMetaTail + position) % mFrameStart.length;
+    }
+
+    private void readData(int start, int length) {
+        if (mScratch.length < length) {
+            mScratch = new byte[length];
+        }
+        mData.position(start);
+        mData.get(mScratch, 0, length);
+    }
+
+    /**
+     * Finds room for "size" bytes of thumbnail data without overwriting the tail frame.
+     * <p>
+     * We always leave at least one byte between head and tail, so that a non-empty buffer
+     * never has its head data offset equal to the tail data offset.
+     *
+     * @return The offset to store the frame at, or -1 if the tail must be removed first.
+     */
+    private int findSpace(int size) {
+        if (isEmpty()) {
+            return 0;
+        }
+        final int metaLen = mFrameStart.length;
+        if ((mMetaHead + 1) % metaLen == mMetaTail) {
+            if (VERBOSE) Log.v(TAG, "ran out of metadata");
+            return -1;
+        }
+
+        int beforeHead = (mMetaHead + metaLen - 1) % metaLen;
+        int headStart = mFrameStart[beforeHead] + mThumbnailLength[beforeHead];
+        int tailStart = mFrameStart[mMetaTail];
+        if (headStart > tailStart) {
+            // Data hasn't wrapped: free space at the end, and in front of the tail.
+            if (headStart + size <= mData.capacity()) {
+                return headStart;
+            }
+            return size < tailStart ? 0 : -1;
+        } else {
+            return headStart + size < tailStart ? headStart : -1;
+        }
+    }
+
+    /**
+     * Removes the tail frame.
+     */
+    private void removeTail() {
+        if (isEmpty()) {
+            throw new RuntimeException("Can't removeTail() in empty buffer");
+        }
+        mMetaTail = (mMetaTail + 1) % mFrameStart.length;
+    }
+
+    /**
+     * A run of consecutive frames, selected with {@link #rangeByTime}.  Reusable; holds no
+     * frame data of its own.
+     */
+    public final class Range {
+        private int mFirst;
+        private int mCount;
+
+        public int size() {
+            return mCount;
+        }
+
+        public boolean isEmpty() {
+            return mCount == 0;
+        }
+
+        /**
+         * Returns the buffer index of the n-th frame in the range, for use with
+         * {@link #getTimeMs} and {@link #encodeThumbnail}.
+         */
+        public int getIndex(int n) {
+            if (n < 0 || n >= mCount) {
+                throw new ArrayIndexOutOfBoundsException(n);
+            }
+            return (mFirst + n) % mFrameStart.length;
+        }
+    }
+}
@@ -2,7 +2,6 @@ package com.lwansbrough.RCTCamera;
 
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
-import android.graphics.Matrix;
 import android.support.media.ExifInterface;
 import android.util.Base64;
 import android.util.Log;
@@ -17,6 +16,10 @@ import com.drew.metadata.exif.ExifIFD0Directory;
 import com.drew.metadata.exif.ExifSubIFDDirectory;
 import com.facebook.react.bridge.ReadableMap;
 
+import org.reactnative.camera.utils.BitmapPool;
+import org.reactnative.camera.utils.BitmapUtils;
+import org.reactnative.camera.utils.ImageTransform;
+
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -29,41 +32,28 @@ public class MutableImage {
 
     private final byte[] originalImageData;
     private Bitmap currentRepresentation;
+    // Edits not yet applied to currentRepresentation; they are rendered together when the
+    // image is written out.
+    private ImageTransform pendingTransform;
     private Metadata originalImageMetaData;
     private boolean hasBeenReoriented = false;
 
     public MutableImage(byte[] originalImageData) {
         this.originalImageData = originalImageData;
         this.currentRepresentation = toBitmap(originalImageData);
+        this.pendingTransform = new ImageTransform(currentRepresentation.getWidth(), currentRepresentation.getHeight());
     }
 
     public int getWidth() {
-        return this.currentRepresentation.getWidth();
+        return this.pendingTransform.getWidth();
     }
 
     public int getHeight() {
-        return this.currentRepresentation.getHeight();
+        return this.pendingTransform.getHeight();
     }
 
     public void mirrorImage() throws ImageMutationFailedException {
-        Matrix m = new Matrix();
-
-        m.preScale(-1, 1);
-
-        Bitmap bitmap = Bitmap.createBitmap(
-                currentRepresentation,
-                0,
-                0,
-                getWidth(),
-                getHeight(),
-                m,
-                false
-        );
-
-        if (bitmap == null)
-            throw new ImageMutationFailedException("failed to mirror");
-
-        this.currentRepresentation = bitmap;
+        this.pendingTransform.mirror();
     }
 
     public void fixOrientation() throws ImageMutationFailedException {
@@ -96,8 +86,7 @@ public class MutableImage {
             targetPictureHeight = pictureHeight;
             targetPictureWidth = (int) (pictureHeight * previewRatio);
         }
-        this.currentRepresentation = Bitmap.createBitmap(
-                this.currentRepresentation,
+        this.pendingTransform.crop(
                 (pictureWidth - targetPictureWidth) / 2,
                 (pictureHeight - targetPictureHeight) / 2,
                 targetPictureWidth,
@@ -106,73 +95,68 @@ public class MutableImage {
 
     //see http://www.impulseadventure.com/photo/exif-orientation.html
     private void rotate(int exifOrientation) throws ImageMutationFailedException {
-        final Matrix bitmapMatrix = new Matrix();
         switch (exifOrientation) {
             case 1:
                 return;//no rotation required
             case 2:
-                bitmapMatrix.postScale(-1, 1);
+                pendingTransform.mirror();
                 break;
             case 3:
-                bitmapMatrix.postRotate(180);
+                pendingTransform.rotate(180);
                 break;
             case 4:
-                bitmapMatrix.postRotate(180);
-                bitmapMatrix.postScale(-1, 1);
+                pendingTransform.rotate(180).mirror();
                 break;
             case 5:
-                bitmapMatrix.postRotate(90);
-                bitmapMatrix.postScale(-1, 1);
+                pendingTransform.rotate(90).mirror();
                 break;
             case 6:
-                bitmapMatrix.postRotate(90);
+                pendingTransform.rotate(90);
                 break;
             case 7:
-                bitmapMatrix.postRotate(270);
-                bitmapMatrix.postScale(-1, 1);
+                pendingTransform.rotate(270).mirror();
                 break;
             case 8:
-                bitmapMatrix.postRotate(270);
+                pendingTransform.rotate(270);
                 break;
             default:
                 break;
         }
 
-        Bitmap transformedBitmap = Bitmap.createBitmap(
-                currentRepresentation,
-                0,
-                0,
-                getWidth(),
-                getHeight(),
-                bitmapMatrix,
-                false
-        );
+        this.hasBeenReoriented = true;
+    }
 
-        if (transformedBitmap == null)
-            throw new ImageMutationFailedException("failed to rotate");
+    // Applies the pending edits in a single pass.
+    private Bitmap render() {
+        if (!pendingTransform.isIdentity()) {
+            Bitmap previous = currentRepresentation;
+            currentRepresentation = BitmapUtils.transform(previous, pendingTransform, BitmapPool.getInstance());
+            BitmapPool.getInstance().put(previous);
+            pendingTransform = new ImageTransform(currentRepresentation.getWidth(), currentRepresentation.getHeight());
+        }
+        return currentRepresentation;
+    }
 
-        this.currentRepresentation = transformedBitmap;
-        this.hasBeenReoriented = true;
+    /**
+     * Hands the image's pixels back to the bitmap pool for the next capture; the image must
+     * not be used afterwards.
+     */
+    public void release() {
+        BitmapPool.getInstance().put(currentRepresentation);
+        currentRepresentation = null;
     }
 
     private static Bitmap toBitmap(byte[] data) {
-        try {
-            ByteArrayInputStream inputStream = new ByteArrayInputStream(data);
-            Bitmap photo = BitmapFactory.decodeStream(inputStream);
-            inputStream.close();
-            return photo;
-        } catch (IOException e) {
-            throw new IllegalStateException("Will not happen", e);
-        }
+        return BitmapPool.getInstance().decodeByteArray(data, new BitmapFactory.Options());
     }
 
     public String toBase64(int jpegQualityPercent) {
-        return Base64.encodeToString(toJpeg(currentRepresentation, jpegQualityPercent), Base64.NO_WRAP);
+        return Base64.encodeToString(toJpeg(render(), jpegQualityPercent), Base64.NO_WRAP);
     }
 
     public void writeDataToFile(File file, ReadableMap options, int jpegQualityPercent) throws IOException {
         FileOutputStream fos = new FileOutputStream(file);
-        fos.write(toJpeg(currentRepresentation, jpegQualityPercent));
+        fos.write(toJpeg(render(), jpegQualityPercent));
         fos.close();
 
         try {
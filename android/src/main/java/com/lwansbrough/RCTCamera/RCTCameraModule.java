@@ -552,7 +552,12 @@ public class RCTCameraModule extends ReactContextBaseJavaModule
                 AsyncTask.execute(new Runnable() {
                     @Override
                     public void run() {
-                        processImage(new MutableImage(data), options, promise);
+                        MutableImage mutableImage = new MutableImage(data);
+                        try {
+                            processImage(mutableImage, options, promise);
+                        } finally {
+                            mutableImage.release();
+                        }
                     }
                 });
 
@@ -0,0 +1,148 @@
+package org.reactnative.barcodescanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.Result;
+import com.google.zxing.multi.GenericMultipleBarcodeReader;
+import com.google.zxing.multi.qrcode.QRCodeMultiReader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Everything a thread needs to decode frame after frame without allocating per frame: its
+ * own reader, binarizer buffers, and luminance matrix and row buffers that are kept as long
+ * as the frame size stays the same.
+ * <p>
+ * Not thread-safe; keep one per scanning thread, e.g. with {@link #get()}.
+ */
+public class BarcodeDecodeContext {
+  private static final ThreadLocal<BarcodeDecodeContext> sContexts = new ThreadLocal<BarcodeDecodeContext>() {
+    @Override
+    protected BarcodeDecodeContext initialValue() {
+      return new BarcodeDecodeContext();
+    }
+  };
+
+  /**
+   * Which matrix buffer to use; a source and a rotated view of it need different ones.
+   */
+  public static final int MATRIX_FRAME = 0;
+  public static final int MATRIX_ROTATED = 1;
+
+  private final MultiFormatReader mReader = new MultiFormatReader();
+  private final GenericMultipleBarcodeReader mMultipleReader = new GenericMultipleBarcodeReader(mReader);
+  private final QRCodeMultiReader mQrCodeMultiReader = new QRCodeMultiReader();
+  private Map<DecodeHintType, ?> mHints;
+  private final ReusableHybridBinarizer.Buffers mBinarizerBuffers = new ReusableHybridBinarizer.Buffers();
+  private final byte[][] mMatrixBuffers = new byte[2][];
+  private final byte[][] mBandRows = RotatedLuminanceSource.newBandRows();
+
+  /**
+   * Returns the calling thread's context.
+   */
+  public static BarcodeDecodeContext get() {
+    return sContexts.get();
+  }
+
+  /**
+   * Returns a buffer of at least {@code size} bytes, kept for the next call.
+   *
+   * @param which {@link #MATRIX_FRAME} or {@link #MATRIX_ROTATED}.
+   */
+  public byte[] getMatrixBuffer(int which, int size) {
+    byte[] buffer = mMatrixBuffers[which];
+    if (buffer == null || buffer.length < size) {
+      buffer = new byte[size];
+      mMatrixBuffers[which] = buffer;
+    }
+    return buffer;
+  }
+
+  /**
+   * Returns the row buffers for a {@link RotatedLuminanceSource}, kept for the next call.
+   */
+  public byte[][] getBandRows() {
+    return mBandRows;
+  }
+
+  /**
+   * Decodes a barcode from {@code source}.
+   *
+   * @param hints Passed to the reader when they aren't the ones it already has, so callers
+   *     should keep passing the same map until the hints change.
+   */
+  public Result decode(LuminanceSource source, Map<DecodeHintType, ?> hints) throws NotFoundException {
+    if (hints != mHints) {
+      mReader.setHints(hints);
+      mHints = hints;
+    }
+    try {
+      return mReader.decodeWithState(new BinaryBitmap(new ReusableHybridBinarizer(source, mBinarizerBuffers)));
+    } finally {
+      mReader.reset();
+    }
+  }
+
+  /**
+   * Decodes every barcode in {@code source}.  QR codes are looked for all at once, other
+   * formats by decoding one and then searching the areas around it.  A code found by both
+   * is returned once.
+   * <p>
+   * This path allocates more than {@link #decode}, since the searches work on crops of the
+   * image.
+   *
+   * @throws NotFoundException if there are none.
+   */
+  public Result[] decodeMultiple(LuminanceSource source, Map<DecodeHintType, ?> hints) throws NotFoundException {
+    if (hints != mHints) {
+      mReader.setHints(hints);
+      mHints = hints;
+    }
+    BinaryBitmap bitmap = new BinaryBitmap(new ReusableHybridBinarizer(source, mBinarizerBuffers));
+    List<Result> results = new ArrayList<>();
+    Set<String> seen = new HashSet<>();
+    try {
+      if (allowsQrCode(hints)) {
+        try {
+          addUnique(mQrCodeMultiReader.decodeMultiple(bitmap, hints), results, seen);
+        } catch (NotFoundException e) {
+          // Maybe other formats
+        }
+      }
+      try {
+        addUnique(mMultipleReader.decodeMultiple(bitmap, hints), results, seen);
+      } catch (NotFoundException e) {
+        // Maybe only QR codes
+      }
+    } finally {
+      mReader.reset();
+    }
+    if (results.isEmpty()) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return results.toArray(new Result[results.size()]);
+  }
+
+  private static boolean allowsQrCode(Map<DecodeHintType, ?> hints) {
+    Object formats = hints == null ? null : hints.get(DecodeHintType.POSSIBLE_FORMATS);
+    return !(formats instanceof Collection) || ((Collection<?>) formats).isEmpty() ||
+        ((Collection<?>) formats).contains(BarcodeFormat.QR_CODE);
+  }
+
+  private static void addUnique(Result[] found, List<Result> results, Set<String> seen) {
+    for (Result result : found) {
+      if (seen.add(result.getBarcodeFormat() + "\n" + result.getText())) {
+        results.add(result);
+      }
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package org.reactnative.barcodescanner;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers which barcodes have been seen recently, so a code that stays in view is
+ * reported once instead of on every frame.
+ * <p>
+ * A code is reported when it hasn't been seen for the length of the window.  By default
+ * every sighting restarts its window, so a code is reported again only after it has been
+ * out of view that long; alternatively only reports restart it, which reports a code that
+ * stays in view at most once per window.  Codes are told apart by format and text.
+ * Thread-safe.
+ */
+public class BarcodeDedupCache {
+  // Bounds the memory held when many different codes go by within one window.
+  private static final int MAX_ENTRIES = 256;
+
+  // Last sighting (or report) per code, least recently seen first.
+  private final LinkedHashMap<String, Long> mLastSeen = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+  private final boolean mRestartOnSighting;
+  private long mWindowMs;
+
+  /**
+   * @param windowMs How long a code must be out of view before it's reported again; 0
+   *     reports every sighting.
+   */
+  public BarcodeDedupCache(long windowMs) {
+    this(windowMs, true);
+  }
+
+  /**
+   * @param restartOnSighting Whether every sighting restarts a code's window, or only the
+   *     ones that are reported, making the window a minimum interval between reports.
+   */
+  public BarcodeDedupCache(long windowMs, boolean restartOnSighting) {
+    mWindowMs = windowMs;
+    mRestartOnSighting = restartOnSighting;
+  }
+
+  public synchronized void setWindow(long windowMs) {
+    mWindowMs = windowMs;
+  }
+
+  public synchronized long getWindow() {
+    return mWindowMs;
+  }
+
+  /**
+   * Records a sighting, and returns whether it should be reported.
+   *
+   * @param nowMs A monotonic clock, e.g. SystemClock.elapsedRealtime().
+   */
+  public synchronized boolean shouldReport(String format, String text, long nowMs) {
+    expire(nowMs);
+    String key = format + '\n' + text;
+    Long lastSeen = mLastSeen.get(key);
+    boolean report = lastSeen == null || nowMs - lastSeen >= mWindowMs;
+    if (report || mRestartOnSighting) {
+      mLastSeen.put(key, nowMs);
+    }
+    return report;
+  }
+
+  public synchronized void clear() {
+    mLastSeen.clear();
+  }
+
+  public synchronized int size() {
+    return mLastSeen.size();
+  }
+
+  // Entries are roughly oldest first; one that is out of order just stays until the next
+  // pass, or until the size limit drops it.
+  private void expire(long nowMs) {
+    Iterator<Long> lastSeen = mLastSeen.values().iterator();
+    while (lastSeen.hasNext() && nowMs - lastSeen.next() >= mWindowMs) {
+      lastSeen.remove();
+    }
+  }
+}
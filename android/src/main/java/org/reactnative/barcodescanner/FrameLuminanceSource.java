@@ -0,0 +1,109 @@
+package org.reactnative.barcodescanner;
+
+import com.google.zxing.LuminanceSource;
+
+/**
+ * A rectangle of the Y plane of a YUV frame, at full or half resolution.
+ * <p>
+ * At half resolution each pixel is the average of a 2x2 block: binarizing a quarter of the
+ * pixels is a quarter of the work, and a large preview has resolution to spare for all but
+ * the densest codes.  The matrix can be built into a caller-supplied buffer, so scanning
+ * frame after frame doesn't allocate one each time.
+ */
+public class FrameLuminanceSource extends LuminanceSource {
+  private final byte[] mYuvData;
+  private final int mDataWidth;
+  private final int mDataHeight;
+  private final int mLeft;
+  private final int mTop;
+  private final int mScale;
+  private byte[] mMatrix;
+
+  /**
+   * @param left Left edge of the rectangle in the full-resolution frame.
+   * @param width Width of the rectangle in the full-resolution frame; at half resolution an
+   *     odd last column is dropped.
+   * @param scale 1 for full resolution, 2 for half.
+   * @param matrixBuffer Receives the matrix if it has room for it; may be null.  The caller
+   *     must not touch it until the decode is done.
+   */
+  public FrameLuminanceSource(byte[] yuvData, int dataWidth, int dataHeight,
+                              int left, int top, int width, int height,
+                              int scale, byte[] matrixBuffer) {
+    super(width / scale, height / scale);
+    if (scale != 1 && scale != 2) {
+      throw new IllegalArgumentException("Unsupported scale: " + scale);
+    }
+    if (left + width > dataWidth || top + height > dataHeight) {
+      throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+    }
+    mYuvData = yuvData;
+    mDataWidth = dataWidth;
+    mDataHeight = dataHeight;
+    mLeft = left;
+    mTop = top;
+    mScale = scale;
+    mMatrix = matrixBuffer;
+  }
+
+  @Override
+  public byte[] getRow(int y, byte[] row) {
+    if (y < 0 || y >= getHeight()) {
+      throw new IllegalArgumentException("Requested row is outside the image: " + y);
+    }
+    int width = getWidth();
+    if (row == null || row.length < width) {
+      row = new byte[width];
+    }
+    copyRow(y, row, 0);
+    return row;
+  }
+
+  /**
+   * Returns the luminance matrix.  The array may be longer than width * height.
+   */
+  @Override
+  public byte[] getMatrix() {
+    int width = getWidth();
+    int height = getHeight();
+    if (mScale == 1 && width == mDataWidth && height == mDataHeight) {
+      // The Y plane already is the matrix.
+      return mYuvData;
+    }
+    if (mMatrix == null || mMatrix.length < width * height) {
+      mMatrix = new byte[width * height];
+    }
+    for (int y = 0; y < height; y++) {
+      copyRow(y, mMatrix, y * width);
+    }
+    return mMatrix;
+  }
+
+  @Override
+  public boolean isCropSupported() {
+    return true;
+  }
+
+  @Override
+  public LuminanceSource crop(int left, int top, int width, int height) {
+    return new FrameLuminanceSource(mYuvData, mDataWidth, mDataHeight,
+        mLeft + left * mScale, mTop + top * mScale, width * mScale, height * mScale, mScale, null);
+  }
+
+  private void copyRow(int y, byte[] out, int offset) {
+    int width = getWidth();
+    if (mScale == 1) {
+      System.arraycopy(mYuvData, (mTop + y) * mDataWidth + mLeft, out, offset, width);
+      return;
+    }
+    int top = (mTop + y * 2) * mDataWidth + mLeft;
+    int bottom = top + mDataWidth;
+    for (int x = 0; x < width; x++) {
+      int sum = (mYuvData[top] & 0xff) + (mYuvData[top + 1] & 0xff) +
+          (mYuvData[bottom] & 0xff) + (mYuvData[bottom + 1] & 0xff);
+      out[offset + x] = (byte) ((sum + 2) >> 2);
+      top += 2;
+      bottom += 2;
+    }
+  }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2009 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.reactnative.barcodescanner;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.common.HybridBinarizer;
+
+/**
+ * ZXing's {@link HybridBinarizer}, producing the same bits, but working in {@link Buffers}
+ * that are kept from one frame to the next instead of allocating a bit matrix, block
+ * thresholds and row buffers for every frame.
+ * <p>
+ * The matrix returned by {@link #getBlackMatrix()} belongs to the buffers and is
+ * overwritten by the next binarizer using them, so a set of buffers must only be used by
+ * one decode at a time.
+ * <p>
+ * Derived from {@code HybridBinarizer} and {@code GlobalHistogramBinarizer} in ZXing 3.3.0,
+ * the version this library depends on; keep the two in step when upgrading ZXing.
+ */
+public final class ReusableHybridBinarizer extends Binarizer {
+  // Local thresholds are computed per block of 8x8 pixels, each from the average of the 5x5
+  // blocks around it.
+  private static final int BLOCK_SIZE_POWER = 3;
+  private static final int BLOCK_SIZE = 1 << BLOCK_SIZE_POWER;
+  private static final int BLOCK_SIZE_MASK = BLOCK_SIZE - 1;
+  private static final int MINIMUM_DIMENSION = BLOCK_SIZE * 5;
+  private static final int MIN_DYNAMIC_RANGE = 24;
+
+  // Row thresholds come from a histogram of the row, in 32 buckets.
+  private static final int LUMINANCE_BITS = 5;
+  private static final int LUMINANCE_SHIFT = 8 - LUMINANCE_BITS;
+  private static final int LUMINANCE_BUCKETS = 1 << LUMINANCE_BITS;
+
+  /**
+   * Working memory for one decode at a time.
+   */
+  public static final class Buffers {
+    private BitMatrix mMatrix;
+    private int[][] mBlackPoints;
+    private byte[] mRow = new byte[0];
+    private final int[] mBuckets = new int[LUMINANCE_BUCKETS];
+
+    BitMatrix getMatrix(int width, int height) {
+      if (mMatrix == null || mMatrix.getWidth() != width || mMatrix.getHeight() != height) {
+        mMatrix = new BitMatrix(width, height);
+      } else {
+        mMatrix.clear();
+      }
+      return mMatrix;
+    }
+
+    int[][] getBlackPoints(int subWidth, int subHeight) {
+      if (mBlackPoints == null || mBlackPoints.length != subHeight ||
+          mBlackPoints[0].length != subWidth) {
+        mBlackPoints = new int[subHeight][subWidth];
+      }
+      return mBlackPoints;
+    }
+  }
+
+  private final Buffers mBuffers;
+  private BitMatrix mBlackMatrix;
+
+  public ReusableHybridBinarizer(LuminanceSource source, Buffers buffers) {
+    super(source);
+    mBuffers = buffers;
+  }
+
+  @Override
+  public BitArray getBlackRow(int y, BitArray row) throws NotFoundException {
+    LuminanceSource source = getLuminanceSource();
+    int width = source.getWidth();
+    if (row == null || row.getSize() < width) {
+      row = new BitArray(width);
+    } else {
+      row.clear();
+    }
+
+    if (mBuffers.mRow.length < width) {
+      mBuffers.mRow = new byte[width];
+    }
+    byte[] luminances = source.getRow(y, mBuffers.mRow);
+    int[] buckets = mBuffers.mBuckets;
+    for (int i = 0; i < LUMINANCE_BUCKETS; i++) {
+      buckets[i] = 0;
+    }
+    for (int x = 0; x < width; x++) {
+      buckets[(luminances[x] & 0xff) >> LUMINANCE_SHIFT]++;
+    }
+    int blackPoint = estimateBlackPoint(buckets);
+
+    if (width < 3) {
+      for (int x = 0; x < width; x++) {
+        if ((luminances[x] & 0xff) < blackPoint) {
+          row.set(x);
+        }
+      }
+    } else {
+      int left = luminances[0] & 0xff;
+      int center = luminances[1] & 0xff;
+      for (int x = 1; x < width - 1; x++) {
+        int right = luminances[x + 1] & 0xff;
+        // A -1 4 -1 box filter with a weight of 2.
+        if (((center * 4) - left - right) / 2 < blackPoint) {
+          row.set(x);
+        }
+        left = center;
+        center = right;
+      }
+    }
+    return row;
+  }
+
+  @Override
+  public BitMatrix getBlackMatrix() throws NotFoundException {
+    if (mBlackMatrix != null) {
+      return mBlackMatrix;
+    }
+    LuminanceSource source = getLuminanceSource();
+    int width = source.getWidth();
+    int height = source.getHeight();
+    if (width < MINIMUM_DIMENSION || height < MINIMUM_DIMENSION) {
+      // Too small for local thresholds; rare enough not to be worth a buffer.
+      mBlackMatrix = new GlobalHistogramBinarizer(source).getBlackMatrix();
+      return mBlackMatrix;
+    }
+
+    byte[] luminances = source.getMatrix();
+    int subWidth = width >> BLOCK_SIZE_POWER;
+    if ((width & BLOCK_SIZE_MASK) != 0) {
+      subWidth++;
+    }
+    int subHeight = height >> BLOCK_SIZE_POWER;
+    if ((height & BLOCK_SIZE_MASK) != 0) {
+      subHeight++;
+    }
+    int[][] blackPoints = mBuffers.getBlackPoints(subWidth, subHeight);
+    calculateBlackPoints(luminances, subWidth, subHeight, width, height, blackPoints);
+    BitMatrix matrix = mBuffers.getMatrix(width, height);
+    calculateThresholdForBlock(luminances, subWidth, subHeight, width, height, blackPoints, matrix);
+    mBlackMatrix = matrix;
+    return mBlackMatrix;
+  }
+
+  /**
+   * Returns a plain {@link HybridBinarizer}: a binarizer made for a rotated or cropped copy
+   * of the image would otherwise overwrite this one's matrix.
+   */
+  @Override
+  public Binarizer createBinarizer(LuminanceSource source) {
+    return new HybridBinarizer(source);
+  }
+
+  private static int estimateBlackPoint(int[] buckets) throws NotFoundException {
+    // Find the tallest peak in the histogram.
+    int numBuckets = buckets.length;
+    int maxBucketCount = 0;
+    int firstPeak = 0;
+    int firstPeakSize = 0;
+    for (int x = 0; x < numBuckets; x++) {
+      if (buckets[x] > firstPeakSize) {
+        firstPeak = x;
+        firstPeakSize = buckets[x];
+      }
+      if (buckets[x] > maxBucketCount) {
+        maxBucketCount = buckets[x];
+      }
+    }
+
+    // Find the second-tallest peak, favoring ones far from the first.
+    int secondPeak = 0;
+    int secondPeakScore = 0;
+    for (int x = 0; x < numBuckets; x++) {
+      int distanceToBiggest = x - firstPeak;
+      int score = buckets[x] * distanceToBiggest * distanceToBiggest;
+      if (score > secondPeakScore) {
+        secondPeak = x;
+        secondPeakScore = score;
+      }
+    }
+
+    if (firstPeak > secondPeak) {
+      int temp = firstPeak;
+      firstPeak = secondPeak;
+      secondPeak = temp;
+    }
+
+    // Peaks this close together mean there's probably no barcode in the row.
+    if (secondPeak - firstPeak <= numBuckets / 16) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+
+    // Find the deepest valley between the peaks, leaning toward the white peak.
+    int bestValley = secondPeak - 1;
+    int bestValleyScore = -1;
+    for (int x = secondPeak - 1; x > firstPeak; x--) {
+      int fromFirst = x - firstPeak;
+      int score = fromFirst * fromFirst * (secondPeak - x) * (maxBucketCount - buckets[x]);
+      if (score > bestValleyScore) {
+        bestValley = x;
+        bestValleyScore = score;
+      }
+    }
+
+    return bestValley << LUMINANCE_SHIFT;
+  }
+
+  private static void calculateThresholdForBlock(byte[] luminances, int subWidth, int subHeight,
+                                                 int width, int height, int[][] blackPoints,
+                                                 BitMatrix matrix) {
+    int maxYOffset = height - BLOCK_SIZE;
+    int maxXOffset = width - BLOCK_SIZE;
+    for (int y = 0; y < subHeight; y++) {
+      int yoffset = Math.min(y << BLOCK_SIZE_POWER, maxYOffset);
+      int top = cap(y, 2, subHeight - 3);
+      for (int x = 0; x < subWidth; x++) {
+        int xoffset = Math.min(x << BLOCK_SIZE_POWER, maxXOffset);
+        int left = cap(x, 2, subWidth - 3);
+        int sum = 0;
+        for (int z = -2; z <= 2; z++) {
+          int[] blackRow = blackPoints[top + z];
+          sum += blackRow[left - 2] + blackRow[left - 1] + blackRow[left] + blackRow[left + 1] +
+              blackRow[left + 2];
+        }
+        thresholdBlock(luminances, xoffset, yoffset, sum / 25, width, matrix);
+      }
+    }
+  }
+
+  private static int cap(int value, int min, int max) {
+    return value < min ? min : value > max ? max : value;
+  }
+
+  private static void thresholdBlock(byte[] luminances, int xoffset, int yoffset,
+                                     int threshold, int stride, BitMatrix matrix) {
+    for (int y = 0, offset = yoffset * stride + xoffset; y < BLOCK_SIZE; y++, offset += stride) {
+      for (int x = 0; x < BLOCK_SIZE; x++) {
+        // Comparison needs to be <= so that black == 0 pixels are black even if the threshold is 0.
+        if ((luminances[offset + x] & 0xff) <= threshold) {
+          matrix.set(xoffset + x, yoffset + y);
+        }
+      }
+    }
+  }
+
+  /**
+   * Computes a black point for each block: its average, or for a flat block, a value based
+   * on its minimum and its neighbors, so that flat areas follow their surroundings.
+   */
+  private static void calculateBlackPoints(byte[] luminances, int subWidth, int subHeight,
+                                           int width, int height, int[][] blackPoints) {
+    int maxYOffset = height - BLOCK_SIZE;
+    int maxXOffset = width - BLOCK_SIZE;
+    for (int y = 0; y < subHeight; y++) {
+      int yoffset = Math.min(y << BLOCK_SIZE_POWER, maxYOffset);
+      for (int x = 0; x < subWidth; x++) {
+        int xoffset = Math.min(x << BLOCK_SIZE_POWER, maxXOffset);
+        int sum = 0;
+        int min = 0xff;
+        int max = 0;
+        for (int yy = 0, offset = yoffset * width + xoffset; yy < BLOCK_SIZE; yy++, offset += width) {
+          for (int xx = 0; xx < BLOCK_SIZE; xx++) {
+            int pixel = luminances[offset + xx] & 0xff;
+            sum += pixel;
+            if (pixel < min) {
+              min = pixel;
+            }
+            if (pixel > max) {
+              max = pixel;
+            }
+          }
+          // Once the range is wide enough, only the sum matters for the rest of the block.
+          if (max - min > MIN_DYNAMIC_RANGE) {
+            for (yy++, offset += width; yy < BLOCK_SIZE; yy++, offset += width) {
+              for (int xx = 0; xx < BLOCK_SIZE; xx++) {
+                sum += luminances[offset + xx] & 0xff;
+              }
+            }
+          }
+        }
+
+        int average = sum >> (BLOCK_SIZE_POWER * 2);
+        if (max - min <= MIN_DYNAMIC_RANGE) {
+          // A flat block is taken as white, slightly darker than its minimum, unless its
+          // neighbors say it's darker than that.
+          average = min / 2;
+          if (y > 0 && x > 0) {
+            int averageNeighborBlackPoint =
+                (blackPoints[y - 1][x] + (2 * blackPoints[y][x - 1]) + blackPoints[y - 1][x - 1]) / 4;
+            if (min < averageNeighborBlackPoint) {
+              average = averageNeighborBlackPoint;
+            }
+          }
+        }
+        blackPoints[y][x] = average;
+      }
+    }
+  }
+}
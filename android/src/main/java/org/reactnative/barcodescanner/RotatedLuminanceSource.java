@@ -0,0 +1,114 @@
+package org.reactnative.barcodescanner;
+
+import com.google.zxing.LuminanceSource;
+
+/**
+ * Another luminance source turned 90 degrees clockwise, for a second decoding pass that
+ * catches 1D codes lying across the frame.
+ * <p>
+ * The first row or matrix requested transposes the source once into a (possibly reused)
+ * matrix, working through it in bands of rows so that both the reads and the writes stay
+ * within a few cache lines; later rows are copied out of that matrix.  Nothing the size of
+ * the whole YUV frame is copied or allocated, and with buffers from a
+ * {@link BarcodeDecodeContext} nothing is allocated at all once they have grown to size.
+ */
+public class RotatedLuminanceSource extends LuminanceSource {
+  // Source rows transposed at a time.  The writes for a band land BAND bytes apart from
+  // each other per output row, instead of one output row apart.
+  private static final int BAND = 32;
+
+  private final LuminanceSource mSource;
+  private byte[] mMatrix;
+  private byte[][] mBand;
+  private boolean mTransposed;
+
+  public RotatedLuminanceSource(LuminanceSource source) {
+    this(source, null, null);
+  }
+
+  /**
+   * @param matrixBuffer Used to hold the rotated matrix if it has room for it, so repeated
+   *     decodes don't allocate; may be null.  The caller must not touch it until the decode
+   *     is done.
+   * @param bandRows From {@link #newBandRows()}, to read source rows into; the rows are
+   *     replaced as needed and kept there for the next source.  May be null.  Same rules as
+   *     for {@code matrixBuffer}.
+   */
+  public RotatedLuminanceSource(LuminanceSource source, byte[] matrixBuffer, byte[][] bandRows) {
+    super(source.getHeight(), source.getWidth());
+    mSource = source;
+    mMatrix = matrixBuffer;
+    mBand = bandRows;
+  }
+
+  /**
+   * Returns an empty set of band rows, for reuse across sources.
+   */
+  public static byte[][] newBandRows() {
+    return new byte[BAND][];
+  }
+
+  @Override
+  public byte[] getRow(int y, byte[] row) {
+    if (y < 0 || y >= getHeight()) {
+      throw new IllegalArgumentException("Requested row is outside the image: " + y);
+    }
+    int width = getWidth();
+    if (row == null || row.length < width) {
+      row = new byte[width];
+    }
+    System.arraycopy(getMatrix(), y * width, row, 0, width);
+    return row;
+  }
+
+  /**
+   * Returns the rotated image.  The array may be longer than width * height.
+   */
+  @Override
+  public byte[] getMatrix() {
+    if (!mTransposed) {
+      transpose();
+      mTransposed = true;
+    }
+    return mMatrix;
+  }
+
+  @Override
+  public boolean isCropSupported() {
+    return mSource.isCropSupported();
+  }
+
+  @Override
+  public LuminanceSource crop(int left, int top, int width, int height) {
+    // The rectangle turned back counterclockwise; its bottom edge here was its left edge.
+    return new RotatedLuminanceSource(
+        mSource.crop(top, mSource.getHeight() - left - width, height, width));
+  }
+
+  private void transpose() {
+    int sourceWidth = mSource.getWidth();
+    int sourceHeight = mSource.getHeight();
+    if (mMatrix == null || mMatrix.length < sourceWidth * sourceHeight) {
+      mMatrix = new byte[sourceWidth * sourceHeight];
+    }
+    // Source pixel (x, y) lands at (sourceHeight - 1 - y, x) once turned clockwise, so a
+    // source row becomes an output column, read bottom to top.
+    if (mBand == null) {
+      mBand = newBandRows();
+    }
+    byte[][] band = mBand;
+    for (int y0 = 0; y0 < sourceHeight; y0 += BAND) {
+      int rows = Math.min(BAND, sourceHeight - y0);
+      for (int i = 0; i < rows; i++) {
+        band[i] = mSource.getRow(y0 + i, band[i]);
+      }
+      int column = sourceHeight - y0 - 1;
+      for (int x = 0; x < sourceWidth; x++) {
+        int out = x * sourceHeight + column;
+        for (int i = 0; i < rows; i++) {
+          mMatrix[out - i] = band[i][x];
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package org.reactnative.barcodescanner;
+
+/**
+ * A rectangle of a camera frame to look for barcodes in, in coordinates normalized to
+ * [0, 1] so it doesn't depend on the preview size.
+ * <p>
+ * Regions come from JS relative to the frame as the user sees it: upright, and mirrored
+ * for the front camera.  {@link #toFrame} maps one into the coordinates of the frame as the
+ * camera delivers it.
+ */
+public class ScanRegion {
+  private final float mLeft;
+  private final float mTop;
+  private final float mRight;
+  private final float mBottom;
+
+  /**
+   * Values outside [0, 1] are clamped.
+   */
+  public ScanRegion(float left, float top, float width, float height) {
+    mLeft = clamp(left);
+    mTop = clamp(top);
+    mRight = clamp(left + width);
+    mBottom = clamp(top + height);
+  }
+
+  /**
+   * Maps a region of the displayed frame into the camera frame.
+   *
+   * @param rotation Clockwise rotation that makes the camera frame upright, as computed by
+   *     {@code RNCameraViewHelper.getCorrectCameraRotation()}.
+   * @param mirrored Whether the frame is displayed mirrored, as with the front camera.
+   */
+  public ScanRegion toFrame(int rotation, boolean mirrored) {
+    float left = mirrored ? 1 - mRight : mLeft;
+    float right = mirrored ? 1 - mLeft : mRight;
+    // Turning the camera frame clockwise by the rotation takes a point (s, t) in it to the
+    // upright point (u, v); undo that for two opposite corners.
+    switch (rotation) {
+      case 90:
+        return fromCorners(mTop, 1 - left, mBottom, 1 - right);
+      case 180:
+        return fromCorners(1 - left, 1 - mTop, 1 - right, 1 - mBottom);
+      case 270:
+        return fromCorners(1 - mTop, left, 1 - mBottom, right);
+      default:
+        return fromCorners(left, mTop, right, mBottom);
+    }
+  }
+
+  public boolean isEmpty() {
+    return mRight <= mLeft || mBottom <= mTop;
+  }
+
+  /**
+   * Returns the left edge in pixels, for a frame {@code frameWidth} pixels wide.
+   */
+  public int getLeft(int frameWidth) {
+    return (int) Math.floor(mLeft * frameWidth);
+  }
+
+  public int getTop(int frameHeight) {
+    return (int) Math.floor(mTop * frameHeight);
+  }
+
+  /**
+   * Returns the width in pixels, rounded out to whole pixels.
+   */
+  public int getWidth(int frameWidth) {
+    return (int) Math.ceil(mRight * frameWidth) - getLeft(frameWidth);
+  }
+
+  public int getHeight(int frameHeight) {
+    return (int) Math.ceil(mBottom * frameHeight) - getTop(frameHeight);
+  }
+
+  @Override
+  public String toString() {
+    return "[" + mLeft + ", " + mTop + " - " + mRight + ", " + mBottom + "]";
+  }
+
+  private static ScanRegion fromCorners(float x0, float y0, float x1, float y1) {
+    float left = Math.min(x0, x1);
+    float top = Math.min(y0, y1);
+    return new ScanRegion(left, top, Math.max(x0, x1) - left, Math.max(y0, y1) - top);
+  }
+
+  private static float clamp(float value) {
+    return Math.max(0, Math.min(1, value));
+  }
+}
@@ -407,4 +407,38 @@ public class CameraModule extends ReactContextBaseJavaModule {
             }
         });
     }
+
+    @ReactMethod
+    public void getFrameAnalysisStats(final int viewTag, final Promise promise) {
+        final ReactApplicationContext context = getReactApplicationContext();
+        UIManagerModule uiManager = context.getNativeModule(UIManagerModule.class);
+        uiManager.addUIBlock(new UIBlock() {
+            @Override
+            public void execute(NativeViewHierarchyManager nativeViewHierarchyManager) {
+                try {
+                    RNCameraView cameraView = (RNCameraView) nativeViewHierarchyManager.resolveView(viewTag);
+                    promise.resolve(cameraView.getFrameAnalysisStats());
+                } catch (Exception e) {
+                    promise.reject("E_CAMERA_BAD_VIEWTAG", "getFrameAnalysisStatsAsync: Expected a Camera component");
+                }
+            }
+        });
+    }
+
+    @ReactMethod
+    public void getFrameExportStats(final int viewTag, final Promise promise) {
+        final ReactApplicationContext context = getReactApplicationContext();
+        UIManagerModule uiManager = context.getNativeModule(UIManagerModule.class);
+        uiManager.addUIBlock(new UIBlock() {
+            @Override
+            public void execute(NativeViewHierarchyManager nativeViewHierarchyManager) {
+                try {
+                    RNCameraView cameraView = (RNCameraView) nativeViewHierarchyManager.resolveView(viewTag);
+                    promise.resolve(cameraView.getFrameExportStats());
+                } catch (Exception e) {
+                    promise.reject("E_CAMERA_BAD_VIEWTAG", "getFrameExportStatsAsync: Expected a Camera component");
+                }
+            }
+        });
+    }
 }
@@ -2,12 +2,15 @@ package org.reactnative.camera;
 
 import android.support.annotation.Nullable;
 import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.common.MapBuilder;
 import com.facebook.react.uimanager.ThemedReactContext;
 import com.facebook.react.uimanager.ViewGroupManager;
 import com.facebook.react.uimanager.annotations.ReactProp;
 import com.google.android.cameraview.AspectRatio;
 import com.google.android.cameraview.Size;
+import com.google.android.cameraview.gles.FrameExportExecutor;
+import org.reactnative.barcodescanner.ScanRegion;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -18,6 +21,7 @@ public class CameraViewManager extends ViewGroupManager<RNCameraView> {
     EVENT_CAMERA_READY("onCameraReady"),
     EVENT_ON_MOUNT_ERROR("onMountError"),
     EVENT_ON_BAR_CODE_READ("onBarCodeRead"),
+    EVENT_ON_BAR_CODES_READ("onBarCodesRead"),
     EVENT_ON_FACES_DETECTED("onFacesDetected"),
     EVENT_ON_BARCODES_DETECTED("onGoogleVisionBarcodesDetected"),
     EVENT_ON_FACE_DETECTION_ERROR("onFaceDetectionError"),
@@ -45,7 +49,7 @@ public class CameraViewManager extends ViewGroupManager<RNCameraView> {
 
   @Override
   public void onDropViewInstance(RNCameraView view) {
-    view.stop();
+    view.release();
     super.onDropViewInstance(view);
   }
 
@@ -122,6 +126,39 @@ public class CameraViewManager extends ViewGroupManager<RNCameraView> {
     view.setBarCodeTypes(result);
   }
 
+  @ReactProp(name = "barCodeScanArea")
+  public void setBarCodeScanArea(RNCameraView view, @Nullable ReadableMap scanArea) {
+    if (scanArea == null) {
+      view.setBarCodeScanArea(null);
+      return;
+    }
+    view.setBarCodeScanArea(new ScanRegion(
+        (float) scanArea.getDouble("x"),
+        (float) scanArea.getDouble("y"),
+        (float) scanArea.getDouble("width"),
+        (float) scanArea.getDouble("height")));
+  }
+
+  @ReactProp(name = "barCodeDownsample")
+  public void setBarCodeDownsample(RNCameraView view, boolean downsample) {
+    view.setBarCodeDownsample(downsample);
+  }
+
+  @ReactProp(name = "barCodeMultiScanEnabled")
+  public void setBarCodeMultiScan(RNCameraView view, boolean multiScanEnabled) {
+    view.setBarCodeMultiScan(multiScanEnabled);
+  }
+
+  @ReactProp(name = "barCodeDedupWindow", defaultInt = RNCameraView.DEFAULT_BAR_CODE_DEDUP_WINDOW_MS)
+  public void setBarCodeDedupWindow(RNCameraView view, int windowMs) {
+    view.setBarCodeDedupWindow(windowMs);
+  }
+
+  @ReactProp(name = "barCodeReadInterval")
+  public void setBarCodeReadInterval(RNCameraView view, int intervalMs) {
+    view.setBarCodeReadInterval(intervalMs);
+  }
+
   @ReactProp(name = "barCodeScannerEnabled")
   public void setBarCodeScanning(RNCameraView view, boolean barCodeScannerEnabled) {
     view.setShouldScanBarCodes(barCodeScannerEnabled);
@@ -157,6 +194,11 @@ public class CameraViewManager extends ViewGroupManager<RNCameraView> {
     view.setFaceDetectionClassifications(classifications);
   }
 
+  @ReactProp(name = "faceDetectionInterpolation")
+  public void setFaceDetectionInterpolation(RNCameraView view, boolean interpolation) {
+    view.setFaceDetectionInterpolation(interpolation);
+  }
+
   @ReactProp(name = "googleVisionBarcodeDetectorEnabled")
   public void setGoogleVisionBarcodeDetecting(RNCameraView view, boolean googleBarcodeDetectorEnabled) {
     view.setShouldGoogleDetectBarcodes(googleBarcodeDetectorEnabled);
@@ -176,4 +218,30 @@ public class CameraViewManager extends ViewGroupManager<RNCameraView> {
   public void setTextRecognizing(RNCameraView view, boolean textRecognizerEnabled) {
     view.setShouldRecognizeText(textRecognizerEnabled);
   }
+
+  @ReactProp(name = "frameAnalysisTargetFps")
+  public void setFrameAnalysisTargetFps(RNCameraView view, @Nullable ReadableMap targetFps) {
+    view.setFrameAnalysisTargetFps(targetFps);
+  }
+
+  @ReactProp(name = "frameAnalysisCpuBudget")
+  public void setFrameAnalysisCpuBudget(RNCameraView view, @Nullable ReadableMap cpuBudget) {
+    view.setFrameAnalysisCpuBudget(cpuBudget);
+  }
+
+  @ReactProp(name = "frameExportQueueDepth")
+  public void setFrameExportQueueDepth(RNCameraView view, int depth) {
+    view.setFrameExportQueueDepth(depth);
+  }
+
+  @ReactProp(name = "frameExportDropPolicy")
+  public void setFrameExportDropPolicy(RNCameraView view, @Nullable String dropPolicy) {
+    FrameExportExecutor.DropPolicy policy = null;
+    if ("dropNewest".equals(dropPolicy)) {
+      policy = FrameExportExecutor.DropPolicy.DROP_NEWEST;
+    } else if ("block".equals(dropPolicy)) {
+      policy = FrameExportExecutor.DropPolicy.BLOCK;
+    }
+    view.setFrameExportDropPolicy(policy);
+  }
 }
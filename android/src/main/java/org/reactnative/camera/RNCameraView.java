@@ -7,6 +7,7 @@ import android.graphics.Color;
 import android.media.CamcorderProfile;
 import android.media.MediaActionSound;
 import android.os.Build;
+import android.os.SystemClock;
 import android.support.v4.content.ContextCompat;
 import android.util.SparseArray;
 import android.view.View;
@@ -23,20 +24,26 @@ import com.google.android.gms.vision.text.TextBlock;
 import com.google.android.gms.vision.text.TextRecognizer;
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.DecodeHintType;
-import com.google.zxing.MultiFormatReader;
 import com.google.zxing.Result;
 import org.reactnative.barcodedetector.RNBarcodeDetector;
+import org.reactnative.barcodescanner.BarcodeDedupCache;
+import org.reactnative.barcodescanner.ScanRegion;
 import org.reactnative.camera.events.RecordingStartedEvent;
 import org.reactnative.camera.tasks.*;
+import org.reactnative.camera.utils.BitmapPool;
+import org.reactnative.camera.utils.DevicePressureMonitor;
 import org.reactnative.camera.utils.ImageDimensions;
 import org.reactnative.camera.utils.RNFileUtils;
+import org.reactnative.facedetector.FaceTracker;
 import org.reactnative.facedetector.RNFaceDetector;
+import org.reactnative.frame.PreviewFrame;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
 
 public class RNCameraView extends CameraView implements LifecycleEventListener, BarCodeScannerAsyncTaskDelegate, FaceDetectorAsyncTaskDelegate,
     BarcodeDetectorAsyncTaskDelegate, TextRecognizerAsyncTaskDelegate, PictureSavedDelegate {
@@ -46,20 +53,46 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
   private Map<Promise, File> mPictureTakenDirectories = new ConcurrentHashMap<>();
   private Promise mVideoRecordedPromise;
   private List<String> mBarCodeTypes = null;
+  private ScanRegion mBarCodeScanArea = null;
+  private boolean mBarCodeDownsample = false;
+  private boolean mBarCodeMultiScan = false;
+  private final BarcodeDedupCache mBarCodeDedup = new BarcodeDedupCache(DEFAULT_BAR_CODE_DEDUP_WINDOW_MS);
+  private final BarcodeDedupCache mBarCodeReadThrottle = new BarcodeDedupCache(0, false);
   private Boolean mPlaySoundOnCapture = false;
 
+  public static final int DEFAULT_BAR_CODE_DEDUP_WINDOW_MS = 1000;
+
+  public static final String ANALYZER_BAR_CODE_SCANNER = "barCodeScanner";
+  public static final String ANALYZER_FACE_DETECTOR = "faceDetector";
+  public static final String ANALYZER_GOOGLE_BARCODE_DETECTOR = "googleVisionBarcodeDetector";
+  public static final String ANALYZER_TEXT_RECOGNIZER = "textRecognizer";
+
   private boolean mIsPaused = false;
   private boolean mIsNew = true;
   private boolean invertImageData = false;
 
-  // Concurrency lock for scanners to avoid flooding the runtime
-  public volatile boolean barCodeScannerTaskLock = false;
-  public volatile boolean faceDetectorTaskLock = false;
-  public volatile boolean googleBarcodeDetectorTaskLock = false;
-  public volatile boolean textRecognizerTaskLock = false;
+  // Preview frames go to the scanners through one dispatcher, so a slow scanner (text
+  // recognition, say) neither floods the runtime nor holds up the others.  Each scanner
+  // analyzes at most one frame at a time, and picks up the newest frame when it's done.
+  private static final int FRAME_ANALYZERS = 4;
+  private static final int FRAME_ANALYSIS_THREADS =
+      Math.max(2, Math.min(FRAME_ANALYZERS, Runtime.getRuntime().availableProcessors() - 1));
+  private final FrameAnalysisDispatcher<PreviewFrame> mFrameDispatcher =
+      new FrameAnalysisDispatcher<>(FRAME_ANALYSIS_THREADS, FRAME_ANALYZERS);
+  private final FrameAnalysisDispatcher<PreviewFrame>.Slot mBarCodeScannerSlot;
+  private final FrameAnalysisDispatcher<PreviewFrame>.Slot mFaceDetectorSlot;
+  private final FrameAnalysisDispatcher<PreviewFrame>.Slot mGoogleBarcodeDetectorSlot;
+  private final FrameAnalysisDispatcher<PreviewFrame>.Slot mTextRecognizerSlot;
+  private final DevicePressureMonitor mPressureMonitor;
+  private final PreviewFrame.Owner mPreviewFrameOwner = new PreviewFrame.Owner() {
+    @Override
+    public void onFrameReleased(PreviewFrame frame) {
+      releasePreviewFrame(frame.getData());
+    }
+  };
 
   // Scanning-related properties
-  private MultiFormatReader mMultiFormatReader;
+  private Map<DecodeHintType, Object> mBarCodeHints;
   private RNFaceDetector mFaceDetector;
   private RNBarcodeDetector mGoogleBarcodeDetector;
   private TextRecognizer mTextRecognizer;
@@ -70,14 +103,71 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
   private int mFaceDetectorMode = RNFaceDetector.FAST_MODE;
   private int mFaceDetectionLandmarks = RNFaceDetector.NO_LANDMARKS;
   private int mFaceDetectionClassifications = RNFaceDetector.NO_CLASSIFICATIONS;
+  // Moves the detected faces on every preview frame between detections.
+  private final FaceTracker<Face> mFaceTracker = new FaceTracker<>();
+  private boolean mFaceDetectionInterpolation = false;
+  private volatile long mFaceDetectionFrameTime;
+  private volatile boolean mFacesReported;
+  private volatile ImageDimensions mTrackedFaceDimensions;
   private int mGoogleVisionBarCodeType = Barcode.ALL_FORMATS;
   private int mGoogleVisionBarCodeMode = RNBarcodeDetector.NORMAL_MODE;
 
   public RNCameraView(ThemedReactContext themedReactContext) {
     super(themedReactContext, true);
     mThemedReactContext = themedReactContext;
+    mPressureMonitor = new DevicePressureMonitor(themedReactContext, new DevicePressureMonitor.Listener() {
+      @Override
+      public void onPressureChanged(int pressure) {
+        mFrameDispatcher.setPressure(pressure);
+      }
+    });
     themedReactContext.addLifecycleEventListener(this);
 
+    mBarCodeScannerSlot = mFrameDispatcher.addAnalyzer(ANALYZER_BAR_CODE_SCANNER,
+        new FrameAnalysisDispatcher.Analyzer<PreviewFrame>() {
+          @Override
+          public void analyze(PreviewFrame frame, Executor executor) {
+            ScanRegion scanRegion = mBarCodeScanArea == null ? null :
+                mBarCodeScanArea.toFrame(frame.getRotation(), getFacing() == CameraView.FACING_FRONT);
+            new BarCodeScannerAsyncTask(RNCameraView.this, mBarCodeHints, frame.getData(),
+                frame.getWidth(), frame.getHeight(), scanRegion, mBarCodeDownsample, mBarCodeMultiScan)
+                .executeOnExecutor(executor);
+          }
+        });
+    mFaceDetectorSlot = mFrameDispatcher.addAnalyzer(ANALYZER_FACE_DETECTOR,
+        new FrameAnalysisDispatcher.Analyzer<PreviewFrame>() {
+          @Override
+          public void analyze(PreviewFrame frame, Executor executor) {
+            mFaceDetectionFrameTime = frame.getTimestampNanos();
+            mFacesReported = false;
+            new FaceDetectorAsyncTask(RNCameraView.this, mFaceDetector, frame.getData(),
+                frame.getWidth(), frame.getHeight(), frame.getRotation()).executeOnExecutor(executor);
+          }
+        });
+    mGoogleBarcodeDetectorSlot = mFrameDispatcher.addAnalyzer(ANALYZER_GOOGLE_BARCODE_DETECTOR,
+        new FrameAnalysisDispatcher.Analyzer<PreviewFrame>() {
+          @Override
+          public void analyze(PreviewFrame frame, Executor executor) {
+            if (mGoogleVisionBarCodeMode == RNBarcodeDetector.NORMAL_MODE) {
+              invertImageData = false;
+            } else if (mGoogleVisionBarCodeMode == RNBarcodeDetector.ALTERNATE_MODE) {
+              invertImageData = !invertImageData;
+            } else if (mGoogleVisionBarCodeMode == RNBarcodeDetector.INVERTED_MODE) {
+              invertImageData = true;
+            }
+            new BarcodeDetectorAsyncTask(RNCameraView.this, mGoogleBarcodeDetector, frame,
+                invertImageData).executeOnExecutor(executor);
+          }
+        });
+    mTextRecognizerSlot = mFrameDispatcher.addAnalyzer(ANALYZER_TEXT_RECOGNIZER,
+        new FrameAnalysisDispatcher.Analyzer<PreviewFrame>() {
+          @Override
+          public void analyze(PreviewFrame frame, Executor executor) {
+            new TextRecognizerAsyncTask(RNCameraView.this, mTextRecognizer, frame.getData(),
+                frame.getWidth(), frame.getHeight(), frame.getRotation()).executeOnExecutor(executor);
+          }
+        });
+
     addCallback(new Callback() {
       @Override
       public void onCameraOpened(CameraView cameraView) {
@@ -137,12 +227,7 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
 
       @Override
       public void onFramePreview(CameraView cameraView, byte[] data, int width, int height, int rotation) {
-        int correctRotation = RNCameraViewHelper.getCorrectCameraRotation(rotation, getFacing());
-        boolean willCallBarCodeTask = mShouldScanBarCodes && !barCodeScannerTaskLock && cameraView instanceof BarCodeScannerAsyncTaskDelegate;
-        boolean willCallFaceTask = mShouldDetectFaces && !faceDetectorTaskLock && cameraView instanceof FaceDetectorAsyncTaskDelegate;
-        boolean willCallGoogleBarcodeTask = mShouldGoogleDetectBarcodes && !googleBarcodeDetectorTaskLock && cameraView instanceof BarcodeDetectorAsyncTaskDelegate;
-        boolean willCallTextTask = mShouldRecognizeText && !textRecognizerTaskLock && cameraView instanceof TextRecognizerAsyncTaskDelegate;
-        if (!willCallBarCodeTask && !willCallFaceTask && !willCallGoogleBarcodeTask && !willCallTextTask) {
+        if (!mShouldScanBarCodes && !mShouldDetectFaces && !mShouldGoogleDetectBarcodes && !mShouldRecognizeText) {
           return;
         }
 
@@ -150,41 +235,33 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
             return;
         }
 
-        if (willCallBarCodeTask) {
-          barCodeScannerTaskLock = true;
-          BarCodeScannerAsyncTaskDelegate delegate = (BarCodeScannerAsyncTaskDelegate) cameraView;
-          new BarCodeScannerAsyncTask(delegate, mMultiFormatReader, data, width, height).execute();
+        int correctRotation = RNCameraViewHelper.getCorrectCameraRotation(rotation, getFacing());
+        // The camera reuses the buffer once the callback returns, unless someone holds on to
+        // it.  The frame keeps it until every analyzer it was handed to is done with it.
+        cameraView.retainPreviewFrame(data);
+        PreviewFrame frame = new PreviewFrame(data, width, height, correctRotation, System.nanoTime(),
+            mPreviewFrameOwner);
+
+        if (mShouldScanBarCodes) {
+          mBarCodeScannerSlot.submit(frame);
         }
 
-        if (willCallFaceTask) {
-          faceDetectorTaskLock = true;
-          FaceDetectorAsyncTaskDelegate delegate = (FaceDetectorAsyncTaskDelegate) cameraView;
-          new FaceDetectorAsyncTask(delegate, mFaceDetector, data, width, height, correctRotation).execute();
+        if (mShouldDetectFaces) {
+          mFaceDetectorSlot.submit(frame);
+          if (mFaceDetectionInterpolation) {
+            emitTrackedFaces(frame.getTimestampNanos());
+          }
         }
 
-        if (willCallGoogleBarcodeTask) {
-          googleBarcodeDetectorTaskLock = true;
-          if (mGoogleVisionBarCodeMode == RNBarcodeDetector.NORMAL_MODE) {
-            invertImageData = false;
-          } else if (mGoogleVisionBarCodeMode == RNBarcodeDetector.ALTERNATE_MODE) {
-            invertImageData = !invertImageData;
-          } else if (mGoogleVisionBarCodeMode == RNBarcodeDetector.INVERTED_MODE) {
-            invertImageData = true;
-          }
-          if (invertImageData) {
-            for (int y = 0; y < data.length; y++) {
-              data[y] = (byte) ~data[y];
-            }
-          }
-          BarcodeDetectorAsyncTaskDelegate delegate = (BarcodeDetectorAsyncTaskDelegate) cameraView;
-          new BarcodeDetectorAsyncTask(delegate, mGoogleBarcodeDetector, data, width, height, correctRotation).execute();
+        if (mShouldGoogleDetectBarcodes) {
+          mGoogleBarcodeDetectorSlot.submit(frame);
         }
 
-        if (willCallTextTask) {
-          textRecognizerTaskLock = true;
-          TextRecognizerAsyncTaskDelegate delegate = (TextRecognizerAsyncTaskDelegate) cameraView;
-          new TextRecognizerAsyncTask(delegate, mTextRecognizer, data, width, height, correctRotation).execute();
+        if (mShouldRecognizeText) {
+          mTextRecognizerSlot.submit(frame);
         }
+
+        frame.release();
       }
     });
   }
@@ -230,6 +307,45 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
     // React handles this for us, so we don't need to call super.requestLayout();
   }
 
+  /**
+   * Limits barcode scanning to part of the frame, given in [0, 1] coordinates of the frame
+   * as displayed.  Null scans the whole frame.
+   */
+  public void setBarCodeScanArea(ScanRegion scanArea) {
+    mBarCodeScanArea = scanArea;
+  }
+
+  /**
+   * Lets the barcode scanner work on large frames at half resolution.
+   */
+  public void setBarCodeDownsample(boolean downsample) {
+    mBarCodeDownsample = downsample;
+  }
+
+  /**
+   * Reports every barcode in a frame together, through onBarCodesRead, instead of one at
+   * a time through onBarCodeRead.  Codes that stay in view are only reported again after
+   * they've been out of view for the dedup window.
+   */
+  public void setBarCodeMultiScan(boolean multiScan) {
+    mBarCodeMultiScan = multiScan;
+    mBarCodeDedup.clear();
+  }
+
+  public void setBarCodeDedupWindow(int windowMs) {
+    mBarCodeDedup.setWindow(windowMs);
+  }
+
+  /**
+   * Reports the same barcode through onBarCodeRead at most once per {@code intervalMs}
+   * while it stays in view; a different code is still reported right away.  0 reports
+   * every frame it's read in.
+   */
+  public void setBarCodeReadInterval(int intervalMs) {
+    mBarCodeReadThrottle.setWindow(intervalMs);
+    mBarCodeReadThrottle.clear();
+  }
+
   public void setBarCodeTypes(List<String> barCodeTypes) {
     mBarCodeTypes = barCodeTypes;
     initBarcodeReader();
@@ -312,7 +428,6 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
    * Additionally supports [codabar, code128, maxicode, rss14, rssexpanded, upc_a, upc_ean]
    */
   private void initBarcodeReader() {
-    mMultiFormatReader = new MultiFormatReader();
     EnumMap<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
     EnumSet<BarcodeFormat> decodeFormats = EnumSet.noneOf(BarcodeFormat.class);
 
@@ -326,14 +441,21 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
     }
 
     hints.put(DecodeHintType.POSSIBLE_FORMATS, decodeFormats);
-    mMultiFormatReader.setHints(hints);
+    // Each scanning thread keeps its own reader, and only reconfigures it when it sees a new
+    // map, so this one is never modified once published.
+    mBarCodeHints = Collections.unmodifiableMap(hints);
   }
 
   public void setShouldScanBarCodes(boolean shouldScanBarCodes) {
-    if (shouldScanBarCodes && mMultiFormatReader == null) {
+    if (shouldScanBarCodes && mBarCodeHints == null) {
       initBarcodeReader();
     }
     this.mShouldScanBarCodes = shouldScanBarCodes;
+    if (!shouldScanBarCodes) {
+      mBarCodeScannerSlot.clearWaiting();
+      mBarCodeDedup.clear();
+      mBarCodeReadThrottle.clear();
+    }
     setScanning(mShouldDetectFaces || mShouldGoogleDetectBarcodes || mShouldScanBarCodes || mShouldRecognizeText);
   }
 
@@ -342,17 +464,35 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
     if (!mShouldScanBarCodes || !mBarCodeTypes.contains(barCodeType)) {
       return;
     }
+    if (!mBarCodeReadThrottle.shouldReport(barCodeType, barCode.getText(), SystemClock.elapsedRealtime())) {
+      return;
+    }
 
     RNCameraViewHelper.emitBarCodeReadEvent(this, barCode,  width,  height);
   }
 
-  public void onBarCodeScanningTaskCompleted() {
-    barCodeScannerTaskLock = false;
-    if(mMultiFormatReader != null) {
-      mMultiFormatReader.reset();
+  public void onBarCodesRead(Result[] barCodes, int width, int height) {
+    if (!mShouldScanBarCodes) {
+      return;
+    }
+
+    long now = SystemClock.elapsedRealtime();
+    List<Result> newBarCodes = new ArrayList<>(barCodes.length);
+    for (Result barCode : barCodes) {
+      String barCodeType = barCode.getBarcodeFormat().toString();
+      if (mBarCodeTypes.contains(barCodeType) && mBarCodeDedup.shouldReport(barCodeType, barCode.getText(), now)) {
+        newBarCodes.add(barCode);
+      }
+    }
+    if (!newBarCodes.isEmpty()) {
+      RNCameraViewHelper.emitBarCodesReadEvent(this, newBarCodes, width, height);
     }
   }
 
+  public void onBarCodeScanningTaskCompleted() {
+    mBarCodeScannerSlot.finished();
+  }
+
   /**
    * Initial setup of the face detector
    */
@@ -390,6 +530,10 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
       setupFaceDetector();
     }
     this.mShouldDetectFaces = shouldDetectFaces;
+    if (!shouldDetectFaces) {
+      mFaceDetectorSlot.clearWaiting();
+      mFaceTracker.clear();
+    }
     setScanning(mShouldDetectFaces || mShouldGoogleDetectBarcodes || mShouldScanBarCodes || mShouldRecognizeText);
   }
 
@@ -398,6 +542,9 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
       setupBarcodeDetector();
     }
     this.mShouldGoogleDetectBarcodes = shouldDetectBarcodes;
+    if (!shouldDetectBarcodes) {
+      mGoogleBarcodeDetectorSlot.clearWaiting();
+    }
     setScanning(mShouldDetectFaces || mShouldGoogleDetectBarcodes || mShouldScanBarCodes || mShouldRecognizeText);
   }
 
@@ -410,6 +557,49 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
 
     ImageDimensions dimensions = new ImageDimensions(sourceWidth, sourceHeight, sourceRotation, getFacing());
     RNCameraViewHelper.emitFacesDetectedEvent(this, facesDetected, dimensions);
+
+    mFacesReported = true;
+    if (mFaceDetectionInterpolation) {
+      mFaceTracker.beginUpdate(mFaceDetectionFrameTime);
+      for (int i = 0; i < facesDetected.size(); i++) {
+        Face face = facesDetected.valueAt(i);
+        mFaceTracker.observe(face.getId(), face, new float[] {
+            face.getPosition().x, face.getPosition().y, face.getWidth(), face.getHeight(),
+            face.getEulerZ(), face.getEulerY()});
+      }
+      mFaceTracker.endUpdate();
+      mTrackedFaceDimensions = dimensions;
+    }
+  }
+
+  /**
+   * Reports the tracked faces where they're predicted to be in the frame that arrived at
+   * {@code timeNanos}, so overlays move at the preview's rate rather than the detector's.
+   */
+  private void emitTrackedFaces(long timeNanos) {
+    ImageDimensions dimensions = mTrackedFaceDimensions;
+    if (dimensions == null || mFaceTracker.size() == 0) {
+      return;
+    }
+    List<FaceTracker.Estimate<Face>> estimates = mFaceTracker.predict(timeNanos);
+    SparseArray<Face> faces = new SparseArray<>(estimates.size());
+    SparseArray<float[]> states = new SparseArray<>(estimates.size());
+    for (FaceTracker.Estimate<Face> estimate : estimates) {
+      faces.put(estimate.id, estimate.face);
+      states.put(estimate.id, estimate.state);
+    }
+    if (faces.size() > 0) {
+      RNCameraViewHelper.emitFacesDetectedEvent(this, faces, states, dimensions);
+    }
+  }
+
+  /**
+   * Moves the detected faces along between detections, on every preview frame, by
+   * extrapolating their recent motion.  The detector runs no more often than before.
+   */
+  public void setFaceDetectionInterpolation(boolean interpolation) {
+    mFaceDetectionInterpolation = interpolation;
+    mFaceTracker.clear();
   }
 
   public void onFaceDetectionError(RNFaceDetector faceDetector) {
@@ -422,7 +612,11 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
 
   @Override
   public void onFaceDetectingTaskCompleted() {
-    faceDetectorTaskLock = false;
+    if (!mFacesReported) {
+      // The detector found no faces; stop showing the old ones.
+      mFaceTracker.clear();
+    }
+    mFaceDetectorSlot.finished();
   }
 
   /**
@@ -471,7 +665,7 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
 
   @Override
   public void onBarcodeDetectingTaskCompleted() {
-    googleBarcodeDetectorTaskLock = false;
+    mGoogleBarcodeDetectorSlot.finished();
   }
 
   public void setShouldRecognizeText(boolean shouldRecognizeText) {
@@ -479,6 +673,9 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
       setupTextRecongnizer();
     }
     this.mShouldRecognizeText = shouldRecognizeText;
+    if (!shouldRecognizeText) {
+      mTextRecognizerSlot.clearWaiting();
+    }
     setScanning(mShouldDetectFaces || mShouldGoogleDetectBarcodes || mShouldScanBarCodes || mShouldRecognizeText);
   }
 
@@ -496,11 +693,58 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
 
   @Override
   public void onTextRecognizerTaskCompleted() {
-    textRecognizerTaskLock = false;
+    mTextRecognizerSlot.finished();
+  }
+
+  /**
+   * Sets how many frames per second each scanner may analyze, keyed by analyzer name
+   * ("barCodeScanner", "faceDetector", "googleVisionBarcodeDetector", "textRecognizer").
+   * Missing or zero means as fast as the scanner can go.
+   */
+  public void setFrameAnalysisTargetFps(ReadableMap targetFps) {
+    for (FrameAnalysisDispatcher<PreviewFrame>.Slot slot : mFrameDispatcher.getSlots()) {
+      String name = slot.getName();
+      float fps = targetFps != null && targetFps.hasKey(name) ? (float) targetFps.getDouble(name) : 0;
+      slot.setTargetFps(fps);
+    }
+  }
+
+  /**
+   * Sets the share of a worker thread each scanner may keep busy, keyed by analyzer name as
+   * for {@link #setFrameAnalysisTargetFps}.  Missing means
+   * {@link FrameRateGovernor#DEFAULT_CPU_BUDGET}, which lets the scanner run back to back.
+   */
+  public void setFrameAnalysisCpuBudget(ReadableMap cpuBudget) {
+    for (FrameAnalysisDispatcher<PreviewFrame>.Slot slot : mFrameDispatcher.getSlots()) {
+      String name = slot.getName();
+      float budget = cpuBudget != null && cpuBudget.hasKey(name) ?
+          (float) cpuBudget.getDouble(name) : FrameRateGovernor.DEFAULT_CPU_BUDGET;
+      slot.setCpuBudget(budget);
+    }
+  }
+
+  /**
+   * Returns what happened to the preview frames offered to each scanner, and how the
+   * scanners are being paced.
+   */
+  public WritableMap getFrameAnalysisStats() {
+    WritableMap stats = Arguments.createMap();
+    for (FrameAnalysisDispatcher<PreviewFrame>.Slot slot : mFrameDispatcher.getSlots()) {
+      WritableMap slotStats = Arguments.createMap();
+      slotStats.putDouble("submitted", slot.getSubmittedCount());
+      slotStats.putDouble("analyzed", slot.getAnalyzedCount());
+      slotStats.putDouble("replaced", slot.getReplacedCount());
+      slotStats.putDouble("rateLimited", slot.getRateLimitedCount());
+      slotStats.putDouble("latencyMs", slot.getAverageLatencyNanos() / 1e6);
+      slotStats.putDouble("intervalMs", slot.getMinIntervalNanos() / 1e6);
+      stats.putMap(slot.getName(), slotStats);
+    }
+    return stats;
   }
 
   @Override
   public void onHostResume() {
+    mPressureMonitor.start();
     if (hasCameraPermissions()) {
       if ((mIsPaused && !isCameraOpened()) || mIsNew) {
         mIsPaused = false;
@@ -514,6 +758,9 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
 
   @Override
   public void onHostPause() {
+    mPressureMonitor.stop();
+    // Pooled capture bitmaps are only worth their memory while pictures are being taken
+    BitmapPool.getInstance().clear();
     if (!mIsPaused && isCameraOpened()) {
       mIsPaused = true;
       stop();
@@ -533,9 +780,21 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
     if (mTextRecognizer != null) {
       mTextRecognizer.release();
     }
-    mMultiFormatReader = null;
-    stop();
+    mBarCodeHints = null;
+    release();
+  }
+
+  @Override
+  public void release() {
+    // A dropped view must not be started again by the host resuming
     mThemedReactContext.removeLifecycleEventListener(this);
+    mPressureMonitor.stop();
+    // Frames waiting for a busy scanner hold pooled preview buffers; give them back
+    mFrameDispatcher.shutdown();
+    for (FrameAnalysisDispatcher<PreviewFrame>.Slot slot : mFrameDispatcher.getSlots()) {
+      slot.clearWaiting();
+    }
+    super.release();
   }
 
   private boolean hasCameraPermissions() {
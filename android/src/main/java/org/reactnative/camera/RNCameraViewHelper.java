@@ -25,6 +25,7 @@ import org.reactnative.facedetector.RNFaceDetector;
 
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
+import java.util.List;
 
 public class RNCameraViewHelper {
 
@@ -216,6 +217,19 @@ public class RNCameraViewHelper {
       ViewGroup view,
       SparseArray<Face> faces,
       ImageDimensions dimensions
+  ) {
+    emitFacesDetectedEvent(view, faces, null, dimensions);
+  }
+
+  /**
+   * @param states Where a FaceTracker predicts each face to be, by face id; null to report
+   *     the faces where they were detected.
+   */
+  public static void emitFacesDetectedEvent(
+      ViewGroup view,
+      SparseArray<Face> faces,
+      SparseArray<float[]> states,
+      ImageDimensions dimensions
   ) {
     float density = view.getResources().getDisplayMetrics().density;
 
@@ -225,6 +239,7 @@ public class RNCameraViewHelper {
     FacesDetectedEvent event = FacesDetectedEvent.obtain(
         view.getId(),
         faces,
+        states,
         dimensions,
         scaleX,
         scaleY
@@ -269,6 +284,12 @@ public class RNCameraViewHelper {
     reactContext.getNativeModule(UIManagerModule.class).getEventDispatcher().dispatchEvent(event);
   }
 
+  public static void emitBarCodesReadEvent(ViewGroup view, List<Result> barCodes, int width, int height) {
+    BarCodesReadEvent event = BarCodesReadEvent.obtain(view.getId(), barCodes, width, height);
+    ReactContext reactContext = (ReactContext) view.getContext();
+    reactContext.getNativeModule(UIManagerModule.class).getEventDispatcher().dispatchEvent(event);
+  }
+
   // Text recognition event
 
   public static void emitTextRecognizedEvent(
@@ -42,15 +42,13 @@ public class BarCodeReadEvent extends Event<BarCodeReadEvent> {
 
   /**
    * We want every distinct barcode to be reported to the JS listener.
-   * If we return some static value as a coalescing key there may be two barcode events
-   * containing two different barcodes waiting to be transmitted to JS
-   * that would get coalesced (because both of them would have the same coalescing key).
-   * So let's differentiate them with a hash of the contents (mod short's max value).
+   * Keying events by a hash of the barcode could still coalesce two different barcodes
+   * waiting to be transmitted to JS, if their hashes collide.  How often the same code is
+   * reported is up to the barCodeReadInterval prop instead.
    */
   @Override
-  public short getCoalescingKey() {
-    int hashCode = mBarCode.getText().hashCode() % Short.MAX_VALUE;
-    return (short) hashCode;
+  public boolean canCoalesce() {
+    return false;
   }
 
   @Override
@@ -64,13 +62,18 @@ public class BarCodeReadEvent extends Event<BarCodeReadEvent> {
   }
 
   private WritableMap serializeEventData() {
+    WritableMap event = serializeBarCode(mBarCode, mWidth, mHeight);
+    event.putInt("target", getViewTag());
+    return event;
+  }
+
+  static WritableMap serializeBarCode(Result barCode, int width, int height) {
     WritableMap event = Arguments.createMap();
     WritableMap eventOrigin = Arguments.createMap();
 
-    event.putInt("target", getViewTag());
-    event.putString("data", mBarCode.getText());
+    event.putString("data", barCode.getText());
 
-    byte[] rawBytes = mBarCode.getRawBytes();
+    byte[] rawBytes = barCode.getRawBytes();
     if (rawBytes != null && rawBytes.length > 0) {
       Formatter formatter = new Formatter();
       for (byte b : rawBytes) {
@@ -80,9 +83,9 @@ public class BarCodeReadEvent extends Event<BarCodeReadEvent> {
       formatter.close();
     } 
 
-    event.putString("type", mBarCode.getBarcodeFormat().toString());
+    event.putString("type", barCode.getBarcodeFormat().toString());
     WritableArray resultPoints = Arguments.createArray();
-    ResultPoint[] points = mBarCode.getResultPoints();
+    ResultPoint[] points = barCode.getResultPoints();
     for (ResultPoint point: points) {
       if(point!=null) {
         WritableMap newPoint = Arguments.createMap();
@@ -93,8 +96,8 @@ public class BarCodeReadEvent extends Event<BarCodeReadEvent> {
     }
 
     eventOrigin.putArray("origin", resultPoints);
-    eventOrigin.putInt("height", mHeight);
-    eventOrigin.putInt("width", mWidth);
+    eventOrigin.putInt("height", height);
+    eventOrigin.putInt("width", width);
     event.putMap("bounds", eventOrigin);
     return event;
   }
@@ -0,0 +1,72 @@
+package org.reactnative.camera.events;
+
+import android.support.v4.util.Pools;
+
+import org.reactnative.camera.CameraViewManager;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.uimanager.events.Event;
+import com.facebook.react.uimanager.events.RCTEventEmitter;
+import com.google.zxing.Result;
+
+import java.util.List;
+
+public class BarCodesReadEvent extends Event<BarCodesReadEvent> {
+  private static final Pools.SynchronizedPool<BarCodesReadEvent> EVENTS_POOL =
+      new Pools.SynchronizedPool<>(3);
+
+  private List<Result> mBarCodes;
+  private int mWidth;
+  private int mHeight;
+
+  private BarCodesReadEvent() {}
+
+  public static BarCodesReadEvent obtain(int viewTag, List<Result> barCodes, int width, int height) {
+    BarCodesReadEvent event = EVENTS_POOL.acquire();
+    if (event == null) {
+      event = new BarCodesReadEvent();
+    }
+    event.init(viewTag, barCodes, width, height);
+    return event;
+  }
+
+  private void init(int viewTag, List<Result> barCodes, int width, int height) {
+    super.init(viewTag);
+    mBarCodes = barCodes;
+    mWidth = width;
+    mHeight = height;
+  }
+
+  /**
+   * Batches are already free of repeats, so every one should reach JS, rather than a
+   * later batch replacing one still waiting to be sent.
+   */
+  @Override
+  public boolean canCoalesce() {
+    return false;
+  }
+
+  @Override
+  public String getEventName() {
+    return CameraViewManager.Events.EVENT_ON_BAR_CODES_READ.toString();
+  }
+
+  @Override
+  public void dispatch(RCTEventEmitter rctEventEmitter) {
+    rctEventEmitter.receiveEvent(getViewTag(), getEventName(), serializeEventData());
+  }
+
+  private WritableMap serializeEventData() {
+    WritableArray barCodesList = Arguments.createArray();
+    for (Result barCode : mBarCodes) {
+      barCodesList.pushMap(BarCodeReadEvent.serializeBarCode(barCode, mWidth, mHeight));
+    }
+
+    WritableMap event = Arguments.createMap();
+    event.putString("type", "barCodes");
+    event.putArray("barCodes", barCodesList);
+    event.putInt("target", getViewTag());
+    return event;
+  }
+}
@@ -21,6 +21,8 @@ public class FacesDetectedEvent extends Event<FacesDetectedEvent> {
   private double mScaleX;
   private double mScaleY;
   private SparseArray<Face> mFaces;
+  // Predicted FaceTracker states by face id, or null for faces as detected.
+  private SparseArray<float[]> mStates;
   private ImageDimensions mImageDimensions;
 
   private FacesDetectedEvent() {}
@@ -31,24 +33,41 @@ public class FacesDetectedEvent extends Event<FacesDetectedEvent> {
       ImageDimensions dimensions,
       double scaleX,
       double scaleY
+  ) {
+    return obtain(viewTag, faces, null, dimensions, scaleX, scaleY);
+  }
+
+  /**
+   * @param states Where each face is predicted to be now, by face id, in place of where it
+   *     was detected.
+   */
+  public static FacesDetectedEvent obtain(
+      int viewTag,
+      SparseArray<Face> faces,
+      SparseArray<float[]> states,
+      ImageDimensions dimensions,
+      double scaleX,
+      double scaleY
   ) {
     FacesDetectedEvent event = EVENTS_POOL.acquire();
     if (event == null) {
       event = new FacesDetectedEvent();
     }
-    event.init(viewTag, faces, dimensions, scaleX, scaleY);
+    event.init(viewTag, faces, states, dimensions, scaleX, scaleY);
     return event;
   }
 
   private void init(
       int viewTag,
       SparseArray<Face> faces,
+      SparseArray<float[]> states,
       ImageDimensions dimensions,
       double scaleX,
       double scaleY
   ) {
     super.init(viewTag);
     mFaces = faces;
+    mStates = states;
     mImageDimensions = dimensions;
     mScaleX = scaleX;
     mScaleY = scaleY;
@@ -83,7 +102,10 @@ public class FacesDetectedEvent extends Event<FacesDetectedEvent> {
 
     for(int i = 0; i < mFaces.size(); i++) {
       Face face = mFaces.valueAt(i);
-      WritableMap serializedFace = FaceDetectorUtils.serializeFace(face, mScaleX, mScaleY);
+      float[] state = mStates == null ? null : mStates.get(mFaces.keyAt(i));
+      WritableMap serializedFace = state == null ?
+          FaceDetectorUtils.serializeFace(face, mScaleX, mScaleY) :
+          FaceDetectorUtils.serializeFace(face, state, mScaleX, mScaleY);
       if (mImageDimensions.getFacing() == CameraView.FACING_FRONT) {
         serializedFace = FaceDetectorUtils.rotateFaceX(serializedFace, mImageDimensions.getWidth(), mScaleX);
       } else {
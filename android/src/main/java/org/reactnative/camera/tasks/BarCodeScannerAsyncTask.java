@@ -1,49 +1,127 @@
 package org.reactnative.camera.tasks;
 
-import com.google.zxing.BinaryBitmap;
-import com.google.zxing.MultiFormatReader;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
 import com.google.zxing.NotFoundException;
-import com.google.zxing.PlanarYUVLuminanceSource;
 import com.google.zxing.Result;
-import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.ResultPoint;
+import org.reactnative.barcodescanner.BarcodeDecodeContext;
+import org.reactnative.barcodescanner.FrameLuminanceSource;
+import org.reactnative.barcodescanner.RotatedLuminanceSource;
+import org.reactnative.barcodescanner.ScanRegion;
+
+import java.util.Map;
+
+public class BarCodeScannerAsyncTask extends android.os.AsyncTask<Void, Void, Result[]> {
+  // Regions at least this many pixels on their shorter side are scanned at half resolution,
+  // when downsampling is enabled.
+  private static final int DOWNSAMPLE_MIN_SIZE = 720;
 
-public class BarCodeScannerAsyncTask extends android.os.AsyncTask<Void, Void, Result> {
   private byte[] mImageData;
   private int mWidth;
   private int mHeight;
+  private ScanRegion mScanRegion;
+  private boolean mDownsample;
+  private boolean mMultiple;
   private BarCodeScannerAsyncTaskDelegate mDelegate;
-  private final MultiFormatReader mMultiFormatReader;
+  private final Map<DecodeHintType, ?> mHints;
+  private BarcodeDecodeContext mDecodeContext;
 
   //  note(sjchmiela): From my short research it's ok to ignore rotation of the image.
   public BarCodeScannerAsyncTask(
       BarCodeScannerAsyncTaskDelegate delegate,
-      MultiFormatReader multiFormatReader,
+      Map<DecodeHintType, ?> hints,
       byte[] imageData,
       int width,
       int height
+  ) {
+    this(delegate, hints, imageData, width, height, null, false);
+  }
+
+  /**
+   * Decoding happens with the worker thread's {@link BarcodeDecodeContext}, so pass the
+   * same hints map from frame to frame until the hints change.
+   *
+   * @param scanRegion Part of the frame to scan, in the frame's own orientation (see
+   *     {@link ScanRegion#toFrame}), or null for all of it.
+   * @param downsample Whether large regions may be scanned at half resolution.
+   */
+  public BarCodeScannerAsyncTask(
+      BarCodeScannerAsyncTaskDelegate delegate,
+      Map<DecodeHintType, ?> hints,
+      byte[] imageData,
+      int width,
+      int height,
+      ScanRegion scanRegion,
+      boolean downsample
+  ) {
+    this(delegate, hints, imageData, width, height, scanRegion, downsample, false);
+  }
+
+  /**
+   * @param multiple Whether to look for every barcode in the frame, and report them together
+   *     through {@link BarCodeScannerAsyncTaskDelegate#onBarCodesRead}, rather than the
+   *     first one found through {@link BarCodeScannerAsyncTaskDelegate#onBarCodeRead}.
+   */
+  public BarCodeScannerAsyncTask(
+      BarCodeScannerAsyncTaskDelegate delegate,
+      Map<DecodeHintType, ?> hints,
+      byte[] imageData,
+      int width,
+      int height,
+      ScanRegion scanRegion,
+      boolean downsample,
+      boolean multiple
   ) {
     mImageData = imageData;
     mWidth = width;
     mHeight = height;
+    mScanRegion = scanRegion;
+    mDownsample = downsample;
+    mMultiple = multiple;
     mDelegate = delegate;
-    mMultiFormatReader = multiFormatReader;
+    mHints = hints;
   }
 
   @Override
-  protected Result doInBackground(Void... ignored) {
+  protected Result[] doInBackground(Void... ignored) {
     if (isCancelled() || mDelegate == null) {
       return null;
     }
 
-    Result result = null;
+    Result[] result = null;
+
+    int left = 0;
+    int top = 0;
+    int width = mWidth;
+    int height = mHeight;
+    if (mScanRegion != null) {
+      if (mScanRegion.isEmpty()) {
+        return null;
+      }
+      left = mScanRegion.getLeft(mWidth);
+      top = mScanRegion.getTop(mHeight);
+      width = mScanRegion.getWidth(mWidth);
+      height = mScanRegion.getHeight(mHeight);
+    }
+
+    mDecodeContext = BarcodeDecodeContext.get();
+    int scale = mDownsample && Math.min(width, height) >= DOWNSAMPLE_MIN_SIZE ? 2 : 1;
+    int matrixSize = (width / scale) * (height / scale);
+    LuminanceSource source = new FrameLuminanceSource(mImageData, mWidth, mHeight, left, top, width, height,
+        scale, mDecodeContext.getMatrixBuffer(BarcodeDecodeContext.MATRIX_FRAME, matrixSize));
 
     try {
-      BinaryBitmap bitmap = generateBitmapFromImageData(mImageData, mWidth, mHeight);
-      result = mMultiFormatReader.decodeWithState(bitmap);
+      result = decode(source, scale, left, top);
     } catch (NotFoundException e) {
-      BinaryBitmap bitmap = generateBitmapFromImageData(rotateImage(mImageData,mWidth, mHeight), mHeight, mWidth);
+      // Try again with the frame turned clockwise.  Points are reported in the turned frame,
+      // which is mHeight wide; the region's left edge there is its bottom edge here.
       try {
-        result = mMultiFormatReader.decodeWithState(bitmap);
+        int turnedLeft = mHeight - top - source.getHeight() * scale;
+        LuminanceSource turned = new RotatedLuminanceSource(source,
+            mDecodeContext.getMatrixBuffer(BarcodeDecodeContext.MATRIX_ROTATED, matrixSize),
+            mDecodeContext.getBandRows());
+        result = decode(turned, scale, turnedLeft, left);
       } catch (NotFoundException e1) {
         //no barcode Found
       }
@@ -53,35 +131,53 @@ public class BarCodeScannerAsyncTask extends android.os.AsyncTask<Void, Void, Re
 
     return result;
   }
-  private byte[] rotateImage(byte[]imageData,int width, int height) {
-    byte[] rotated = new byte[imageData.length];
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        rotated[x * height + height - y - 1] = imageData[x + y * width];
+
+  /**
+   * Decodes a source cut from the frame at ({@code left}, {@code top}) and shrunk by
+   * {@code scale}, and reports the result points in the frame's coordinates.
+   */
+  private Result[] decode(LuminanceSource source, int scale, int left, int top) throws NotFoundException {
+    Result[] results;
+    if (mMultiple) {
+      results = mDecodeContext.decodeMultiple(source, mHints);
+    } else {
+      results = new Result[] { mDecodeContext.decode(source, mHints) };
+    }
+    if (scale != 1 || left != 0 || top != 0) {
+      for (int i = 0; i < results.length; i++) {
+        results[i] = toFrame(results[i], scale, left, top);
       }
     }
-    return rotated;
+    return results;
   }
+
+  private static Result toFrame(Result result, int scale, int left, int top) {
+    ResultPoint[] points = result.getResultPoints();
+    ResultPoint[] framePoints = null;
+    if (points != null) {
+      framePoints = new ResultPoint[points.length];
+      for (int i = 0; i < points.length; i++) {
+        ResultPoint point = points[i];
+        framePoints[i] = point == null ? null :
+            new ResultPoint(left + point.getX() * scale, top + point.getY() * scale);
+      }
+    }
+    Result frameResult = new Result(result.getText(), result.getRawBytes(), framePoints,
+        result.getBarcodeFormat(), result.getTimestamp());
+    frameResult.putAllMetadata(result.getResultMetadata());
+    return frameResult;
+  }
+
   @Override
-  protected void onPostExecute(Result result) {
+  protected void onPostExecute(Result[] result) {
     super.onPostExecute(result);
     if (result != null) {
-      mDelegate.onBarCodeRead(result, mWidth, mHeight);
+      if (mMultiple) {
+        mDelegate.onBarCodesRead(result, mWidth, mHeight);
+      } else {
+        mDelegate.onBarCodeRead(result[0], mWidth, mHeight);
+      }
     }
     mDelegate.onBarCodeScanningTaskCompleted();
   }
-
-  private BinaryBitmap generateBitmapFromImageData(byte[] imageData, int width, int height) {
-    PlanarYUVLuminanceSource source = new PlanarYUVLuminanceSource(
-        imageData, // byte[] yuvData
-        width, // int dataWidth
-        height, // int dataHeight
-        0, // int left
-        0, // int top
-        width, // int width
-        height, // int height
-        false // boolean reverseHorizontal
-    );
-    return new BinaryBitmap(new HybridBinarizer(source));
-  }
 }
@@ -2,13 +2,15 @@ package org.reactnative.camera.tasks;
 
 import android.util.SparseArray;
 import com.google.android.gms.vision.barcode.Barcode;
+import org.reactnative.frame.PreviewFrame;
 import org.reactnative.frame.RNFrame;
 import org.reactnative.frame.RNFrameFactory;
 import org.reactnative.barcodedetector.RNBarcodeDetector;
 
 public class BarcodeDetectorAsyncTask extends android.os.AsyncTask<Void, Void, SparseArray<Barcode>> {
 
-  private byte[] mImageData;
+  private PreviewFrame mFrame;
+  private boolean mInvertLuminance;
   private int mWidth;
   private int mHeight;
   private int mRotation;
@@ -18,15 +20,14 @@ public class BarcodeDetectorAsyncTask extends android.os.AsyncTask<Void, Void, S
   public BarcodeDetectorAsyncTask(
       BarcodeDetectorAsyncTaskDelegate delegate,
       RNBarcodeDetector barcodeDetector,
-      byte[] imageData,
-      int width,
-      int height,
-      int rotation
+      PreviewFrame frame,
+      boolean invertLuminance
   ) {
-    mImageData = imageData;
-    mWidth = width;
-    mHeight = height;
-    mRotation = rotation;
+    mFrame = frame;
+    mInvertLuminance = invertLuminance;
+    mWidth = frame.getWidth();
+    mHeight = frame.getHeight();
+    mRotation = frame.getRotation();
     mDelegate = delegate;
     mBarcodeDetector = barcodeDetector;
   }
@@ -37,7 +38,8 @@ public class BarcodeDetectorAsyncTask extends android.os.AsyncTask<Void, Void, S
       return null;
     }
 
-    RNFrame frame = RNFrameFactory.buildFrame(mImageData, mWidth, mHeight, mRotation);
+    byte[] imageData = mInvertLuminance ? mFrame.getInvertedLuminance() : mFrame.getData();
+    RNFrame frame = RNFrameFactory.buildFrame(imageData, mWidth, mHeight, mRotation);
     return mBarcodeDetector.detect(frame);
   }
 
@@ -47,11 +49,9 @@ public class BarcodeDetectorAsyncTask extends android.os.AsyncTask<Void, Void, S
 
     if (barcodes == null) {
       mDelegate.onBarcodeDetectionError(mBarcodeDetector);
-    } else {
-      if (barcodes.size() > 0) {
-        mDelegate.onBarcodesDetected(barcodes, mWidth, mHeight, mRotation);
-      }
-      mDelegate.onBarcodeDetectingTaskCompleted();
+    } else if (barcodes.size() > 0) {
+      mDelegate.onBarcodesDetected(barcodes, mWidth, mHeight, mRotation);
     }
+    mDelegate.onBarcodeDetectingTaskCompleted();
   }
 }
@@ -0,0 +1,377 @@
+package org.reactnative.camera.tasks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands preview frames to a set of analyzers (barcode scanner, face detector, ...), each
+ * running on its own schedule on a shared, bounded pool of worker threads.
+ * <p>
+ * Each analyzer has a slot that holds at most one running analysis and one waiting frame.
+ * A frame submitted while the analyzer is busy replaces the waiting one, so a slow
+ * analyzer always picks up the newest frame when it finishes instead of working through a
+ * backlog, and it never holds up the others.  Each slot also has a {@link FrameRateGovernor}
+ * that times the analyses and spaces them out to fit a CPU budget and a maximum rate;
+ * frames arriving sooner than that are dropped.  Every slot counts what happened to the
+ * frames it was given.
+ * <p>
+ * Frames are reference counted: a slot retains every frame it keeps, running or waiting,
+ * and releases it once the analysis has finished or the frame has been replaced.
+ * <p>
+ * Thread-safe.
+ */
+public class FrameAnalysisDispatcher<F extends FrameAnalysisDispatcher.Frame> {
+
+  /**
+   * A reference-counted frame.
+   */
+  public interface Frame {
+    void retain();
+
+    void release();
+  }
+
+  /**
+   * A monotonic time source, replaceable so the scheduling can be run off-device.
+   */
+  public interface Clock {
+    long nanoTime();
+  }
+
+  private static final Clock SYSTEM_CLOCK = new Clock() {
+    @Override
+    public long nanoTime() {
+      return System.nanoTime();
+    }
+  };
+
+  /**
+   * Runs one analysis.
+   */
+  public interface Analyzer<F extends Frame> {
+    /**
+     * Starts analyzing {@code frame} on {@code executor}.  Called on whichever thread
+     * submitted the frame or finished the previous analysis.  When the analysis is done,
+     * successfully or not, {@link Slot#finished()} must be called exactly once.
+     */
+    void analyze(F frame, Executor executor);
+  }
+
+  private final ThreadPoolExecutor mExecutor;
+  private final Clock mClock;
+  private final List<Slot> mSlots = new ArrayList<>();
+  private int mPressure = FrameRateGovernor.PRESSURE_NONE;
+
+  /**
+   * @param workerCount Number of analyses that may run at once.
+   * @param maxAnalyzers Number of analyzers that will be added.  Sizes the work queue; each
+   *     analyzer has at most one analysis queued or running.
+   */
+  public FrameAnalysisDispatcher(int workerCount, int maxAnalyzers) {
+    this(workerCount, maxAnalyzers, SYSTEM_CLOCK);
+  }
+
+  public FrameAnalysisDispatcher(int workerCount, int maxAnalyzers, Clock clock) {
+    mClock = clock;
+    final AtomicInteger threadNumber = new AtomicInteger();
+    mExecutor = new ThreadPoolExecutor(workerCount, workerCount, 1, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<Runnable>(maxAnalyzers), new ThreadFactory() {
+          @Override
+          public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "FrameAnalysis-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+    mExecutor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Adds an analyzer.
+   *
+   * @param name Used in {@link Slot#toString()}.
+   */
+  public synchronized Slot addAnalyzer(String name, Analyzer<F> analyzer) {
+    Slot slot = new Slot(name, analyzer);
+    slot.setPressure(mPressure);
+    mSlots.add(slot);
+    return slot;
+  }
+
+  /**
+   * Slows every paced analyzer down when the device is hot or short on battery; see
+   * {@link FrameRateGovernor#isPacing()}.
+   *
+   * @param pressure One of the {@link FrameRateGovernor} PRESSURE_ levels.
+   */
+  public synchronized void setPressure(int pressure) {
+    mPressure = pressure;
+    for (Slot slot : mSlots) {
+      slot.setPressure(pressure);
+    }
+  }
+
+  public synchronized List<Slot> getSlots() {
+    return new ArrayList<>(mSlots);
+  }
+
+  /**
+   * Stops the worker threads.  Analyses already running are allowed to finish.
+   */
+  public void shutdown() {
+    mExecutor.shutdown();
+  }
+
+  @Override
+  public synchronized String toString() {
+    StringBuilder builder = new StringBuilder();
+    for (Slot slot : mSlots) {
+      if (builder.length() > 0) {
+        builder.append('\n');
+      }
+      builder.append(slot);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * One analyzer's schedule and statistics.
+   */
+  public final class Slot {
+    private final String mName;
+    private final Analyzer<F> mAnalyzer;
+    // Runs the analyzer's work on the shared pool, timing it for the governor.
+    private final Executor mTimedExecutor = new Executor() {
+      @Override
+      public void execute(final Runnable command) {
+        mExecutor.execute(new Runnable() {
+          @Override
+          public void run() {
+            long start = mClock.nanoTime();
+            try {
+              command.run();
+            } finally {
+              onWorkDone(mClock.nanoTime() - start);
+            }
+          }
+        });
+      }
+    };
+
+    // Guarded by the Slot.
+    private boolean mBusy;
+    private F mRunning;
+    private F mWaiting;
+    private final FrameRateGovernor mGovernor = new FrameRateGovernor();
+    private long mLastStartNanos;
+    private boolean mStarted;
+
+    private long mSubmittedCount;
+    private long mAnalyzedCount;
+    private long mReplacedCount;
+    private long mRateLimitedCount;
+
+    private Slot(String name, Analyzer<F> analyzer) {
+      mName = name;
+      mAnalyzer = analyzer;
+    }
+
+    public String getName() {
+      return mName;
+    }
+
+    /**
+     * Limits how often an analysis may start.
+     *
+     * @param fps Analyses per second, or 0 for no limit besides the CPU budget.
+     */
+    public synchronized void setTargetFps(float fps) {
+      mGovernor.setMaxFps(fps);
+    }
+
+    /**
+     * Sets the share of one worker thread the analyzer may keep busy; see
+     * {@link FrameRateGovernor#setCpuBudget}.
+     */
+    public synchronized void setCpuBudget(float budget) {
+      mGovernor.setCpuBudget(budget);
+    }
+
+    synchronized void setPressure(int pressure) {
+      mGovernor.setPressure(pressure);
+    }
+
+    /**
+     * Offers a frame to the analyzer.  Starts analyzing it right away if the analyzer is
+     * idle, keeps it for later if the analyzer is busy, and drops it if it comes too soon
+     * after the previous analysis started.
+     */
+    public void submit(F frame) {
+      F replaced = null;
+      boolean started = false;
+      synchronized (this) {
+        mSubmittedCount++;
+        if (mBusy) {
+          frame.retain();
+          if (mWaiting != null) {
+            mReplacedCount++;
+            replaced = mWaiting;
+          }
+          mWaiting = frame;
+        } else {
+          long now = mClock.nanoTime();
+          if (mStarted && now - mLastStartNanos < mGovernor.getMinIntervalNanos()) {
+            mRateLimitedCount++;
+            return;
+          }
+          frame.retain();
+          start(frame, now);
+          started = true;
+        }
+      }
+      if (replaced != null) {
+        replaced.release();
+      }
+      if (started) {
+        dispatch(frame);
+      }
+    }
+
+    /**
+     * Marks the current analysis as done, and starts on the waiting frame, if any.
+     */
+    public void finished() {
+      F done;
+      F next;
+      F dropped = null;
+      synchronized (this) {
+        mAnalyzedCount++;
+        done = mRunning;
+        mRunning = null;
+        next = mWaiting;
+        mWaiting = null;
+        long now = mClock.nanoTime();
+        if (next != null && now - mLastStartNanos < mGovernor.getMinIntervalNanos()) {
+          mRateLimitedCount++;
+          dropped = next;
+          next = null;
+        }
+        if (next == null) {
+          mBusy = false;
+        } else {
+          start(next, now);
+        }
+      }
+      if (done != null) {
+        done.release();
+      }
+      if (dropped != null) {
+        dropped.release();
+      }
+      if (next != null) {
+        dispatch(next);
+      }
+    }
+
+    /**
+     * Forgets the waiting frame.  Use when the analyzer is turned off.
+     */
+    public void clearWaiting() {
+      F waiting;
+      synchronized (this) {
+        waiting = mWaiting;
+        mWaiting = null;
+      }
+      if (waiting != null) {
+        waiting.release();
+      }
+    }
+
+    public synchronized boolean isBusy() {
+      return mBusy;
+    }
+
+    public synchronized long getSubmittedCount() {
+      return mSubmittedCount;
+    }
+
+    public synchronized long getAnalyzedCount() {
+      return mAnalyzedCount;
+    }
+
+    /**
+     * Returns the number of frames that were waiting when a newer one arrived.
+     */
+    public synchronized long getReplacedCount() {
+      return mReplacedCount;
+    }
+
+    /**
+     * Returns the number of frames dropped for arriving faster than the governor allows.
+     */
+    public synchronized long getRateLimitedCount() {
+      return mRateLimitedCount;
+    }
+
+    /**
+     * Returns the smoothed time the analyzer's work takes on a worker thread.
+     */
+    public synchronized long getAverageLatencyNanos() {
+      return mGovernor.getAverageLatencyNanos();
+    }
+
+    /**
+     * Returns the current minimum time between the starts of two analyses.
+     */
+    public synchronized long getMinIntervalNanos() {
+      return mGovernor.getMinIntervalNanos();
+    }
+
+    @Override
+    public synchronized String toString() {
+      return mName + ": submitted=" + mSubmittedCount + " analyzed=" + mAnalyzedCount +
+          " replaced=" + mReplacedCount + " rateLimited=" + mRateLimitedCount +
+          " latencyMs=" + mGovernor.getAverageLatencyNanos() / 1000000 +
+          " intervalMs=" + mGovernor.getMinIntervalNanos() / 1000000;
+    }
+
+    // The work may finish just after finished() was called, as AsyncTask hands its result
+    // to the main thread before returning; the sample then applies from the next frame on.
+    private synchronized void onWorkDone(long latencyNanos) {
+      mGovernor.onAnalysisFinished(latencyNanos);
+    }
+
+    private void dispatch(F frame) {
+      try {
+        mAnalyzer.analyze(frame, mTimedExecutor);
+      } catch (RejectedExecutionException e) {
+        // Shut down; nothing will call finished().
+        F waiting;
+        synchronized (this) {
+          mBusy = false;
+          mRunning = null;
+          waiting = mWaiting;
+          mWaiting = null;
+        }
+        frame.release();
+        if (waiting != null) {
+          waiting.release();
+        }
+      }
+    }
+
+    private void start(F frame, long now) {
+      mRunning = frame;
+      mBusy = true;
+      mStarted = true;
+      mLastStartNanos = now;
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package org.reactnative.camera.tasks;
+
+/**
+ * Decides how often one analyzer may start on a frame, from how long its analyses take.
+ * <p>
+ * The analysis time is smoothed with an exponentially weighted moving average, and the
+ * analyzer is spaced out so that it keeps a worker busy for at most its CPU budget: with a
+ * budget of 0.5, an analyzer that takes 200 ms gets a frame every 400 ms.  A maximum rate
+ * caps fast analyzers as well.  Under thermal or battery {@link #setPressure pressure}
+ * both limits are stretched further.
+ * <p>
+ * Pacing is opt-in: with the default budget of 1 and no maximum rate the analyzer may start
+ * on a new frame as soon as it's done with the last one, whatever the pressure.
+ * <p>
+ * Pure bookkeeping, fed with durations and reading no clock, so it behaves the same off the
+ * device.  Not thread-safe; {@link FrameAnalysisDispatcher} keeps one per slot under the
+ * slot's lock.
+ */
+public class FrameRateGovernor {
+  private static final long NANOS_PER_SECOND = 1000000000L;
+
+  public static final int PRESSURE_NONE = 0;
+  public static final int PRESSURE_MODERATE = 1;
+  public static final int PRESSURE_SEVERE = 2;
+
+  // How much the intervals are stretched at each pressure level.
+  private static final int[] PRESSURE_SLOWDOWN = {1, 2, 4};
+
+  // Weight of the newest sample in the average.  About the last ten analyses count, so one
+  // slow frame (a GC, a busy core) doesn't throttle the analyzer on its own.
+  private static final double LATENCY_WEIGHT = 0.2;
+
+  public static final float DEFAULT_CPU_BUDGET = 1;
+
+  private float mCpuBudget = DEFAULT_CPU_BUDGET;
+  private long mMaxFpsIntervalNanos;
+  private int mPressure = PRESSURE_NONE;
+  private double mAverageLatencyNanos;
+  private boolean mHasLatency;
+
+  /**
+   * @param budget Share of one worker the analyzer may keep busy, in (0, 1]; 1 lets it run
+   *     back to back.  Values outside that range are clamped.
+   */
+  public void setCpuBudget(float budget) {
+    mCpuBudget = budget <= 0 || budget > 1 ? 1 : budget;
+  }
+
+  public float getCpuBudget() {
+    return mCpuBudget;
+  }
+
+  /**
+   * @param fps Most analyses per second, or 0 for no limit besides the CPU budget.
+   */
+  public void setMaxFps(float fps) {
+    mMaxFpsIntervalNanos = fps > 0 ? (long) (NANOS_PER_SECOND / fps) : 0;
+  }
+
+  /**
+   * @param pressure {@link #PRESSURE_NONE}, {@link #PRESSURE_MODERATE} or
+   *     {@link #PRESSURE_SEVERE}.
+   */
+  public void setPressure(int pressure) {
+    mPressure = Math.max(PRESSURE_NONE, Math.min(PRESSURE_SEVERE, pressure));
+  }
+
+  public int getPressure() {
+    return mPressure;
+  }
+
+  /**
+   * Records how long an analysis took.
+   */
+  public void onAnalysisFinished(long latencyNanos) {
+    if (latencyNanos < 0) {
+      return;
+    }
+    if (mHasLatency) {
+      mAverageLatencyNanos += LATENCY_WEIGHT * (latencyNanos - mAverageLatencyNanos);
+    } else {
+      mAverageLatencyNanos = latencyNanos;
+      mHasLatency = true;
+    }
+  }
+
+  /**
+   * Returns the smoothed analysis time, or 0 before the first analysis.
+   */
+  public long getAverageLatencyNanos() {
+    return (long) mAverageLatencyNanos;
+  }
+
+  /**
+   * Returns whether the analyzer is being spaced out at all, i.e. it has a CPU budget below
+   * 1 or a maximum rate.
+   */
+  public boolean isPacing() {
+    return mCpuBudget < 1 || mMaxFpsIntervalNanos > 0;
+  }
+
+  /**
+   * Returns how long after an analysis started the next one may start; 0 when not
+   * {@link #isPacing() pacing}.
+   */
+  public long getMinIntervalNanos() {
+    if (!isPacing()) {
+      return 0;
+    }
+    long budgetInterval = (long) (mAverageLatencyNanos / mCpuBudget);
+    return Math.max(mMaxFpsIntervalNanos, budgetInterval) * PRESSURE_SLOWDOWN[mPressure];
+  }
+}
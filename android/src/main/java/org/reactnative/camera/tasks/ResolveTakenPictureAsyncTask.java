@@ -3,13 +3,15 @@ package org.reactnative.camera.tasks;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
-import android.graphics.Matrix;
 import android.net.Uri;
 import android.os.AsyncTask;
 import android.support.media.ExifInterface;
 import android.util.Base64;
 
 import org.reactnative.camera.RNCameraViewHelper;
+import org.reactnative.camera.utils.BitmapPool;
+import org.reactnative.camera.utils.BitmapUtils;
+import org.reactnative.camera.utils.ImageTransform;
 import org.reactnative.camera.utils.RNFileUtils;
 
 import com.facebook.react.bridge.Arguments;
@@ -79,9 +81,12 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
             return response;
         }
 
+        if (canKeepCapturedJpeg()) {
+            return resolveCapturedJpeg(response);
+        }
+
         // we need the stream only for photos from a device
         if (mBitmap == null) {
-            mBitmap = BitmapFactory.decodeByteArray(mImageData, 0, mImageData.length);
             inputStream = new ByteArrayInputStream(mImageData);
         }
 
@@ -91,18 +96,31 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
                 // Get orientation of the image from mImageData via inputStream
                 int orientation = exifInterface.getAttributeInt(ExifInterface.TAG_ORIENTATION,
                         ExifInterface.ORIENTATION_UNDEFINED);
+                boolean fixOrientation = mOptions.hasKey("fixOrientation") && mOptions.getBoolean("fixOrientation") && orientation != ExifInterface.ORIENTATION_UNDEFINED;
+                int rotation = fixOrientation ? getImageRotation(orientation) : 0;
+
+                mBitmap = decodeBitmap(rotation % 180 != 0);
 
-                // Rotate the bitmap to the proper orientation if needed
-                if (mOptions.hasKey("fixOrientation") && mOptions.getBoolean("fixOrientation") && orientation != ExifInterface.ORIENTATION_UNDEFINED) {
-                    mBitmap = rotateBitmap(mBitmap, getImageRotation(orientation));
+                // Rotate, resize and mirror the bitmap as needed, all in one pass
+                ImageTransform transform = new ImageTransform(mBitmap.getWidth(), mBitmap.getHeight());
+                if (fixOrientation) {
+                    transform.rotate(rotation);
                 }
 
                 if (mOptions.hasKey("width")) {
-                    mBitmap = resizeBitmap(mBitmap, mOptions.getInt("width"));
+                    int newWidth = mOptions.getInt("width");
+                    float scaleRatio = (float) newWidth / (float) transform.getWidth();
+                    transform.scale(newWidth, (int) (transform.getHeight() * scaleRatio));
                 }
 
                 if (mOptions.hasKey("mirrorImage") && mOptions.getBoolean("mirrorImage")) {
-                    mBitmap = flipHorizontally(mBitmap);
+                    transform.mirror();
+                }
+
+                Bitmap decoded = mBitmap;
+                mBitmap = BitmapUtils.transform(decoded, transform, BitmapPool.getInstance());
+                if (mBitmap != decoded) {
+                    BitmapPool.getInstance().put(decoded);
                 }
 
                 // Write Exif data to the response if requested
@@ -148,6 +166,9 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
             mPromise.reject(ERROR_TAG, "An unknown I/O exception has occurred.", e);
             e.printStackTrace();
         } finally {
+            // Whether or not the picture made it, its pixels can go to the next capture
+            BitmapPool.getInstance().put(mBitmap);
+            mBitmap = null;
             try {
                 if (inputStream != null) {
                     inputStream.close();
@@ -161,24 +182,97 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
         return null;
     }
 
-    private Bitmap rotateBitmap(Bitmap source, int angle) {
-        Matrix matrix = new Matrix();
-        matrix.postRotate(angle);
-        return Bitmap.createBitmap(source, 0, 0, source.getWidth(), source.getHeight(), matrix, true);
+    // With losslessOrientation, fixOrientation relies on the orientation the camera recorded
+    // in the EXIF data instead of rotating the pixels, so when nothing else needs the pixels
+    // either the captured JPEG is kept as it is.
+    private boolean canKeepCapturedJpeg() {
+        return mOptions.hasKey("fixOrientation") && mOptions.getBoolean("fixOrientation")
+                && mOptions.hasKey("losslessOrientation") && mOptions.getBoolean("losslessOrientation")
+                && !mOptions.hasKey("width")
+                && !(mOptions.hasKey("mirrorImage") && mOptions.getBoolean("mirrorImage"))
+                && getQuality() >= 100;
     }
 
-    private Bitmap resizeBitmap(Bitmap bm, int newWidth) {
-        int width = bm.getWidth();
-        int height = bm.getHeight();
-        float scaleRatio = (float) newWidth / (float) width;
+    // Resolves with the captured JPEG without decoding or re-encoding it; only its headers are read.
+    private WritableMap resolveCapturedJpeg(WritableMap response) {
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(mImageData);
+
+        try {
+            ExifInterface exifInterface = new ExifInterface(inputStream);
+            int orientation = exifInterface.getAttributeInt(ExifInterface.TAG_ORIENTATION,
+                    ExifInterface.ORIENTATION_UNDEFINED);
+
+            // Report the dimensions the picture is shown with, as if it had been rotated
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeByteArray(mImageData, 0, mImageData.length, options);
+            if (swapsDimensions(orientation)) {
+                response.putInt("width", options.outHeight);
+                response.putInt("height", options.outWidth);
+            } else {
+                response.putInt("width", options.outWidth);
+                response.putInt("height", options.outHeight);
+            }
+
+            if (mOptions.hasKey("exif") && mOptions.getBoolean("exif")) {
+                WritableMap exifData = RNCameraViewHelper.getExifData(exifInterface);
+                response.putMap("exif", exifData);
+            }
+
+            if (!mOptions.hasKey("doNotSave") || !mOptions.getBoolean("doNotSave")) {
+                String filePath = writeBytesToFile(mImageData);
+                File imageFile = new File(filePath);
+                String fileUri = Uri.fromFile(imageFile).toString();
+                response.putString("uri", fileUri);
+            }
+
+            if (mOptions.hasKey("base64") && mOptions.getBoolean("base64")) {
+                response.putString("base64", Base64.encodeToString(mImageData, Base64.NO_WRAP));
+            }
+
+            return response;
+        } catch (Resources.NotFoundException e) {
+            mPromise.reject(ERROR_TAG, "Documents directory of the app could not be found.", e);
+            e.printStackTrace();
+        } catch (IOException e) {
+            mPromise.reject(ERROR_TAG, "An unknown I/O exception has occurred.", e);
+            e.printStackTrace();
+        } finally {
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        return null;
+    }
 
-        return Bitmap.createScaledBitmap(bm, newWidth, (int) (height * scaleRatio), true);
+    // When a width is requested, decodes at the largest power-of-two subsample that is still
+    // at least that wide, so the full sensor resolution is never held just to be scaled down.
+    // The transform then scales to the exact width.  Pixels come from the bitmap pool when an
+    // earlier capture left a bitmap of the right size.
+    private Bitmap decodeBitmap(boolean rotated) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        if (mOptions.hasKey("width")) {
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeByteArray(mImageData, 0, mImageData.length, options);
+            int width = rotated ? options.outHeight : options.outWidth;
+            options.inSampleSize = getSampleSize(width, mOptions.getInt("width"));
+            options.inJustDecodeBounds = false;
+        }
+        return BitmapPool.getInstance().decodeByteArray(mImageData, options);
     }
 
-    private Bitmap flipHorizontally(Bitmap source) {
-        Matrix matrix = new Matrix();
-        matrix.preScale(-1.0f, 1.0f);
-        return Bitmap.createBitmap(source, 0, 0, source.getWidth(), source.getHeight(), matrix, true);
+    private static int getSampleSize(int width, int targetWidth) {
+        int sampleSize = 1;
+        if (targetWidth <= 0) {
+            return sampleSize;
+        }
+        while (width / (sampleSize * 2) >= targetWidth) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
     }
 
     // Get rotation degrees from Exif orientation enum
@@ -199,6 +293,47 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
         return rotationDegrees;
     }
 
+    private boolean swapsDimensions(int orientation) {
+        switch (orientation) {
+        case ExifInterface.ORIENTATION_ROTATE_90:
+        case ExifInterface.ORIENTATION_ROTATE_270:
+        case ExifInterface.ORIENTATION_TRANSPOSE:
+        case ExifInterface.ORIENTATION_TRANSVERSE:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    private String writeBytesToFile(byte[] data) throws IOException {
+        String outputPath = null;
+        IOException exception = null;
+        FileOutputStream outputStream = null;
+
+        try {
+            outputPath = RNFileUtils.getOutputFilePath(mCacheDirectory, ".jpg");
+            outputStream = new FileOutputStream(outputPath);
+            outputStream.write(data);
+        } catch (IOException e) {
+            e.printStackTrace();
+            exception = e;
+        } finally {
+            try {
+                if (outputStream != null) {
+                    outputStream.close();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        if (exception != null) {
+            throw exception;
+        }
+
+        return outputPath;
+    }
+
     private String writeStreamToFile(ByteArrayOutputStream inputStream) throws IOException {
         String outputPath = null;
         IOException exception = null;
@@ -0,0 +1,141 @@
+package org.reactnative.camera.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+
+/**
+ * Bitmaps released after a capture has been processed, for the next capture to decode and
+ * draw into instead of allocating new pixels.
+ * <p>
+ * Bitmaps are reused for the same size and config only, so on every API level a pooled
+ * bitmap fits a decode exactly.  The pool holds at most an eighth of the heap, or one
+ * bitmap of the largest size released since it was last cleared, whichever is more: a 12MP
+ * capture is 48MB, more than an eighth of a typical 256MB heap, so a fixed budget would
+ * never keep one.  It doesn't grow past a quarter of the heap.
+ */
+public class BitmapPool {
+  private static BitmapPool sInstance;
+
+  private final BucketedPool<Bitmap> mPool;
+  private final long mMinBytes;
+  private final long mLimitBytes;
+
+  public static synchronized BitmapPool getInstance() {
+    if (sInstance == null) {
+      long maxMemory = Runtime.getRuntime().maxMemory();
+      sInstance = new BitmapPool(maxMemory / 8, maxMemory / 4);
+    }
+    return sInstance;
+  }
+
+  public BitmapPool(long maxBytes) {
+    this(maxBytes, maxBytes);
+  }
+
+  /**
+   * @param maxBytes Budget of the pool when it's created or cleared.
+   * @param limitBytes What the budget may grow to, to hold one bitmap bigger than it.
+   */
+  public BitmapPool(long maxBytes, long limitBytes) {
+    mMinBytes = maxBytes;
+    mLimitBytes = Math.max(maxBytes, limitBytes);
+    mPool = new BucketedPool<>(maxBytes, new BucketedPool.Adapter<Bitmap>() {
+      @Override
+      public Object getBucket(Bitmap bitmap) {
+        return getBucketKey(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+      }
+
+      @Override
+      public long getByteCount(Bitmap bitmap) {
+        return bitmap.getByteCount();
+      }
+
+      @Override
+      public void onEvicted(Bitmap bitmap) {
+        bitmap.recycle();
+      }
+    });
+  }
+
+  /**
+   * Returns a pooled bitmap of exactly this size and config, with undefined contents, or
+   * null if there is none.
+   */
+  public Bitmap get(int width, int height, Bitmap.Config config) {
+    return mPool.take(getBucketKey(width, height, config));
+  }
+
+  /**
+   * Returns a bitmap of this size and config, pooled or new, cleared to transparent.
+   */
+  public Bitmap getCleared(int width, int height, Bitmap.Config config) {
+    Bitmap bitmap = get(width, height, config);
+    if (bitmap == null) {
+      return Bitmap.createBitmap(width, height, config);
+    }
+    bitmap.eraseColor(0);
+    return bitmap;
+  }
+
+  /**
+   * Hands {@code bitmap} to the pool; the caller must not use it afterwards.  Bitmaps that
+   * can't be drawn or decoded into are ignored.
+   */
+  public void put(Bitmap bitmap) {
+    if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable() || bitmap.getConfig() == null) {
+      return;
+    }
+    long byteCount = bitmap.getByteCount();
+    synchronized (this) {
+      if (byteCount > mPool.getMaxByteCount() && byteCount <= mLimitBytes) {
+        mPool.setMaxByteCount(byteCount);
+      }
+    }
+    mPool.release(bitmap);
+  }
+
+  /**
+   * Recycles every pooled bitmap, and goes back to the initial budget.
+   */
+  public synchronized void clear() {
+    mPool.clear();
+    mPool.setMaxByteCount(mMinBytes);
+  }
+
+  /**
+   * Decodes a JPEG or PNG into a pooled bitmap when there is one of the right size, like
+   * {@link BitmapFactory#decodeByteArray(byte[], int, int, BitmapFactory.Options)}.  The
+   * result is mutable, so it can go back to the pool.
+   */
+  public Bitmap decodeByteArray(byte[] data, BitmapFactory.Options options) {
+    // The size after inSampleSize
+    options.inJustDecodeBounds = true;
+    BitmapFactory.decodeByteArray(data, 0, data.length, options);
+    options.inJustDecodeBounds = false;
+    options.inMutable = true;
+
+    // Before KitKat a bitmap can only be decoded into without subsampling.
+    if (options.outWidth > 0 && options.outHeight > 0 &&
+        (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT || options.inSampleSize <= 1)) {
+      Bitmap.Config config = options.inPreferredConfig != null ? options.inPreferredConfig : Bitmap.Config.ARGB_8888;
+      options.inBitmap = get(options.outWidth, options.outHeight, config);
+    }
+
+    try {
+      return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+    } catch (IllegalArgumentException e) {
+      // The decoder wouldn't take the pooled bitmap after all; it is still intact.
+      if (options.inBitmap == null) {
+        throw e;
+      }
+      put(options.inBitmap);
+      options.inBitmap = null;
+      return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+    }
+  }
+
+  private static String getBucketKey(int width, int height, Bitmap.Config config) {
+    return width + "x" + height + " " + config;
+  }
+}
@@ -0,0 +1,36 @@
+package org.reactnative.camera.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+
+public class BitmapUtils {
+  /**
+   * Renders {@code source} through {@code transform} into a bitmap of the transform's size
+   * from {@code pool}, in one pass.  Returns {@code source} itself when the transform changes
+   * nothing.
+   */
+  public static Bitmap transform(Bitmap source, ImageTransform transform, BitmapPool pool) {
+    if (transform.isIdentity()) {
+      return source;
+    }
+
+    float[] values = new float[9];
+    transform.getValues(values);
+    Matrix matrix = new Matrix();
+    matrix.setValues(values);
+
+    Bitmap.Config config = source.getConfig() != null ? source.getConfig() : Bitmap.Config.ARGB_8888;
+    Bitmap output = pool.getCleared(transform.getWidth(), transform.getHeight(), config);
+    output.setHasAlpha(source.hasAlpha());
+    output.setDensity(source.getDensity());
+
+    Paint paint = new Paint();
+    paint.setFilterBitmap(transform.isScaling());
+    Canvas canvas = new Canvas(output);
+    canvas.drawBitmap(source, matrix, paint);
+    canvas.setBitmap(null);
+    return output;
+  }
+}
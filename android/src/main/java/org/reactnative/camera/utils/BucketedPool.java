@@ -0,0 +1,119 @@
+package org.reactnative.camera.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps released items, e.g. bitmaps, for reuse by later requests for the same bucket (for
+ * bitmaps: the same size and config).
+ * <p>
+ * The items held are capped by their total byte count; beyond that the least recently
+ * released are evicted.  Only the bookkeeping lives here; what a bucket is, how big an item
+ * is and how it is disposed of come from the {@link Adapter}, so this works without Android.
+ * <p>
+ * Thread-safe.  Pools hold a handful of large items, so lookups are linear scans.
+ */
+public class BucketedPool<T> {
+  public interface Adapter<T> {
+    /**
+     * Returns the bucket of {@code item}; items are only reused for requests whose bucket
+     * is {@link Object#equals equal}.
+     */
+    Object getBucket(T item);
+
+    long getByteCount(T item);
+
+    /**
+     * Called for items that leave the pool other than by {@link #take}.
+     */
+    void onEvicted(T item);
+  }
+
+  private final Adapter<T> mAdapter;
+  private long mMaxBytes;
+  // Least recently released first.
+  private final List<T> mItems = new ArrayList<>();
+  private long mBytes;
+
+  public BucketedPool(long maxBytes, Adapter<T> adapter) {
+    mMaxBytes = maxBytes;
+    mAdapter = adapter;
+  }
+
+  /**
+   * Removes and returns the most recently released item in {@code bucket}, or null.
+   */
+  public synchronized T take(Object bucket) {
+    for (int i = mItems.size() - 1; i >= 0; i--) {
+      T item = mItems.get(i);
+      if (mAdapter.getBucket(item).equals(bucket)) {
+        mItems.remove(i);
+        mBytes -= mAdapter.getByteCount(item);
+        return item;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Holds {@code item} for reuse, evicting the least recently released items if the pool
+   * goes over its byte budget.  An item larger than the whole budget is evicted right away.
+   * Releasing an item the pool already holds does nothing.
+   */
+  public synchronized void release(T item) {
+    for (T held : mItems) {
+      if (held == item) {
+        return;
+      }
+    }
+    long byteCount = mAdapter.getByteCount(item);
+    if (byteCount > mMaxBytes) {
+      // Holding it would push everything else out.
+      mAdapter.onEvicted(item);
+      return;
+    }
+    mItems.add(item);
+    mBytes += byteCount;
+    while (mBytes > mMaxBytes && !mItems.isEmpty()) {
+      evict(0);
+    }
+  }
+
+  /**
+   * Evicts everything.
+   */
+  public synchronized void clear() {
+    while (!mItems.isEmpty()) {
+      evict(mItems.size() - 1);
+    }
+  }
+
+  public synchronized int size() {
+    return mItems.size();
+  }
+
+  public synchronized long getByteCount() {
+    return mBytes;
+  }
+
+  public synchronized long getMaxByteCount() {
+    return mMaxBytes;
+  }
+
+  /**
+   * Changes the byte budget, evicting the least recently released items if the pool is now
+   * over it.
+   */
+  public synchronized void setMaxByteCount(long maxBytes) {
+    mMaxBytes = maxBytes;
+    while (mBytes > mMaxBytes && !mItems.isEmpty()) {
+      evict(0);
+    }
+  }
+
+  private void evict(int index) {
+    T item = mItems.remove(index);
+    mBytes -= mAdapter.getByteCount(item);
+    mAdapter.onEvicted(item);
+  }
+}
@@ -0,0 +1,122 @@
+package org.reactnative.camera.utils;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.PowerManager;
+
+import org.reactnative.camera.tasks.FrameRateGovernor;
+
+/**
+ * Watches the battery and power saving mode, and reports how much background work the
+ * device can take as one of the {@link FrameRateGovernor} pressure levels.
+ * <p>
+ * The battery temperature stands in for the device's thermal state, which has no API
+ * before Android 10.  Callbacks arrive on the main thread.
+ */
+public class DevicePressureMonitor {
+  public interface Listener {
+    void onPressureChanged(int pressure);
+  }
+
+  // Battery temperatures, in tenths of a degree Celsius, at which phones commonly start
+  // and then step up their own thermal throttling.
+  private static final int WARM_BATTERY_TEMPERATURE = 400;
+  private static final int HOT_BATTERY_TEMPERATURE = 450;
+  private static final int LOW_BATTERY_PERCENT = 15;
+  private static final int CRITICAL_BATTERY_PERCENT = 5;
+
+  private final Context mContext;
+  private final Listener mListener;
+  private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+    @Override
+    public void onReceive(Context context, Intent intent) {
+      if (Intent.ACTION_BATTERY_CHANGED.equals(intent.getAction())) {
+        readBattery(intent);
+      }
+      update();
+    }
+  };
+
+  private boolean mStarted;
+  private int mBatteryTemperature;
+  private int mBatteryPercent = 100;
+  private boolean mCharging;
+  private int mPressure = FrameRateGovernor.PRESSURE_NONE;
+
+  public DevicePressureMonitor(Context context, Listener listener) {
+    mContext = context.getApplicationContext();
+    mListener = listener;
+  }
+
+  public void start() {
+    if (mStarted) {
+      return;
+    }
+    mStarted = true;
+    IntentFilter filter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+      filter.addAction(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED);
+    }
+    // The battery broadcast is sticky, so the current state comes back right away.
+    Intent battery = mContext.registerReceiver(mReceiver, filter);
+    if (battery != null) {
+      readBattery(battery);
+    }
+    update();
+  }
+
+  public void stop() {
+    if (!mStarted) {
+      return;
+    }
+    mStarted = false;
+    mContext.unregisterReceiver(mReceiver);
+  }
+
+  public int getPressure() {
+    return mPressure;
+  }
+
+  /**
+   * Maps the device's state to a pressure level.
+   *
+   * @param batteryTemperature In tenths of a degree Celsius.
+   */
+  public static int getPressure(int batteryTemperature, int batteryPercent, boolean charging,
+                                boolean powerSaveMode) {
+    if (batteryTemperature >= HOT_BATTERY_TEMPERATURE ||
+        (!charging && batteryPercent <= CRITICAL_BATTERY_PERCENT)) {
+      return FrameRateGovernor.PRESSURE_SEVERE;
+    }
+    if (batteryTemperature >= WARM_BATTERY_TEMPERATURE || powerSaveMode ||
+        (!charging && batteryPercent <= LOW_BATTERY_PERCENT)) {
+      return FrameRateGovernor.PRESSURE_MODERATE;
+    }
+    return FrameRateGovernor.PRESSURE_NONE;
+  }
+
+  private void readBattery(Intent battery) {
+    mBatteryTemperature = battery.getIntExtra(BatteryManager.EXTRA_TEMPERATURE, 0);
+    int level = battery.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+    int scale = battery.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+    mBatteryPercent = level >= 0 && scale > 0 ? level * 100 / scale : 100;
+    mCharging = battery.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+  }
+
+  private void update() {
+    boolean powerSaveMode = false;
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+      PowerManager powerManager = (PowerManager) mContext.getSystemService(Context.POWER_SERVICE);
+      powerSaveMode = powerManager != null && powerManager.isPowerSaveMode();
+    }
+    int pressure = getPressure(mBatteryTemperature, mBatteryPercent, mCharging, powerSaveMode);
+    if (pressure != mPressure) {
+      mPressure = pressure;
+      mListener.onPressureChanged(pressure);
+    }
+  }
+}
@@ -0,0 +1,158 @@
+package org.reactnative.camera.utils;
+
+/**
+ * A chain of picture edits (quarter-turn rotations, mirroring, scaling and cropping) folded
+ * into one affine transform, so that the picture can be rendered once instead of once per
+ * edit.
+ * <p>
+ * Each edit applies to the picture as left by the previous ones, exactly like a
+ * {@code Bitmap.createBitmap} / {@code createScaledBitmap} call on its result would, and
+ * {@link #getWidth()} / {@link #getHeight()} follow along.  The transform maps source pixel
+ * coordinates to output ones; everything that lands outside the output size is cropped.
+ * <p>
+ * Pure arithmetic with no Android types; {@link BitmapUtils#transform} renders it.
+ */
+public class ImageTransform {
+  private final int mSourceWidth;
+  private final int mSourceHeight;
+  private int mWidth;
+  private int mHeight;
+
+  // x' = mScaleX * x + mSkewX * y + mTransX
+  // y' = mSkewY * x + mScaleY * y + mTransY
+  private float mScaleX = 1;
+  private float mSkewX;
+  private float mTransX;
+  private float mSkewY;
+  private float mScaleY = 1;
+  private float mTransY;
+
+  public ImageTransform(int sourceWidth, int sourceHeight) {
+    mSourceWidth = sourceWidth;
+    mSourceHeight = sourceHeight;
+    mWidth = sourceWidth;
+    mHeight = sourceHeight;
+  }
+
+  public int getWidth() {
+    return mWidth;
+  }
+
+  public int getHeight() {
+    return mHeight;
+  }
+
+  /**
+   * Rotates the picture clockwise.
+   *
+   * @param degrees A multiple of 90.
+   */
+  public ImageTransform rotate(int degrees) {
+    int width = mWidth;
+    int height = mHeight;
+    switch (((degrees % 360) + 360) % 360) {
+      case 0:
+        break;
+      case 90:
+        postConcat(0, -1, height, 1, 0, 0);
+        mWidth = height;
+        mHeight = width;
+        break;
+      case 180:
+        postConcat(-1, 0, width, 0, -1, height);
+        break;
+      case 270:
+        postConcat(0, 1, 0, -1, 0, width);
+        mWidth = height;
+        mHeight = width;
+        break;
+      default:
+        throw new IllegalArgumentException("Rotation must be a multiple of 90 degrees: " + degrees);
+    }
+    return this;
+  }
+
+  /**
+   * Flips the picture left to right.
+   */
+  public ImageTransform mirror() {
+    postConcat(-1, 0, mWidth, 0, 1, 0);
+    return this;
+  }
+
+  /**
+   * Scales the picture to exactly {@code width} by {@code height}.
+   */
+  public ImageTransform scale(int width, int height) {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Size must be positive: " + width + "x" + height);
+    }
+    postConcat((float) width / mWidth, 0, 0, 0, (float) height / mHeight, 0);
+    mWidth = width;
+    mHeight = height;
+    return this;
+  }
+
+  /**
+   * Keeps the {@code width} by {@code height} area at {@code x}, {@code y}.
+   */
+  public ImageTransform crop(int x, int y, int width, int height) {
+    if (x < 0 || y < 0 || width <= 0 || height <= 0 || x + width > mWidth || y + height > mHeight) {
+      throw new IllegalArgumentException("Crop " + width + "x" + height + " at " + x + "," + y +
+          " is outside the " + mWidth + "x" + mHeight + " picture");
+    }
+    postConcat(1, 0, -x, 0, 1, -y);
+    mWidth = width;
+    mHeight = height;
+    return this;
+  }
+
+  /**
+   * Returns whether rendering would give back the source unchanged.
+   */
+  public boolean isIdentity() {
+    return mScaleX == 1 && mSkewX == 0 && mTransX == 0 && mSkewY == 0 && mScaleY == 1 && mTransY == 0 &&
+        mWidth == mSourceWidth && mHeight == mSourceHeight;
+  }
+
+  /**
+   * Returns whether source pixels are stretched or shrunk, rather than only moved, so
+   * rendering should filter.
+   */
+  public boolean isScaling() {
+    // Quarter turns leave one of each pair 0 and the other 1 or -1.
+    return Math.abs(mScaleX) + Math.abs(mSkewX) != 1 || Math.abs(mSkewY) + Math.abs(mScaleY) != 1;
+  }
+
+  /**
+   * Copies the transform into {@code values} in the order of
+   * {@code android.graphics.Matrix#setValues}.
+   */
+  public void getValues(float[] values) {
+    values[0] = mScaleX;
+    values[1] = mSkewX;
+    values[2] = mTransX;
+    values[3] = mSkewY;
+    values[4] = mScaleY;
+    values[5] = mTransY;
+    values[6] = 0;
+    values[7] = 0;
+    values[8] = 1;
+  }
+
+  // Applies (x, y) -> (a * x + b * y + c, d * x + e * y + f) after the current transform.
+  private void postConcat(float a, float b, float c, float d, float e, float f) {
+    float scaleX = a * mScaleX + b * mSkewY;
+    float skewX = a * mSkewX + b * mScaleY;
+    float transX = a * mTransX + b * mTransY + c;
+    float skewY = d * mScaleX + e * mSkewY;
+    float scaleY = d * mSkewX + e * mScaleY;
+    float transY = d * mTransX + e * mTransY + f;
+    mScaleX = scaleX;
+    mSkewX = skewX;
+    mTransX = transX;
+    mSkewY = skewY;
+    mScaleY = scaleY;
+    mTransY = transY;
+  }
+}
@@ -59,6 +59,42 @@ public class FaceDetectorUtils {
     return encodedFace;
   }
 
+  /**
+   * Serializes a face moved to where a {@link FaceTracker} predicts it to be.  Probabilities
+   * come from the detected face as they are; landmarks move and scale along with the box.
+   */
+  public static WritableMap serializeFace(Face face, float[] state, double scaleX, double scaleY) {
+    WritableMap encodedFace = serializeFace(face, scaleX, scaleY);
+    encodedFace.putDouble("rollAngle", state[FaceTracker.ROLL]);
+    encodedFace.putDouble("yawAngle", state[FaceTracker.YAW]);
+
+    PointF position = face.getPosition();
+    float landmarkScaleX = face.getWidth() > 0 ? state[FaceTracker.WIDTH] / face.getWidth() : 1;
+    float landmarkScaleY = face.getHeight() > 0 ? state[FaceTracker.HEIGHT] / face.getHeight() : 1;
+    for(Landmark landmark : face.getLandmarks()) {
+      PointF moved = new PointF(
+          state[FaceTracker.X] + (landmark.getPosition().x - position.x) * landmarkScaleX,
+          state[FaceTracker.Y] + (landmark.getPosition().y - position.y) * landmarkScaleY);
+      encodedFace.putMap(landmarkNames[landmark.getType()], mapFromPoint(moved, scaleX, scaleY));
+    }
+
+    WritableMap origin = Arguments.createMap();
+    origin.putDouble("x", state[FaceTracker.X] * scaleX);
+    origin.putDouble("y", state[FaceTracker.Y] * scaleY);
+
+    WritableMap size = Arguments.createMap();
+    size.putDouble("width", state[FaceTracker.WIDTH] * scaleX);
+    size.putDouble("height", state[FaceTracker.HEIGHT] * scaleY);
+
+    WritableMap bounds = Arguments.createMap();
+    bounds.putMap("origin", origin);
+    bounds.putMap("size", size);
+
+    encodedFace.putMap("bounds", bounds);
+
+    return encodedFace;
+  }
+
   public static WritableMap rotateFaceX(WritableMap face, int sourceWidth, double scaleX) {
     ReadableMap faceBounds = face.getMap("bounds");
 
@@ -0,0 +1,185 @@
+package org.reactnative.facedetector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Follows faces between detector runs, so their boxes can be moved on every preview frame
+ * instead of only when the (much slower) detector reports.
+ * <p>
+ * Each face, keyed by the detector's tracking id, has a constant-velocity model of its
+ * position, size and angles.  Detections are blended in with an alpha-beta filter (the
+ * steady-state form of a Kalman filter for that model), and {@link #predict} extrapolates
+ * from the last detection to the time of the frame being shown, up to
+ * {@link #MAX_PREDICTION_NANOS} ahead.  A face is forgotten as soon as a detection no
+ * longer contains it.
+ * <p>
+ * Times are the capture times of the frames, in nanoseconds from any monotonic clock.
+ * Thread-safe: detections and predictions usually come from different threads.
+ *
+ * @param <T> Whatever the caller wants to keep with each face, e.g. the detected face.
+ */
+public class FaceTracker<T> {
+  public static final int X = 0;
+  public static final int Y = 1;
+  public static final int WIDTH = 2;
+  public static final int HEIGHT = 3;
+  public static final int ROLL = 4;
+  public static final int YAW = 5;
+  public static final int STATE_SIZE = 6;
+
+  // How far past the last detection a face is moved; beyond that it is held still, so a
+  // stalled detector doesn't send boxes flying off the screen.
+  public static final long MAX_PREDICTION_NANOS = 300000000L;
+
+  // Share of the error between prediction and detection taken into the position (ALPHA)
+  // and the velocity (BETA).  Detections are trusted a lot, so boxes land where the face
+  // was actually found; the velocity is smoothed more, since it comes from a difference.
+  private static final float ALPHA = 0.85f;
+  private static final float BETA = 0.4f;
+
+  private static final float NANOS_PER_SECOND = 1e9f;
+
+  /**
+   * A face's predicted state at some time.
+   */
+  public static final class Estimate<T> {
+    public final int id;
+    public final T face;
+    /** Indexed by {@link #X}, {@link #Y}, ... */
+    public final float[] state;
+
+    Estimate(int id, T face, float[] state) {
+      this.id = id;
+      this.face = face;
+      this.state = state;
+    }
+  }
+
+  private static final class Track<T> {
+    final int id;
+    T face;
+    long timeNanos;
+    final float[] state = new float[STATE_SIZE];
+    // Per second.
+    final float[] velocity = new float[STATE_SIZE];
+    long updateGeneration;
+
+    Track(int id) {
+      this.id = id;
+    }
+  }
+
+  private final List<Track<T>> mTracks = new ArrayList<>();
+  private long mGeneration;
+  private long mUpdateTimeNanos;
+
+  /**
+   * Starts taking in the faces found in the frame captured at {@code timeNanos}.  Follow
+   * with {@link #observe} for each face and {@link #endUpdate()}.
+   */
+  public synchronized void beginUpdate(long timeNanos) {
+    mGeneration++;
+    mUpdateTimeNanos = timeNanos;
+  }
+
+  /**
+   * Takes in one detected face.
+   *
+   * @param state The detected position, size and angles, indexed by {@link #X}, {@link #Y},
+   *     ...  Angles are in degrees.
+   */
+  public synchronized void observe(int id, T face, float[] state) {
+    Track<T> track = find(id);
+    long timeNanos = mUpdateTimeNanos;
+    if (track == null) {
+      track = new Track<>(id);
+      System.arraycopy(state, 0, track.state, 0, STATE_SIZE);
+      mTracks.add(track);
+    } else if (timeNanos > track.timeNanos) {
+      float dt = (timeNanos - track.timeNanos) / NANOS_PER_SECOND;
+      for (int i = 0; i < STATE_SIZE; i++) {
+        float predicted = track.state[i] + track.velocity[i] * dt;
+        float error = difference(i, state[i], predicted);
+        track.state[i] = normalize(i, predicted + ALPHA * error);
+        track.velocity[i] += BETA * error / dt;
+      }
+    } else {
+      // Same or older frame than the last detection; nothing to learn about velocity.
+      System.arraycopy(state, 0, track.state, 0, STATE_SIZE);
+    }
+    track.face = face;
+    track.timeNanos = Math.max(track.timeNanos, timeNanos);
+    track.updateGeneration = mGeneration;
+  }
+
+  /**
+   * Forgets the faces that weren't in this update.
+   */
+  public synchronized void endUpdate() {
+    for (int i = mTracks.size() - 1; i >= 0; i--) {
+      if (mTracks.get(i).updateGeneration != mGeneration) {
+        mTracks.remove(i);
+      }
+    }
+  }
+
+  public synchronized void clear() {
+    mTracks.clear();
+  }
+
+  public synchronized int size() {
+    return mTracks.size();
+  }
+
+  /**
+   * Returns where every tracked face should be in the frame captured at {@code timeNanos}.
+   */
+  public synchronized List<Estimate<T>> predict(long timeNanos) {
+    List<Estimate<T>> estimates = new ArrayList<>(mTracks.size());
+    for (Track<T> track : mTracks) {
+      long ahead = Math.max(0, Math.min(MAX_PREDICTION_NANOS, timeNanos - track.timeNanos));
+      float dt = ahead / NANOS_PER_SECOND;
+      float[] state = new float[STATE_SIZE];
+      for (int i = 0; i < STATE_SIZE; i++) {
+        state[i] = normalize(i, track.state[i] + track.velocity[i] * dt);
+      }
+      // A shrinking face must not turn inside out.
+      state[WIDTH] = Math.max(0, state[WIDTH]);
+      state[HEIGHT] = Math.max(0, state[HEIGHT]);
+      estimates.add(new Estimate<>(track.id, track.face, state));
+    }
+    return estimates;
+  }
+
+  private Track<T> find(int id) {
+    for (Track<T> track : mTracks) {
+      if (track.id == id) {
+        return track;
+      }
+    }
+    return null;
+  }
+
+  // Angles go the short way round, so a roll from 179 to -179 degrees is 2 degrees.
+  private static float difference(int index, float a, float b) {
+    return isAngle(index) ? normalize(index, a - b) : a - b;
+  }
+
+  private static float normalize(int index, float value) {
+    if (!isAngle(index)) {
+      return value;
+    }
+    value %= 360;
+    if (value > 180) {
+      value -= 360;
+    } else if (value <= -180) {
+      value += 360;
+    }
+    return value;
+  }
+
+  private static boolean isAngle(int index) {
+    return index == ROLL || index == YAW;
+  }
+}
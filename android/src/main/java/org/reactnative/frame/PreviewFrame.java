@@ -0,0 +1,124 @@
+package org.reactnative.frame;
+
+import org.reactnative.camera.tasks.FrameAnalysisDispatcher;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An NV21 camera preview frame, shared by every analyzer that looks at it.
+ * <p>
+ * Analyzers must treat the data as read-only.  The data lives in a camera buffer that is
+ * reused once the frame has been released, so anyone keeping the frame must hold a
+ * reference to it.  The creator holds the first one.
+ * <p>
+ * Analyzers that want the frame in some other form ask for a derived view, which is built
+ * the first time it's asked for and then shared, rather than changing the data in place
+ * under everyone else's feet.
+ */
+public class PreviewFrame implements FrameAnalysisDispatcher.Frame {
+  /**
+   * Told when the last reference to a frame is dropped.
+   */
+  public interface Owner {
+    void onFrameReleased(PreviewFrame frame);
+  }
+
+  private final byte[] mData;
+  private final int mWidth;
+  private final int mHeight;
+  private final int mRotation;
+  private final long mTimestampNanos;
+  private final Owner mOwner;
+  private final AtomicInteger mRefs = new AtomicInteger(1);
+
+  // Lazily built by getInvertedLuminance(); handed back to sSpareInverted on release.
+  private byte[] mInverted;
+
+  // One spare inverted buffer, so alternating frames don't each allocate one.
+  private static final AtomicReference<byte[]> sSpareInverted = new AtomicReference<>();
+
+  /**
+   * @param timestampNanos When the frame arrived, from {@link System#nanoTime()}.
+   */
+  public PreviewFrame(byte[] data, int width, int height, int rotation, long timestampNanos, Owner owner) {
+    mData = data;
+    mWidth = width;
+    mHeight = height;
+    mRotation = rotation;
+    mTimestampNanos = timestampNanos;
+    mOwner = owner;
+  }
+
+  public byte[] getData() {
+    return mData;
+  }
+
+  public int getWidth() {
+    return mWidth;
+  }
+
+  public int getHeight() {
+    return mHeight;
+  }
+
+  /**
+   * Rotation to apply to the frame to make it upright, in degrees.
+   */
+  public int getRotation() {
+    return mRotation;
+  }
+
+  public long getTimestampNanos() {
+    return mTimestampNanos;
+  }
+
+  /**
+   * Returns an NV21 image with the luminance of this frame inverted, for finding
+   * light-on-dark codes.  Only the Y plane is computed; the chroma plane is neutral grey,
+   * which is all a luminance-only detector looks at.
+   * <p>
+   * Built on first use and shared by every caller.  Valid until the frame is released.
+   */
+  public synchronized byte[] getInvertedLuminance() {
+    if (mInverted == null) {
+      int lumaSize = mWidth * mHeight;
+      byte[] inverted = sSpareInverted.getAndSet(null);
+      if (inverted == null || inverted.length != mData.length) {
+        inverted = new byte[mData.length];
+        Arrays.fill(inverted, lumaSize, inverted.length, (byte) 128);
+      }
+      for (int i = 0; i < lumaSize; i++) {
+        inverted[i] = (byte) ~mData[i];
+      }
+      mInverted = inverted;
+    }
+    return mInverted;
+  }
+
+  @Override
+  public void retain() {
+    if (mRefs.getAndIncrement() <= 0) {
+      throw new IllegalStateException("frame already released");
+    }
+  }
+
+  @Override
+  public void release() {
+    int refs = mRefs.decrementAndGet();
+    if (refs == 0) {
+      synchronized (this) {
+        if (mInverted != null) {
+          sSpareInverted.set(mInverted);
+          mInverted = null;
+        }
+      }
+      if (mOwner != null) {
+        mOwner.onFrameReleased(this);
+      }
+    } else if (refs < 0) {
+      throw new IllegalStateException("frame released too many times");
+    }
+  }
+}
@@ -0,0 +1,167 @@
+package com.google.android.cameraview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PreviewBufferPoolTest {
+    // Stands in for the camera's callback buffer queue.
+    private final List<byte[]> mQueued = Collections.synchronizedList(new ArrayList<byte[]>());
+    private PreviewBufferPool mPool;
+
+    @Before
+    public void setUp() {
+        mPool = new PreviewBufferPool(new PreviewBufferPool.Recycler() {
+            @Override
+            public void recycle(byte[] buffer) {
+                mQueued.add(buffer);
+            }
+        });
+    }
+
+    // What the camera does: hand back its oldest queued buffer, filled.
+    private byte[] fill() {
+        byte[] buffer = mQueued.remove(0);
+        assertTrue(mPool.onBufferFilled(buffer));
+        return buffer;
+    }
+
+    @Test
+    public void resetQueuesEveryBuffer() {
+        mPool.reset(3, 16);
+        assertEquals(3, mQueued.size());
+        assertEquals(3, mPool.getBufferCount());
+        assertEquals(3, mPool.getQueuedCount());
+        for (byte[] buffer : mQueued) {
+            assertEquals(16, buffer.length);
+        }
+    }
+
+    @Test
+    public void releasingTheDeliveryRequeues() {
+        mPool.reset(2, 16);
+        byte[] buffer = fill();
+        assertEquals(1, mPool.getQueuedCount());
+        mPool.release(buffer);
+        assertEquals(2, mPool.getQueuedCount());
+        assertSame(buffer, mQueued.get(mQueued.size() - 1));
+    }
+
+    @Test
+    public void requeuedOnlyAfterTheLastRelease() {
+        mPool.reset(2, 16);
+        byte[] buffer = fill();
+        mPool.retain(buffer);
+        mPool.retain(buffer);
+
+        // The delivery's reference goes first, then the holders', in any order.
+        mPool.release(buffer);
+        assertEquals(1, mQueued.size());
+        mPool.release(buffer);
+        assertEquals(1, mQueued.size());
+        assertEquals(1, mPool.getQueuedCount());
+        mPool.release(buffer);
+        assertEquals(2, mQueued.size());
+        assertEquals(2, mPool.getQueuedCount());
+        assertSame(buffer, mQueued.get(1));
+    }
+
+    @Test
+    public void extraReleasesAreIgnored() {
+        mPool.reset(1, 16);
+        byte[] buffer = fill();
+        mPool.release(buffer);
+        mPool.release(buffer);
+        assertEquals(1, mQueued.size());
+        // Retaining a queued buffer doesn't hold it either.
+        mPool.retain(buffer);
+        mPool.release(buffer);
+        assertEquals(1, mQueued.size());
+    }
+
+    @Test
+    public void unknownBuffersAreIgnored() {
+        mPool.reset(1, 16);
+        byte[] stranger = new byte[16];
+        assertFalse(mPool.onBufferFilled(stranger));
+        mPool.retain(stranger);
+        mPool.release(stranger);
+        assertEquals(1, mQueued.size());
+        assertNotSame(stranger, mQueued.get(0));
+    }
+
+    @Test
+    public void resetKeepsHeldBuffersUntilReleased() {
+        mPool.reset(2, 16);
+        byte[] held = fill();
+        mQueued.clear();
+
+        // The camera's queue was cleared; only the idle buffer is queued again.
+        mPool.reset(2, 16);
+        assertEquals(1, mQueued.size());
+        assertNotSame(held, mQueued.get(0));
+        mPool.release(held);
+        assertEquals(2, mQueued.size());
+        assertSame(held, mQueued.get(1));
+    }
+
+    @Test
+    public void resizeForgetsHeldBuffers() {
+        mPool.reset(2, 16);
+        byte[] held = fill();
+        mQueued.clear();
+
+        mPool.reset(2, 32);
+        assertEquals(2, mQueued.size());
+        assertEquals(32, mQueued.get(0).length);
+        mPool.release(held);
+        assertEquals(2, mQueued.size());
+        assertEquals(2, mPool.getBufferCount());
+    }
+
+    @Test
+    public void concurrentHoldersRequeueOnce() throws InterruptedException {
+        mPool.reset(1, 16);
+        for (int round = 0; round < 200; round++) {
+            final byte[] buffer = fill();
+            Thread[] holders = new Thread[4];
+            for (int i = 0; i < holders.length; i++) {
+                mPool.retain(buffer);
+                holders[i] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        mPool.release(buffer);
+                    }
+                });
+            }
+            for (Thread holder : holders) {
+                holder.start();
+            }
+            mPool.release(buffer);
+            for (Thread holder : holders) {
+                holder.join();
+            }
+            assertEquals(1, mQueued.size());
+        }
+    }
+
+    @Test
+    public void clearDropsHeldBuffers() {
+        mPool.reset(2, 16);
+        byte[] held = fill();
+        mPool.clear();
+        assertEquals(0, mPool.getBufferCount());
+        mPool.release(held);
+        assertEquals(1, mQueued.size());
+        assertFalse(mPool.onBufferFilled(mQueued.get(0)));
+    }
+}
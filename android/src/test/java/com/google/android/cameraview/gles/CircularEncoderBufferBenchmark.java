@@ -0,0 +1,152 @@
+package com.google.android.cameraview.gles;
+
+import android.media.MediaCodec;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving a wrapped 60 second encoder buffer, the way EncoderThread.saveVideoRange() feeds the
+ * muxer: reusing one scratch buffer for packets split across the end of the data buffer,
+ * against a fresh direct buffer for each of them as before.  Run with {@link #main}, from
+ * the test classpath, and compare the directBuffers and directBytes counters with the
+ * number of saves.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CircularEncoderBufferBenchmark {
+    private static final int FRAME_RATE = 30;
+    private static final int SPAN_SEC = 60;
+
+    @Param({"2000000", "6000000"})
+    public int bitRate;
+
+    private CircularEncoderBuffer mBuffer;
+    private CircularEncoderBuffer.RangeIterator mPackets;
+    private final MediaCodec.BufferInfo mInfo = new MediaCodec.BufferInfo();
+    private int mDataBufferSize;
+
+    // The last scratch buffer getChunk() returned; a different one means it allocated.
+    private ByteBuffer mLastScratch;
+
+    /**
+     * Direct buffers allocated while saving.  The JVM's own direct pool counters can't be
+     * used, since they go down again whenever a collection frees an old buffer.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class DirectAllocations {
+        public long saves;
+        public long directBuffers;
+        public long directBytes;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            saves = directBuffers = directBytes = 0;
+        }
+
+        void allocated(ByteBuffer buffer) {
+            directBuffers++;
+            directBytes += buffer.capacity();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        mDataBufferSize = bitRate * SPAN_SEC / 8;
+        mBuffer = new CircularEncoderBuffer(bitRate, FRAME_RATE, SPAN_SEC);
+        mPackets = mBuffer.rangeIterator(Long.MIN_VALUE, Long.MAX_VALUE);
+
+        // Varying packet sizes around the bit rate, with a bigger sync frame every second.
+        Random random = new Random(1);
+        int meanSize = bitRate / 8 / FRAME_RATE;
+        ByteBuffer packet = ByteBuffer.allocate(meanSize * 3);
+        long ptsUsec = 0;
+        for (int frame = 0; frame < FRAME_RATE * SPAN_SEC * 2 || !hasSplitPacket(); frame++) {
+            boolean sync = frame % FRAME_RATE == 0;
+            int size = sync ? meanSize * 3 : meanSize / 2 + random.nextInt(meanSize);
+            packet.clear();
+            packet.limit(size);
+            mBuffer.add(packet, sync ? MediaCodec.BUFFER_FLAG_SYNC_FRAME : 0, ptsUsec);
+            ptsUsec += 1000000 / FRAME_RATE;
+        }
+    }
+
+    private boolean hasSplitPacket() {
+        mPackets.reset(Long.MIN_VALUE, Long.MAX_VALUE);
+        while (mPackets.hasNext()) {
+            if (isSplit(mBuffer.getChunk(mPackets.next(), mInfo))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Packets that fit are returned in the data buffer's own wrapper.
+    private boolean isSplit(ByteBuffer chunk) {
+        return chunk.capacity() != mDataBufferSize;
+    }
+
+    @Benchmark
+    public void scratchBuffer(DirectAllocations allocations, Blackhole blackhole) {
+        mPackets.reset(Long.MIN_VALUE, Long.MAX_VALUE);
+        while (mPackets.hasNext()) {
+            ByteBuffer chunk = mBuffer.getChunk(mPackets.next(), mInfo);
+            if (isSplit(chunk) && chunk != mLastScratch) {
+                allocations.allocated(chunk);
+                mLastScratch = chunk;
+            }
+            // Stands in for MediaMuxer.writeSampleData() reading the packet.
+            blackhole.consume(chunk.get(mInfo.offset + mInfo.size - 1));
+        }
+        allocations.saves++;
+    }
+
+    @Benchmark
+    public void directBufferPerSplitPacket(DirectAllocations allocations, Blackhole blackhole) {
+        mPackets.reset(Long.MIN_VALUE, Long.MAX_VALUE);
+        while (mPackets.hasNext()) {
+            ByteBuffer chunk = mBuffer.getChunk(mPackets.next(), mInfo);
+            if (isSplit(chunk)) {
+                // What getChunk() used to do with a split packet.
+                ByteBuffer copy = ByteBuffer.allocateDirect(mInfo.size);
+                chunk.position(0);
+                chunk.limit(mInfo.size);
+                copy.put(chunk);
+                allocations.allocated(copy);
+                chunk = copy;
+            }
+            blackhole.consume(chunk.get(mInfo.offset + mInfo.size - 1));
+        }
+        allocations.saves++;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CircularEncoderBufferBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,254 @@
+package com.google.android.cameraview.gles;
+
+import android.media.MediaCodec;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CircularEncoderBufferTest {
+    private static final int SYNC = MediaCodec.BUFFER_FLAG_SYNC_FRAME;
+
+    // 100 bytes of data and 20 meta-data slots, or 128 and 32 rounded up.
+    private static CircularEncoderBuffer newBuffer(boolean powerOfTwo) {
+        return new CircularEncoderBuffer(800, 10, 1, powerOfTwo);
+    }
+
+    // Packets are filled with their presentation time, so getChunk() can be checked too.
+    private static void add(CircularEncoderBuffer buffer, long ptsUsec, int flags, int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (ptsUsec + i);
+        }
+        buffer.add(ByteBuffer.wrap(data), flags, ptsUsec);
+    }
+
+    private static long pts(CircularEncoderBuffer buffer, int index) {
+        MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+        buffer.getChunk(index, info);
+        return info.presentationTimeUs;
+    }
+
+    private static List<Long> iterate(CircularEncoderBuffer buffer, long startUsec, long endUsec) {
+        List<Long> times = new ArrayList<>();
+        CircularEncoderBuffer.RangeIterator iterator = buffer.rangeIterator(startUsec, endUsec);
+        while (iterator.hasNext()) {
+            times.add(pts(buffer, iterator.next()));
+        }
+        return times;
+    }
+
+    private static List<Long> list(long... times) {
+        List<Long> list = new ArrayList<>();
+        for (long time : times) {
+            list.add(time);
+        }
+        return list;
+    }
+
+    @Test
+    public void emptyBufferHasNoSyncFrames() {
+        CircularEncoderBuffer buffer = newBuffer(false);
+        assertEquals(-1, buffer.getFirstIndex());
+        assertEquals(-1, buffer.findSyncAtOrBefore(Long.MAX_VALUE));
+        assertFalse(buffer.rangeIterator(Long.MIN_VALUE, Long.MAX_VALUE).hasNext());
+    }
+
+    @Test
+    public void findSyncAtOrBefore() {
+        CircularEncoderBuffer buffer = newBuffer(false);
+        add(buffer, 10, 0, 4);
+        add(buffer, 20, SYNC, 4);
+        add(buffer, 30, 0, 4);
+        add(buffer, 40, SYNC, 4);
+        add(buffer, 50, 0, 4);
+        assertEquals(-1, buffer.findSyncAtOrBefore(19));
+        assertEquals(20, pts(buffer, buffer.findSyncAtOrBefore(20)));
+        assertEquals(20, pts(buffer, buffer.findSyncAtOrBefore(39)));
+        assertEquals(40, pts(buffer, buffer.findSyncAtOrBefore(40)));
+        assertEquals(40, pts(buffer, buffer.findSyncAtOrBefore(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void rangeIteratorStartsAtASyncFrame() {
+        CircularEncoderBuffer buffer = newBuffer(false);
+        add(buffer, 10, 0, 4);
+        add(buffer, 20, SYNC, 4);
+        add(buffer, 30, 0, 4);
+        add(buffer, 40, SYNC, 4);
+        add(buffer, 50, 0, 4);
+        assertEquals(list(20, 30, 40), iterate(buffer, 35, 40));
+        assertEquals(list(40, 50), iterate(buffer, 45, Long.MAX_VALUE));
+        // Older than anything buffered: from the oldest sync frame.
+        assertEquals(list(20, 30), iterate(buffer, 0, 30));
+        assertEquals(list(), iterate(buffer, 20, 19));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void rangeIteratorPastTheEnd() {
+        CircularEncoderBuffer buffer = newBuffer(false);
+        add(buffer, 10, SYNC, 4);
+        CircularEncoderBuffer.RangeIterator iterator = buffer.rangeIterator(10, 10);
+        iterator.next();
+        iterator.next();
+    }
+
+    @Test
+    public void rangeIteratorReset() {
+        CircularEncoderBuffer buffer = newBuffer(false);
+        add(buffer, 10, SYNC, 4);
+        add(buffer, 20, 0, 4);
+        CircularEncoderBuffer.RangeIterator iterator = buffer.rangeIterator(10, 10);
+        assertEquals(10, pts(buffer, iterator.next()));
+        assertFalse(iterator.hasNext());
+        iterator.reset(20, 20);
+        assertEquals(10, pts(buffer, iterator.next()));
+        assertEquals(20, pts(buffer, iterator.next()));
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void evictedSyncFramesLeaveTheIndex() {
+        CircularEncoderBuffer buffer = newBuffer(false);
+        add(buffer, 0, SYNC, 10);
+        for (int i = 1; i < 19; i++) {
+            add(buffer, i, 0, 1);
+        }
+        assertEquals(0, pts(buffer, buffer.getFirstIndex()));
+        // Fills the meta-data, so the sync frame goes.
+        add(buffer, 19, 0, 1);
+        assertEquals(-1, buffer.getFirstIndex());
+        assertEquals(-1, buffer.findSyncAtOrBefore(Long.MAX_VALUE));
+        assertFalse(buffer.rangeIterator(0, Long.MAX_VALUE).hasNext());
+
+        add(buffer, 20, SYNC, 1);
+        assertEquals(20, pts(buffer, buffer.getFirstIndex()));
+    }
+
+    @Test
+    public void matchesALinearScanAcrossWraparound() {
+        matchesALinearScan(false);
+    }
+
+    @Test
+    public void matchesALinearScanAcrossWraparoundWithMasks() {
+        matchesALinearScan(true);
+    }
+
+    @Test
+    public void masksMatchTheDefaultWrapping() {
+        Random random = new Random(5);
+        CircularEncoderBuffer wrapped = newBuffer(false);
+        CircularEncoderBuffer masked = newBuffer(true);
+        MediaCodec.BufferInfo wrappedInfo = new MediaCodec.BufferInfo();
+        MediaCodec.BufferInfo maskedInfo = new MediaCodec.BufferInfo();
+        long pts = 0;
+        for (int n = 0; n < 5000; n++) {
+            pts += 1 + random.nextInt(3);
+            int flags = random.nextInt(4) == 0 ? SYNC : 0;
+            int size = 1 + random.nextInt(30);
+            add(wrapped, pts, flags, size);
+            add(masked, pts, flags, size);
+
+            // The masked buffer is bigger, so it holds at least the packets the other one does.
+            List<Long> wrappedHeld = iterate(wrapped, Long.MIN_VALUE, Long.MAX_VALUE);
+            List<Long> maskedHeld = iterate(masked, Long.MIN_VALUE, Long.MAX_VALUE);
+            assertTrue(maskedHeld.size() >= wrappedHeld.size());
+            assertEquals(wrappedHeld, maskedHeld.subList(maskedHeld.size() - wrappedHeld.size(),
+                    maskedHeld.size()));
+
+            // Where both still hold the sync frame a save would start at, they save the same
+            // packets with the same data.
+            long start = pts - random.nextInt(60);
+            long end = start + random.nextInt(30);
+            if (wrapped.findSyncAtOrBefore(start) < 0) {
+                continue;
+            }
+            CircularEncoderBuffer.RangeIterator wrappedRange = wrapped.rangeIterator(start, end);
+            CircularEncoderBuffer.RangeIterator maskedRange = masked.rangeIterator(start, end);
+            while (wrappedRange.hasNext()) {
+                assertTrue(maskedRange.hasNext());
+                ByteBuffer wrappedChunk = wrapped.getChunk(wrappedRange.next(), wrappedInfo);
+                ByteBuffer maskedChunk = masked.getChunk(maskedRange.next(), maskedInfo);
+                assertEquals(wrappedInfo.presentationTimeUs, maskedInfo.presentationTimeUs);
+                assertEquals(wrappedInfo.flags, maskedInfo.flags);
+                assertEquals(wrappedInfo.size, maskedInfo.size);
+                for (int b = 0; b < wrappedInfo.size; b++) {
+                    assertEquals(wrappedChunk.get(wrappedInfo.offset + b),
+                            maskedChunk.get(maskedInfo.offset + b));
+                }
+            }
+            assertFalse(maskedRange.hasNext());
+        }
+    }
+
+    private static void matchesALinearScan(boolean powerOfTwo) {
+        Random random = new Random(11);
+        CircularEncoderBuffer buffer = newBuffer(powerOfTwo);
+        List<Long> added = new ArrayList<>();
+        List<Boolean> addedSync = new ArrayList<>();
+        MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+        long pts = 0;
+        for (int n = 0; n < 5000; n++) {
+            pts += 1 + random.nextInt(3);
+            boolean sync = random.nextInt(4) == 0;
+            int size = 1 + random.nextInt(30);
+            add(buffer, pts, sync ? SYNC : 0, size);
+            added.add(pts);
+            addedSync.add(sync);
+
+            // Whatever is held from the oldest sync frame on must be the tail of what was
+            // added, with the right data, and the sync index must list exactly its sync frames.
+            List<Long> held = new ArrayList<>();
+            List<Long> syncs = new ArrayList<>();
+            for (int i = buffer.getFirstIndex(); i >= 0; i = buffer.getNextIndex(i)) {
+                ByteBuffer chunk = buffer.getChunk(i, info);
+                for (int b = 0; b < info.size; b++) {
+                    assertEquals((byte) (info.presentationTimeUs + b), chunk.get(info.offset + b));
+                }
+                held.add(info.presentationTimeUs);
+                if ((info.flags & SYNC) != 0) {
+                    syncs.add(info.presentationTimeUs);
+                }
+            }
+            int first = added.size() - held.size();
+            assertEquals(added.subList(first, added.size()), held);
+            if (!held.isEmpty()) {
+                assertTrue(addedSync.get(first));
+            }
+            assertTrue(held.size() < (powerOfTwo ? 32 : 20));
+
+            long start = pts - random.nextInt(60);
+            long end = start + random.nextInt(30);
+            Long expectedSync = null;
+            for (long t : syncs) {
+                if (t <= start) {
+                    expectedSync = t;
+                }
+            }
+            int found = buffer.findSyncAtOrBefore(start);
+            if (expectedSync == null) {
+                assertEquals(-1, found);
+            } else {
+                assertEquals((long) expectedSync, pts(buffer, found));
+            }
+
+            long from = expectedSync != null ? expectedSync : syncs.isEmpty() ? Long.MAX_VALUE : syncs.get(0);
+            List<Long> expected = new ArrayList<>();
+            for (long t : held) {
+                if (t >= from && t <= end) {
+                    expected.add(t);
+                }
+            }
+            assertEquals(expected, iterate(buffer, start, end));
+        }
+    }
+}
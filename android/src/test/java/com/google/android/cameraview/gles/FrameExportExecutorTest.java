@@ -0,0 +1,229 @@
+package com.google.android.cameraview.gles;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FrameExportExecutorTest {
+    private FrameExportExecutor mExecutor;
+
+    // Records what happened to it.
+    private static class TestJob extends FrameExportExecutor.Job {
+        final CountDownLatch ran = new CountDownLatch(1);
+        volatile boolean dropped;
+
+        @Override
+        public void run() {
+            ran.countDown();
+        }
+
+        @Override
+        protected void onDropped() {
+            dropped = true;
+        }
+    }
+
+    // Keeps the worker busy until released.
+    private static class BlockingJob extends TestJob {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void run() {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            super.run();
+        }
+    }
+
+    // Starts a single worker and keeps it busy, so later jobs stay queued.
+    private BlockingJob occupyWorker(int queueDepth, FrameExportExecutor.DropPolicy policy)
+            throws InterruptedException {
+        mExecutor = new FrameExportExecutor(1, queueDepth, policy);
+        BlockingJob blocker = new BlockingJob();
+        mExecutor.execute(blocker);
+        assertTrue(blocker.started.await(5, TimeUnit.SECONDS));
+        return blocker;
+    }
+
+    private static List<TestJob> jobs(int count) {
+        List<TestJob> jobs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            jobs.add(new TestJob());
+        }
+        return jobs;
+    }
+
+    private static void assertRan(TestJob job) throws InterruptedException {
+        assertTrue(job.ran.await(5, TimeUnit.SECONDS));
+        assertFalse(job.dropped);
+    }
+
+    @After
+    public void tearDown() {
+        if (mExecutor != null) {
+            mExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void dropOldestKeepsTheNewestJobs() throws InterruptedException {
+        BlockingJob blocker = occupyWorker(2, FrameExportExecutor.DropPolicy.DROP_OLDEST);
+        List<TestJob> jobs = jobs(4);
+        for (TestJob job : jobs) {
+            mExecutor.execute(job);
+        }
+        assertTrue(jobs.get(0).dropped);
+        assertTrue(jobs.get(1).dropped);
+        assertFalse(mExecutor.dropIfSaturated());
+
+        blocker.release.countDown();
+        assertRan(jobs.get(2));
+        assertRan(jobs.get(3));
+        assertEquals(5, mExecutor.getSubmittedCount());
+        assertEquals(2, mExecutor.getDroppedCount());
+    }
+
+    @Test
+    public void dropNewestKeepsTheOldestJobs() throws InterruptedException {
+        BlockingJob blocker = occupyWorker(2, FrameExportExecutor.DropPolicy.DROP_NEWEST);
+        List<TestJob> jobs = jobs(3);
+        for (TestJob job : jobs) {
+            mExecutor.execute(job);
+        }
+        assertTrue(jobs.get(2).dropped);
+        assertTrue(mExecutor.dropIfSaturated());
+
+        blocker.release.countDown();
+        assertRan(jobs.get(0));
+        assertRan(jobs.get(1));
+        assertEquals(5, mExecutor.getSubmittedCount());
+        assertEquals(2, mExecutor.getDroppedCount());
+    }
+
+    @Test
+    public void blockWaitsForRoom() throws InterruptedException {
+        final BlockingJob blocker = occupyWorker(1, FrameExportExecutor.DropPolicy.BLOCK);
+        TestJob queued = new TestJob();
+        mExecutor.execute(queued);
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ie) {
+                    // fall through
+                }
+                blocker.release.countDown();
+            }
+        }).start();
+
+        TestJob waiting = new TestJob();
+        mExecutor.execute(waiting);
+        assertEquals(0, blocker.ran.getCount());
+        assertRan(queued);
+        assertRan(waiting);
+        assertEquals(0, mExecutor.getDroppedCount());
+    }
+
+    @Test
+    public void deeperQueueHoldsMoreJobs() throws InterruptedException {
+        BlockingJob blocker = occupyWorker(1, FrameExportExecutor.DropPolicy.DROP_NEWEST);
+        mExecutor.setQueueDepth(3);
+        List<TestJob> jobs = jobs(4);
+        for (TestJob job : jobs) {
+            mExecutor.execute(job);
+        }
+        assertTrue(jobs.get(3).dropped);
+
+        mExecutor.setDropPolicy(FrameExportExecutor.DropPolicy.DROP_OLDEST);
+        TestJob newest = new TestJob();
+        mExecutor.execute(newest);
+        assertTrue(jobs.get(0).dropped);
+
+        blocker.release.countDown();
+        assertRan(jobs.get(1));
+        assertRan(jobs.get(2));
+        assertRan(newest);
+    }
+
+    @Test
+    public void shutdownDropsQueuedAndLaterJobs() throws InterruptedException {
+        BlockingJob blocker = occupyWorker(2, FrameExportExecutor.DropPolicy.DROP_OLDEST);
+        TestJob queued = new TestJob();
+        mExecutor.execute(queued);
+        mExecutor.shutdown();
+        assertTrue(mExecutor.isShutdown());
+        assertTrue(queued.dropped);
+
+        TestJob late = new TestJob();
+        mExecutor.execute(late);
+        assertTrue(late.dropped);
+        assertTrue(mExecutor.dropIfSaturated());
+
+        // The running job still finishes.
+        blocker.release.countDown();
+        assertTrue(blocker.ran.await(5, TimeUnit.SECONDS));
+        assertEquals(1, queued.ran.getCount());
+        assertEquals(1, late.ran.getCount());
+    }
+
+    @Test
+    public void shutdownReleasesABlockedSubmitter() throws InterruptedException {
+        occupyWorker(1, FrameExportExecutor.DropPolicy.BLOCK);
+        mExecutor.execute(new TestJob());
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ie) {
+                    // fall through
+                }
+                mExecutor.shutdown();
+            }
+        }).start();
+
+        TestJob waiting = new TestJob();
+        mExecutor.execute(waiting);
+        assertTrue(waiting.dropped);
+    }
+
+    @Test
+    public void submitsRacingShutdownAreAllAccountedFor() throws InterruptedException {
+        for (int round = 0; round < 50; round++) {
+            final FrameExportExecutor executor =
+                    new FrameExportExecutor(2, 4, FrameExportExecutor.DropPolicy.DROP_OLDEST);
+            final List<TestJob> jobs = jobs(200);
+            Thread submitter = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (TestJob job : jobs) {
+                        executor.execute(job);
+                    }
+                }
+            });
+            submitter.start();
+            executor.shutdown();
+            submitter.join();
+
+            // Every job either ran or was dropped; none is left stranded in the queue.
+            for (TestJob job : jobs) {
+                assertTrue(job.dropped || job.ran.await(5, TimeUnit.SECONDS));
+            }
+            assertEquals(200, executor.getSubmittedCount());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.google.android.cameraview.gles;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class FrameTransformTest {
+    // Texture coordinates of the drawn corners: bottom left, bottom right, top left, top right.
+    private static final float[][] CORNERS = {{0, 0}, {1, 0}, {0, 1}, {1, 1}};
+
+    // Applies a column-major 4x4 matrix to (u, v, 0, 1).
+    private static float[] apply(float[] m, float[] uv) {
+        return new float[] {
+                m[0] * uv[0] + m[4] * uv[1] + m[12],
+                m[1] * uv[0] + m[5] * uv[1] + m[13]};
+    }
+
+    private static float[] orientation(int rotationDegrees, boolean mirror) {
+        float[] m = new float[16];
+        FrameTransform.getOrientation(rotationDegrees, mirror, m);
+        return m;
+    }
+
+    // Checks where each drawn corner samples the texture, in CORNERS order.
+    private static void assertCorners(int rotationDegrees, boolean mirror, float[]... expected) {
+        float[] m = orientation(rotationDegrees, mirror);
+        for (int i = 0; i < CORNERS.length; i++) {
+            assertArrayEquals(rotationDegrees + (mirror ? " mirrored" : "") + " corner " + i,
+                    expected[i], apply(m, CORNERS[i]), 0);
+        }
+    }
+
+    @Test
+    public void rotations() {
+        assertCorners(0, false, new float[] {0, 0}, new float[] {1, 0}, new float[] {0, 1}, new float[] {1, 1});
+        assertCorners(90, false, new float[] {1, 0}, new float[] {1, 1}, new float[] {0, 0}, new float[] {0, 1});
+        assertCorners(180, false, new float[] {1, 1}, new float[] {0, 1}, new float[] {1, 0}, new float[] {0, 0});
+        assertCorners(270, false, new float[] {0, 1}, new float[] {0, 0}, new float[] {1, 1}, new float[] {1, 0});
+    }
+
+    @Test
+    public void mirroredRotations() {
+        assertCorners(0, true, new float[] {1, 0}, new float[] {0, 0}, new float[] {1, 1}, new float[] {0, 1});
+        assertCorners(90, true, new float[] {1, 1}, new float[] {1, 0}, new float[] {0, 1}, new float[] {0, 0});
+        // The vertical flip used for readback.
+        assertCorners(180, true, new float[] {0, 1}, new float[] {1, 1}, new float[] {0, 0}, new float[] {1, 0});
+        assertCorners(270, true, new float[] {0, 0}, new float[] {0, 1}, new float[] {1, 0}, new float[] {1, 1});
+    }
+
+    @Test
+    public void centerStaysPut() {
+        for (int rotation = 0; rotation < 360; rotation += 90) {
+            for (boolean mirror : new boolean[] {false, true}) {
+                assertArrayEquals(new float[] {0.5f, 0.5f},
+                        apply(orientation(rotation, mirror), new float[] {0.5f, 0.5f}), 0);
+            }
+        }
+    }
+
+    @Test
+    public void orientationIsAppliedBeforeTheTextureTransform() {
+        // A typical SurfaceTexture transform: flip vertically.
+        float[] texMatrix = {
+                1, 0, 0, 0,
+                0, -1, 0, 0,
+                0, 0, 1, 0,
+                0, 1, 0, 1};
+        float[] combined = new float[16];
+        FrameTransform.multiply(texMatrix, orientation(90, false), combined);
+        for (float[] corner : CORNERS) {
+            float[] expected = apply(texMatrix, apply(orientation(90, false), corner));
+            assertArrayEquals(expected, apply(combined, corner), 0);
+        }
+        // Bottom left samples (1, 0) before the flip, so (1, 1) after it.
+        assertArrayEquals(new float[] {1, 1}, apply(combined, CORNERS[0]), 0);
+    }
+
+    @Test
+    public void multiplyByIdentity() {
+        float[] identity = orientation(0, false);
+        float[] m = orientation(270, true);
+        float[] out = new float[16];
+        FrameTransform.multiply(identity, m, out);
+        assertArrayEquals(m, out, 0);
+        FrameTransform.multiply(m, identity, out);
+        assertArrayEquals(m, out, 0);
+        assertEquals(1, out[15], 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rotationNotAQuarterTurn() {
+        FrameTransform.getOrientation(45, false, new float[16]);
+    }
+}
@@ -0,0 +1,126 @@
+package com.google.android.cameraview.gles;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ReadbackRingTest {
+    // What FrameExporter does each frame: finish the oldest readback if every slot is busy,
+    // then start the new one.
+    private static String exportFrame(ReadbackRing<String> ring, String frame) {
+        String finished = ring.isFull() ? ring.finishOldest() : null;
+        ring.begin(frame);
+        return finished;
+    }
+
+    @Test
+    public void fillsBeforeReadingAnything() {
+        ReadbackRing<String> ring = new ReadbackRing<>(3);
+        assertFalse(ring.hasPending());
+        assertEquals(0, ring.begin("a"));
+        assertEquals(1, ring.begin("b"));
+        assertFalse(ring.isFull());
+        assertEquals(2, ring.begin("c"));
+        assertTrue(ring.isFull());
+        assertTrue(ring.hasPending());
+        assertEquals(0, ring.getOldestSlot());
+    }
+
+    @Test
+    public void framesComeOutTheLagLate() {
+        ReadbackRing<String> ring = new ReadbackRing<>(3);
+        assertEquals(2, ring.getFrameLag());
+        List<String> finished = new ArrayList<>();
+        for (int frame = 0; frame < 10; frame++) {
+            String done = exportFrame(ring, "frame " + frame);
+            if (frame <= ring.getFrameLag()) {
+                assertNull(done);
+            } else {
+                // Read while the frame getFrameLag() later is being started.
+                assertEquals("frame " + (frame - ring.getFrameLag() - 1), done);
+                finished.add(done);
+            }
+        }
+        assertEquals(7, finished.size());
+    }
+
+    @Test
+    public void slotsWrapAround() {
+        ReadbackRing<String> ring = new ReadbackRing<>(2);
+        ring.begin("a");
+        ring.begin("b");
+        for (int frame = 0; frame < 7; frame++) {
+            int oldest = ring.getOldestSlot();
+            assertEquals(frame % 2, oldest);
+            ring.finishOldest();
+            // The freed slot is the one the next readback goes in.
+            assertEquals(oldest, ring.begin("frame " + frame));
+        }
+    }
+
+    @Test
+    public void flushFinishesInStartOrder() {
+        ReadbackRing<String> ring = new ReadbackRing<>(3);
+        for (int frame = 0; frame < 5; frame++) {
+            exportFrame(ring, "frame " + frame);
+        }
+        // Frames 2, 3 and 4 are still in flight, with the oldest in slot 2.
+        List<Integer> slots = new ArrayList<>();
+        List<String> flushed = new ArrayList<>();
+        while (ring.hasPending()) {
+            slots.add(ring.getOldestSlot());
+            flushed.add(ring.finishOldest());
+        }
+        assertEquals(Arrays.asList(2, 0, 1), slots);
+        assertEquals(Arrays.asList("frame 2", "frame 3", "frame 4"), flushed);
+    }
+
+    @Test
+    public void partlyFilledRingFlushes() {
+        ReadbackRing<String> ring = new ReadbackRing<>(3);
+        ring.begin("a");
+        assertEquals("a", ring.finishOldest());
+        ring.begin("b");
+        ring.begin("c");
+        assertEquals(1, ring.getOldestSlot());
+        assertEquals("b", ring.finishOldest());
+        assertEquals("c", ring.finishOldest());
+        assertFalse(ring.hasPending());
+    }
+
+    @Test
+    public void clearForgetsEverything() {
+        ReadbackRing<String> ring = new ReadbackRing<>(2);
+        ring.begin("a");
+        ring.begin("b");
+        ring.clear();
+        assertFalse(ring.hasPending());
+        assertEquals(0, ring.begin("c"));
+        assertEquals("c", ring.finishOldest());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void beginOnAFullRing() {
+        ReadbackRing<String> ring = new ReadbackRing<>(2);
+        ring.begin("a");
+        ring.begin("b");
+        ring.begin("c");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void finishWithNothingPending() {
+        new ReadbackRing<String>(2).finishOldest();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooFewSlots() {
+        new ReadbackRing<String>(1);
+    }
+}
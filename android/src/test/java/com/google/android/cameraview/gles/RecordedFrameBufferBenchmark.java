@@ -0,0 +1,71 @@
+package com.google.android.cameraview.gles;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time queries on a full recorded frame ring: the binary searches against the frame-by-frame
+ * walk they replaced.  Run with {@link #main}, from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordedFrameBufferBenchmark {
+    // 60 seconds at 30 fps, 60 fps and 120 fps.
+    @Param({"1800", "3600", "7200"})
+    public int frames;
+
+    private RecordedFrameBuffer mBuffer;
+    private RecordedFrameBuffer.Range mRange;
+    private long mCutoff;
+
+    @Setup
+    public void setUp() {
+        byte[] thumbnail = new byte[32];
+        mBuffer = new RecordedFrameBuffer(frames * 32, frames);
+        mRange = mBuffer.newRange();
+        for (int i = 0; i < frames; i++) {
+            mBuffer.add(i * 33L, thumbnail, thumbnail.length);
+        }
+        // The usual query: everything but the last few seconds.
+        mCutoff = (frames - 150) * 33L;
+    }
+
+    @Benchmark
+    public int binarySearchRange() {
+        return mBuffer.rangeByTime(Long.MIN_VALUE, mCutoff, mRange).size();
+    }
+
+    @Benchmark
+    public int linearWalk() {
+        RecordedFrameBuffer.Range all = mBuffer.rangeByTime(Long.MIN_VALUE, Long.MAX_VALUE, mRange);
+        int count = 0;
+        while (count < all.size() && mBuffer.getTimeMs(all.getIndex(count)) <= mCutoff) {
+            count++;
+        }
+        return count;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RecordedFrameBufferBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
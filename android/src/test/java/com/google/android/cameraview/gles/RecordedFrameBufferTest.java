@@ -0,0 +1,166 @@
+package com.google.android.cameraview.gles;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RecordedFrameBufferTest {
+    private static final byte[] THUMBNAIL = new byte[80];
+
+    private static RecordedFrameBuffer bufferWithTimes(long... times) {
+        RecordedFrameBuffer buffer = new RecordedFrameBuffer(4096, 16);
+        for (long time : times) {
+            assertTrue(buffer.add(time, THUMBNAIL, THUMBNAIL.length));
+        }
+        return buffer;
+    }
+
+    private static List<Long> times(RecordedFrameBuffer buffer, RecordedFrameBuffer.Range range) {
+        List<Long> times = new ArrayList<>();
+        for (int i = 0; i < range.size(); i++) {
+            times.add(buffer.getTimeMs(range.getIndex(i)));
+        }
+        return times;
+    }
+
+    private static List<Long> times(RecordedFrameBuffer buffer) {
+        return times(buffer, buffer.rangeByTime(Long.MIN_VALUE, Long.MAX_VALUE, buffer.newRange()));
+    }
+
+    private static List<Long> list(long... times) {
+        List<Long> list = new ArrayList<>();
+        for (long time : times) {
+            list.add(time);
+        }
+        return list;
+    }
+
+    @Test
+    public void purgeKeepsFramesAtTheCutoff() {
+        RecordedFrameBuffer buffer = bufferWithTimes(10, 20, 20, 30, 40);
+        buffer.purgeOlderThan(20);
+        assertEquals(list(20, 20, 30, 40), times(buffer));
+        buffer.purgeOlderThan(21);
+        assertEquals(list(30, 40), times(buffer));
+    }
+
+    @Test
+    public void purgeBeforeEverythingOrAfterEverything() {
+        RecordedFrameBuffer buffer = bufferWithTimes(10, 20, 30);
+        buffer.purgeOlderThan(Long.MIN_VALUE);
+        assertEquals(3, buffer.size());
+        buffer.purgeOlderThan(10);
+        assertEquals(3, buffer.size());
+        buffer.purgeOlderThan(31);
+        assertTrue(buffer.isEmpty());
+        assertEquals(list(), times(buffer));
+    }
+
+    @Test
+    public void rangeIsInclusiveAtBothEnds() {
+        RecordedFrameBuffer buffer = bufferWithTimes(10, 20, 20, 30, 40);
+        RecordedFrameBuffer.Range range = buffer.newRange();
+        assertEquals(list(20, 20, 30), times(buffer, buffer.rangeByTime(20, 30, range)));
+        assertEquals(list(20, 20), times(buffer, buffer.rangeByTime(11, 29, range)));
+        assertEquals(list(), times(buffer, buffer.rangeByTime(21, 29, range)));
+        assertEquals(list(), times(buffer, buffer.rangeByTime(41, 50, range)));
+        assertEquals(list(), times(buffer, buffer.rangeByTime(30, 20, range)));
+    }
+
+    @Test
+    public void rangeWithOpenEnds() {
+        RecordedFrameBuffer buffer = bufferWithTimes(10, 20, 30);
+        RecordedFrameBuffer.Range range = buffer.newRange();
+        assertEquals(list(10, 20, 30),
+                times(buffer, buffer.rangeByTime(Long.MIN_VALUE, Long.MAX_VALUE, range)));
+        assertEquals(list(10, 20), times(buffer, buffer.rangeByTime(Long.MIN_VALUE, 29, range)));
+        assertEquals(list(20, 30), times(buffer, buffer.rangeByTime(20, Long.MAX_VALUE, range)));
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void rangeIndexOutsideTheRange() {
+        RecordedFrameBuffer buffer = bufferWithTimes(10, 20, 30);
+        buffer.rangeByTime(10, 20, buffer.newRange()).getIndex(2);
+    }
+
+    @Test
+    public void rangeBeforeFractionalTime() {
+        RecordedFrameBuffer buffer = bufferWithTimes(10, 11, 12);
+        RecordedFrameBuffer.Range range = buffer.newRange();
+        assertEquals(list(10), times(buffer, buffer.rangeBefore(11, range)));
+        assertEquals(list(10, 11), times(buffer, buffer.rangeBefore(11.001, range)));
+        assertEquals(list(10, 11), times(buffer, buffer.rangeBefore(11.999, range)));
+        assertEquals(list(10, 11), times(buffer, buffer.rangeBefore(12, range)));
+        assertEquals(list(), times(buffer, buffer.rangeBefore(10, range)));
+    }
+
+    @Test
+    public void rangeBeforeCameraTimestamps() {
+        // Milliseconds since boot after about four months; a float would be off by 128 ms.
+        long last = 10000000000L;
+        RecordedFrameBuffer buffer = bufferWithTimes(last - 3, last - 2, last - 1, last);
+        RecordedFrameBuffer.Range range = buffer.newRange();
+        assertEquals(list(last - 3), times(buffer, buffer.rangeBefore(last - 2.5, range)));
+        assertEquals(list(last - 3), times(buffer, buffer.rangeBefore(last - 2.0, range)));
+    }
+
+    @Test
+    public void queriesMatchALinearScanAcrossWraparound() {
+        Random random = new Random(7);
+        // Small enough that frames wrap the data buffer and the meta-data ring many times.
+        RecordedFrameBuffer buffer = new RecordedFrameBuffer(1000, 7);
+        RecordedFrameBuffer.Range range = buffer.newRange();
+        long time = 0;
+        for (int i = 0; i < 5000; i++) {
+            time += random.nextInt(3);
+            int thumbnailLength = 1 + random.nextInt(THUMBNAIL.length);
+            assertTrue(buffer.add(time, THUMBNAIL, thumbnailLength));
+
+            List<Long> held = times(buffer);
+            long start = time - random.nextInt(20);
+            long end = start + random.nextInt(20) - 5;
+            List<Long> expected = new ArrayList<>();
+            for (long t : held) {
+                if (t >= start && t <= end) {
+                    expected.add(t);
+                }
+            }
+            assertEquals(expected, times(buffer, buffer.rangeByTime(start, end, range)));
+
+            double before = time - random.nextDouble() * 20;
+            expected.clear();
+            for (long t : held) {
+                if (t < before) {
+                    expected.add(t);
+                }
+            }
+            assertEquals(expected, times(buffer, buffer.rangeBefore(before, range)));
+
+            if (random.nextInt(10) == 0) {
+                long cutoff = time - random.nextInt(10);
+                expected.clear();
+                for (long t : held) {
+                    if (t >= cutoff) {
+                        expected.add(t);
+                    }
+                }
+                buffer.purgeOlderThan(cutoff);
+                assertEquals(expected, times(buffer));
+            }
+        }
+    }
+
+    @Test
+    public void outOfOrderFramesAreDropped() {
+        RecordedFrameBuffer buffer = bufferWithTimes(10, 20);
+        assertFalse(buffer.add(19, THUMBNAIL, THUMBNAIL.length));
+        assertTrue(buffer.add(20, THUMBNAIL, THUMBNAIL.length));
+        assertEquals(list(10, 20, 20), times(buffer));
+    }
+}
@@ -0,0 +1,127 @@
+package org.reactnative.barcodescanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding a QR code from an NV21 preview frame: a new reader, binarizer and luminance copy
+ * per frame, as the scanner used to, against a reused {@link BarcodeDecodeContext}.  Run with
+ * {@link #main}, from the test classpath; the GC profiler's {@code gc.alloc.rate.norm} is the
+ * number to watch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BarcodeDecodeContextBenchmark {
+  @Param({"1280x720", "1920x1080"})
+  public String size;
+
+  private int mWidth;
+  private int mHeight;
+  private byte[] mFrame;
+  private Map<DecodeHintType, Object> mHints;
+  private BarcodeDecodeContext mContext;
+
+  @Setup
+  public void setUp() throws WriterException, NotFoundException {
+    String[] dimensions = size.split("x");
+    mWidth = Integer.parseInt(dimensions[0]);
+    mHeight = Integer.parseInt(dimensions[1]);
+    mFrame = frameWithQrCode(mWidth, mHeight, "https://github.com/react-native-community/react-native-camera");
+    mHints = new EnumMap<>(DecodeHintType.class);
+    mHints.put(DecodeHintType.POSSIBLE_FORMATS, EnumSet.of(BarcodeFormat.QR_CODE));
+    mContext = new BarcodeDecodeContext();
+    // Both ways must find the code, or the benchmark measures giving up.
+    freshReader();
+    reusedContext();
+  }
+
+  // A light frame with a QR code a third of its height across, off centre.  The noise stays
+  // below the binarizer's contrast threshold, so the background doesn't turn into specks.
+  private static byte[] frameWithQrCode(int width, int height, String text) throws WriterException {
+    byte[] frame = new byte[width * height * 3 / 2];
+    Random random = new Random(1);
+    for (int i = 0; i < width * height; i++) {
+      frame[i] = (byte) (200 + random.nextInt(16));
+    }
+    for (int i = width * height; i < frame.length; i++) {
+      frame[i] = (byte) 128;
+    }
+    int codeSize = height / 3;
+    BitMatrix code = new QRCodeWriter().encode(text, BarcodeFormat.QR_CODE, codeSize, codeSize);
+    int left = width / 3;
+    int top = height / 4;
+    for (int y = 0; y < code.getHeight(); y++) {
+      for (int x = 0; x < code.getWidth(); x++) {
+        if (code.get(x, y)) {
+          frame[(top + y) * width + left + x] = (byte) (30 + random.nextInt(16));
+        }
+      }
+    }
+    return frame;
+  }
+
+  @Benchmark
+  public Result freshReader() throws NotFoundException {
+    PlanarYUVLuminanceSource source =
+        new PlanarYUVLuminanceSource(mFrame, mWidth, mHeight, 0, 0, mWidth, mHeight, false);
+    MultiFormatReader reader = new MultiFormatReader();
+    reader.setHints(mHints);
+    return reader.decodeWithState(new BinaryBitmap(new HybridBinarizer(source)));
+  }
+
+  @Benchmark
+  public Result reusedContext() throws NotFoundException {
+    FrameLuminanceSource source = new FrameLuminanceSource(mFrame, mWidth, mHeight, 0, 0, mWidth, mHeight, 1,
+        mContext.getMatrixBuffer(BarcodeDecodeContext.MATRIX_FRAME, mWidth * mHeight));
+    return mContext.decode(source, mHints);
+  }
+
+  @Benchmark
+  public Result[] reusedContextMultiple() throws NotFoundException {
+    FrameLuminanceSource source = new FrameLuminanceSource(mFrame, mWidth, mHeight, 0, 0, mWidth, mHeight, 1,
+        mContext.getMatrixBuffer(BarcodeDecodeContext.MATRIX_FRAME, mWidth * mHeight));
+    return mContext.decodeMultiple(source, mHints);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(BarcodeDecodeContextBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .build()).run();
+  }
+}
@@ -0,0 +1,99 @@
+package org.reactnative.barcodescanner;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BarcodeDedupCacheTest {
+  private static final String QR = "QR_CODE";
+
+  @Test
+  public void repeatsWithinTheWindowAreNotReported() {
+    BarcodeDedupCache cache = new BarcodeDedupCache(500);
+    assertTrue(cache.shouldReport(QR, "a", 1000));
+    assertFalse(cache.shouldReport(QR, "a", 1200));
+    // Another code, or the same text in another format, is reported.
+    assertTrue(cache.shouldReport(QR, "b", 1200));
+    assertTrue(cache.shouldReport("EAN_13", "a", 1200));
+    assertEquals(3, cache.size());
+  }
+
+  @Test
+  public void everySightingRestartsTheWindowByDefault() {
+    BarcodeDedupCache cache = new BarcodeDedupCache(500);
+    assertTrue(cache.shouldReport(QR, "a", 0));
+    // Held in view, seen every 100 ms: never reported again.
+    for (long now = 100; now <= 2000; now += 100) {
+      assertFalse(cache.shouldReport(QR, "a", now));
+    }
+    // Out of view just under the window, then just over it.
+    assertFalse(cache.shouldReport(QR, "a", 2499));
+    assertTrue(cache.shouldReport(QR, "a", 2999));
+  }
+
+  @Test
+  public void onlyReportsRestartTheWindowOtherwise() {
+    BarcodeDedupCache cache = new BarcodeDedupCache(500, false);
+    int reports = 0;
+    for (long now = 0; now < 2000; now += 100) {
+      if (cache.shouldReport(QR, "a", now)) {
+        assertEquals(0, now % 500);
+        reports++;
+      }
+    }
+    assertEquals(4, reports);
+  }
+
+  @Test
+  public void zeroWindowReportsEverySighting() {
+    BarcodeDedupCache cache = new BarcodeDedupCache(0);
+    assertTrue(cache.shouldReport(QR, "a", 0));
+    assertTrue(cache.shouldReport(QR, "a", 0));
+    assertTrue(cache.shouldReport(QR, "a", 1));
+  }
+
+  @Test
+  public void expiredCodesAreDropped() {
+    BarcodeDedupCache cache = new BarcodeDedupCache(500);
+    cache.shouldReport(QR, "a", 0);
+    cache.shouldReport(QR, "b", 100);
+    cache.shouldReport(QR, "c", 200);
+    assertEquals(3, cache.size());
+    cache.shouldReport(QR, "d", 650);
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  public void leastRecentlySeenCodeIsEvictedPast256() {
+    BarcodeDedupCache cache = new BarcodeDedupCache(60000);
+    for (int i = 0; i < 256; i++) {
+      assertTrue(cache.shouldReport(QR, "code " + i, i));
+    }
+    assertEquals(256, cache.size());
+    // Seeing the oldest code again makes it the newest, so the next one goes instead.
+    assertFalse(cache.shouldReport(QR, "code 0", 1000));
+    assertTrue(cache.shouldReport(QR, "code 256", 1001));
+    assertEquals(256, cache.size());
+    assertFalse(cache.shouldReport(QR, "code 0", 1002));
+    assertTrue(cache.shouldReport(QR, "code 1", 1003));
+    // Code 1 coming back pushed out code 2 in turn.
+    assertTrue(cache.shouldReport(QR, "code 2", 1004));
+    assertFalse(cache.shouldReport(QR, "code 255", 1005));
+  }
+
+  @Test
+  public void windowCanBeChanged() {
+    BarcodeDedupCache cache = new BarcodeDedupCache(500);
+    assertEquals(500, cache.getWindow());
+    assertTrue(cache.shouldReport(QR, "a", 0));
+    cache.setWindow(100);
+    assertEquals(100, cache.getWindow());
+    assertTrue(cache.shouldReport(QR, "a", 150));
+    assertFalse(cache.shouldReport(QR, "a", 200));
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertTrue(cache.shouldReport(QR, "a", 210));
+  }
+}
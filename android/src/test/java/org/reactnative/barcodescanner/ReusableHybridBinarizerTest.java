@@ -0,0 +1,61 @@
+package org.reactnative.barcodescanner;
+
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ReusableHybridBinarizerTest {
+  // Blocky noise with gradients, so that both the local and the global thresholds matter.
+  private static LuminanceSource image(Random random, int width, int height) {
+    byte[] pixels = new byte[width * height];
+    int cell = 1 + random.nextInt(12);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int value = ((x / cell + y / cell) % 2 == 0 ? 40 : 200) + (x + y) / 8 + random.nextInt(30) - 15;
+        pixels[y * width + x] = (byte) Math.max(0, Math.min(255, value));
+      }
+    }
+    return new PlanarYUVLuminanceSource(pixels, width, height, 0, 0, width, height, false);
+  }
+
+  @Test
+  public void matchesHybridBinarizer() throws NotFoundException {
+    Random random = new Random(3);
+    ReusableHybridBinarizer.Buffers buffers = new ReusableHybridBinarizer.Buffers();
+    // Sizes below the local thresholding minimum fall back to the global histogram.
+    int[][] sizes = { { 320, 240 }, { 241, 97 }, { 40, 40 }, { 39, 200 }, { 17, 9 }, { 320, 240 } };
+    for (int[] size : sizes) {
+      LuminanceSource source = image(random, size[0], size[1]);
+      HybridBinarizer reference = new HybridBinarizer(source);
+      ReusableHybridBinarizer binarizer = new ReusableHybridBinarizer(source, buffers);
+      assertEquals(reference.getBlackMatrix(), binarizer.getBlackMatrix());
+      BitArray row = null;
+      for (int y = 0; y < source.getHeight(); y++) {
+        BitArray expected = reference.getBlackRow(y, null);
+        row = binarizer.getBlackRow(y, row);
+        assertEquals(expected.toString(), row.toString());
+      }
+    }
+  }
+
+  @Test
+  public void buffersAreReusedForTheSameSize() throws NotFoundException {
+    Random random = new Random(5);
+    ReusableHybridBinarizer.Buffers buffers = new ReusableHybridBinarizer.Buffers();
+    BitMatrix first = new ReusableHybridBinarizer(image(random, 64, 48), buffers).getBlackMatrix();
+    LuminanceSource source = image(random, 64, 48);
+    BitMatrix second = new ReusableHybridBinarizer(source, buffers).getBlackMatrix();
+    assertSame(first, second);
+    assertEquals(new HybridBinarizer(source).getBlackMatrix(), second);
+  }
+}
@@ -0,0 +1,86 @@
+package org.reactnative.barcodescanner;
+
+import com.google.zxing.PlanarYUVLuminanceSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The luminance matrix for the rotated second decoding pass: the whole-frame transpose copy
+ * it replaced against the turned view, with and without reused buffers.  Run with
+ * {@link #main}, from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RotatedLuminanceSourceBenchmark {
+  @Param({"1280x720", "1920x1080"})
+  public String size;
+
+  private int mWidth;
+  private int mHeight;
+  private byte[] mFrame;
+  private byte[] mFrameMatrix;
+  private byte[] mRotatedMatrix;
+  private byte[][] mBandRows;
+
+  @Setup
+  public void setUp() {
+    String[] dimensions = size.split("x");
+    mWidth = Integer.parseInt(dimensions[0]);
+    mHeight = Integer.parseInt(dimensions[1]);
+    mFrame = new byte[mWidth * mHeight * 3 / 2];
+    new Random(1).nextBytes(mFrame);
+    mFrameMatrix = new byte[mWidth * mHeight];
+    mRotatedMatrix = new byte[mWidth * mHeight];
+    mBandRows = RotatedLuminanceSource.newBandRows();
+  }
+
+  @Benchmark
+  public byte[] transposeCopy() {
+    byte[] rotated = new byte[mFrame.length];
+    for (int y = 0; y < mHeight; y++) {
+      for (int x = 0; x < mWidth; x++) {
+        rotated[x * mHeight + mHeight - y - 1] = mFrame[x + y * mWidth];
+      }
+    }
+    return new PlanarYUVLuminanceSource(rotated, mHeight, mWidth, 0, 0, mHeight, mWidth, false).getMatrix();
+  }
+
+  @Benchmark
+  public byte[] rotatedView() {
+    FrameLuminanceSource source = new FrameLuminanceSource(mFrame, mWidth, mHeight, 0, 0, mWidth, mHeight, 1, null);
+    return new RotatedLuminanceSource(source).getMatrix();
+  }
+
+  @Benchmark
+  public byte[] rotatedViewReusingBuffers() {
+    FrameLuminanceSource source =
+        new FrameLuminanceSource(mFrame, mWidth, mHeight, 0, 0, mWidth, mHeight, 1, mFrameMatrix);
+    return new RotatedLuminanceSource(source, mRotatedMatrix, mBandRows).getMatrix();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(RotatedLuminanceSourceBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
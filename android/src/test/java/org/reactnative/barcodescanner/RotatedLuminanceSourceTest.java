@@ -0,0 +1,82 @@
+package org.reactnative.barcodescanner;
+
+import com.google.zxing.LuminanceSource;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class RotatedLuminanceSourceTest {
+  private static byte[] frame(int width, int height) {
+    byte[] frame = new byte[width * height * 3 / 2];
+    new Random(width * 31 + height).nextBytes(frame);
+    return frame;
+  }
+
+  // The whole-frame copy the view replaced, cut to the same rectangle.
+  private static byte[] transposed(byte[] frame, int width, int height, int left, int top, int cropWidth, int cropHeight) {
+    byte[] matrix = new byte[cropWidth * cropHeight];
+    for (int y = 0; y < cropWidth; y++) {
+      for (int x = 0; x < cropHeight; x++) {
+        matrix[y * cropHeight + x] = frame[(top + cropHeight - 1 - x) * width + left + y];
+      }
+    }
+    return matrix;
+  }
+
+  private static void assertTurned(int width, int height, int left, int top, int cropWidth, int cropHeight,
+                                   byte[] matrixBuffer, byte[][] bandRows) {
+    byte[] frame = frame(width, height);
+    LuminanceSource source = new FrameLuminanceSource(frame, width, height, left, top, cropWidth, cropHeight, 1, null);
+    RotatedLuminanceSource turned = new RotatedLuminanceSource(source, matrixBuffer, bandRows);
+    assertEquals(cropHeight, turned.getWidth());
+    assertEquals(cropWidth, turned.getHeight());
+
+    byte[] expected = transposed(frame, width, height, left, top, cropWidth, cropHeight);
+    byte[] matrix = turned.getMatrix();
+    assertArrayEquals(expected, Arrays.copyOf(matrix, expected.length));
+    byte[] row = null;
+    for (int y = 0; y < turned.getHeight(); y++) {
+      row = turned.getRow(y, row);
+      assertArrayEquals(Arrays.copyOfRange(expected, y * cropHeight, (y + 1) * cropHeight),
+          Arrays.copyOf(row, cropHeight));
+    }
+  }
+
+  @Test
+  public void matchesTheTransposeCopy() {
+    assertTurned(64, 48, 0, 0, 64, 48, null, null);
+    // Heights that aren't a whole number of bands.
+    assertTurned(50, 33, 0, 0, 50, 33, null, null);
+    assertTurned(7, 1, 0, 0, 7, 1, null, null);
+  }
+
+  @Test
+  public void matchesTheTransposeCopyOfACrop() {
+    assertTurned(80, 70, 13, 5, 40, 61, null, null);
+  }
+
+  @Test
+  public void reusesTheMatrixBuffer() {
+    byte[] buffer = new byte[64 * 48];
+    LuminanceSource source = new FrameLuminanceSource(frame(64, 48), 64, 48, 0, 0, 64, 48, 1, null);
+    assertSame(buffer, new RotatedLuminanceSource(source, buffer, null).getMatrix());
+  }
+
+  @Test
+  public void reusesBandRowsAcrossSizes() {
+    byte[][] bandRows = RotatedLuminanceSource.newBandRows();
+    byte[] buffer = new byte[100 * 100];
+    assertTurned(40, 70, 0, 0, 40, 70, buffer, bandRows);
+    byte[] firstRow = bandRows[0];
+    assertTurned(30, 50, 0, 0, 30, 50, buffer, bandRows);
+    assertSame(firstRow, bandRows[0]);
+    assertTurned(90, 40, 0, 0, 90, 40, buffer, bandRows);
+    assertEquals(90, bandRows[0].length);
+  }
+}
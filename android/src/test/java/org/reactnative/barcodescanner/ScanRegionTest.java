@@ -0,0 +1,178 @@
+package org.reactnative.barcodescanner;
+
+import com.google.zxing.LuminanceSource;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ScanRegionTest {
+  // Eighths are exact in floats, so on a 64 pixel frame every edge lands on a whole pixel.
+  private static final int SIZE = 64;
+
+  // Upright, from (1/8, 2/8) to (3/8, 6/8): taller than wide and off-centre both ways, so a
+  // wrong turn or a missed mirror shows.
+  private static final ScanRegion REGION = new ScanRegion(0.125f, 0.25f, 0.25f, 0.5f);
+
+  // Asserts the region's edges, in eighths of the frame.
+  private static void assertEighths(ScanRegion region, int left, int top, int right, int bottom) {
+    int eighth = SIZE / 8;
+    assertEquals(region.toString(), left * eighth, region.getLeft(SIZE));
+    assertEquals(region.toString(), top * eighth, region.getTop(SIZE));
+    assertEquals(region.toString(), (right - left) * eighth, region.getWidth(SIZE));
+    assertEquals(region.toString(), (bottom - top) * eighth, region.getHeight(SIZE));
+  }
+
+  @Test
+  public void rotations() {
+    assertEighths(REGION.toFrame(0, false), 1, 2, 3, 6);
+    // Turned clockwise to be upright, the frame's left column becomes the top row.
+    assertEighths(REGION.toFrame(90, false), 2, 5, 6, 7);
+    assertEighths(REGION.toFrame(180, false), 5, 2, 7, 6);
+    assertEighths(REGION.toFrame(270, false), 2, 1, 6, 3);
+  }
+
+  @Test
+  public void frontCameraMirror() {
+    // Mirrored, the region is from 5/8 to 7/8 across before turning.
+    assertEighths(REGION.toFrame(0, true), 5, 2, 7, 6);
+    assertEighths(REGION.toFrame(90, true), 2, 1, 6, 3);
+    assertEighths(REGION.toFrame(180, true), 1, 2, 3, 6);
+    assertEighths(REGION.toFrame(270, true), 2, 5, 6, 7);
+  }
+
+  @Test
+  public void mappedRegionsHoldTheSamePoints() {
+    Random random = new Random(3);
+    for (int rotation = 0; rotation < 360; rotation += 90) {
+      for (boolean mirrored : new boolean[] { false, true }) {
+        ScanRegion frame = REGION.toFrame(rotation, mirrored);
+        for (int i = 0; i < 1000; i++) {
+          float s = random.nextFloat();
+          float t = random.nextFloat();
+          // Where the frame point shows once turned clockwise, then mirrored.
+          float u;
+          float v;
+          switch (rotation) {
+            case 90:
+              u = 1 - t;
+              v = s;
+              break;
+            case 180:
+              u = 1 - s;
+              v = 1 - t;
+              break;
+            case 270:
+              u = t;
+              v = 1 - s;
+              break;
+            default:
+              u = s;
+              v = t;
+          }
+          if (mirrored) {
+            u = 1 - u;
+          }
+          assertEquals(contains(REGION, SIZE, SIZE, u, v), contains(frame, SIZE, SIZE, s, t));
+        }
+      }
+    }
+  }
+
+  private static boolean contains(ScanRegion region, int width, int height, float x, float y) {
+    float left = region.getLeft(width) / (float) width;
+    float top = region.getTop(height) / (float) height;
+    float right = left + region.getWidth(width) / (float) width;
+    float bottom = top + region.getHeight(height) / (float) height;
+    return x >= left && x < right && y >= top && y < bottom;
+  }
+
+  @Test
+  public void valuesAreClamped() {
+    ScanRegion region = new ScanRegion(-0.5f, 0.5f, 2, 1);
+    assertFalse(region.isEmpty());
+    assertEquals(0, region.getLeft(SIZE));
+    assertEquals(SIZE / 2, region.getTop(SIZE));
+    assertEquals(SIZE, region.getWidth(SIZE));
+    assertEquals(SIZE / 2, region.getHeight(SIZE));
+
+    assertTrue(new ScanRegion(1.5f, 0, 0.5f, 1).isEmpty());
+    assertTrue(new ScanRegion(0, -1, 1, 0.5f).isEmpty());
+    assertTrue(new ScanRegion(0.25f, 0.25f, 0, 0.5f).isEmpty());
+    assertTrue(new ScanRegion(0.25f, 0.25f, 0.5f, -0.5f).isEmpty());
+  }
+
+  @Test
+  public void pixelEdgesRoundOut() {
+    // A quarter to a half of 7 pixels is 1.75 to 3.5: pixels 1 to 3 take some of it.
+    ScanRegion region = new ScanRegion(0.25f, 0.25f, 0.25f, 0.25f);
+    assertEquals(1, region.getLeft(7));
+    assertEquals(3, region.getWidth(7));
+    assertEquals(1, region.getTop(7));
+    assertEquals(3, region.getHeight(7));
+  }
+
+  @Test
+  public void downsampledRegionWithOddOffsetsAndWidth() {
+    int width = 13;
+    int height = 11;
+    byte[] frame = new byte[width * height * 3 / 2];
+    new Random(5).nextBytes(frame);
+    // Blocks whose averages fall either side of a half, and one at the top of the range.
+    setBlock(frame, width, 3, 1, 1, 2, 2, 2);
+    setBlock(frame, width, 5, 1, 1, 1, 1, 2);
+    setBlock(frame, width, 7, 1, 255, 255, 255, 255);
+
+    // 3/13 to 10/13 across and 1/11 to 8/11 down: 7 pixels each way from an odd offset.
+    ScanRegion region = new ScanRegion(3f / 13 + 0.01f, 1f / 11 + 0.01f, 0.52f, 0.6f);
+    int left = region.getLeft(width);
+    int top = region.getTop(height);
+    int regionWidth = region.getWidth(width);
+    int regionHeight = region.getHeight(height);
+    assertEquals(3, left);
+    assertEquals(1, top);
+    assertEquals(7, regionWidth);
+    assertEquals(7, regionHeight);
+
+    LuminanceSource source =
+        new FrameLuminanceSource(frame, width, height, left, top, regionWidth, regionHeight, 2, null);
+    // The odd last column and row are dropped.
+    assertEquals(3, source.getWidth());
+    assertEquals(3, source.getHeight());
+    assertEquals(2, source.getMatrix()[0]);
+    assertEquals(1, source.getMatrix()[1]);
+    assertEquals((byte) 255, source.getMatrix()[2]);
+    assertDownsampled(frame, width, left, top, source);
+
+    // Crops of the half-resolution source stay on the same 2x2 blocks.
+    assertDownsampled(frame, width, left + 2, top + 2, source.crop(1, 1, 2, 2));
+  }
+
+  private static void setBlock(byte[] frame, int width, int x, int y, int a, int b, int c, int d) {
+    frame[y * width + x] = (byte) a;
+    frame[y * width + x + 1] = (byte) b;
+    frame[(y + 1) * width + x] = (byte) c;
+    frame[(y + 1) * width + x + 1] = (byte) d;
+  }
+
+  private static void assertDownsampled(byte[] frame, int width, int left, int top, LuminanceSource source) {
+    byte[] matrix = source.getMatrix();
+    byte[] row = null;
+    for (int y = 0; y < source.getHeight(); y++) {
+      row = source.getRow(y, row);
+      for (int x = 0; x < source.getWidth(); x++) {
+        int at = (top + y * 2) * width + left + x * 2;
+        int sum = (frame[at] & 0xff) + (frame[at + 1] & 0xff) +
+            (frame[at + width] & 0xff) + (frame[at + width + 1] & 0xff);
+        // Halves round up.
+        int expected = (int) Math.floor(sum / 4.0 + 0.5);
+        assertEquals(expected, matrix[y * source.getWidth() + x] & 0xff);
+        assertEquals(expected, row[x] & 0xff);
+      }
+    }
+  }
+}
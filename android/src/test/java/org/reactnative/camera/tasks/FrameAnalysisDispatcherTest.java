@@ -0,0 +1,209 @@
+package org.reactnative.camera.tasks;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FrameAnalysisDispatcherTest {
+  private static final long MS = 1000000L;
+
+  private static class TestFrame implements FrameAnalysisDispatcher.Frame {
+    int refs;
+
+    @Override
+    public synchronized void retain() {
+      refs++;
+    }
+
+    @Override
+    public synchronized void release() {
+      refs--;
+    }
+
+    synchronized int getRefs() {
+      return refs;
+    }
+  }
+
+  // Records the frames it's given, and leaves calling finished() to the test.
+  private static class RecordingAnalyzer implements FrameAnalysisDispatcher.Analyzer<TestFrame> {
+    final List<TestFrame> frames = new ArrayList<>();
+
+    @Override
+    public void analyze(TestFrame frame, Executor executor) {
+      frames.add(frame);
+    }
+  }
+
+  private volatile long mNow;
+  private FrameAnalysisDispatcher<TestFrame> mDispatcher;
+  private RecordingAnalyzer mAnalyzer;
+  private FrameAnalysisDispatcher<TestFrame>.Slot mSlot;
+
+  @Before
+  public void setUp() {
+    mDispatcher = new FrameAnalysisDispatcher<>(1, 2, new FrameAnalysisDispatcher.Clock() {
+      @Override
+      public long nanoTime() {
+        return mNow;
+      }
+    });
+    mAnalyzer = new RecordingAnalyzer();
+    mSlot = mDispatcher.addAnalyzer("test", mAnalyzer);
+  }
+
+  @After
+  public void tearDown() {
+    mDispatcher.shutdown();
+  }
+
+  @Test
+  public void busySlotKeepsOnlyTheNewestFrame() {
+    TestFrame first = new TestFrame();
+    TestFrame second = new TestFrame();
+    TestFrame third = new TestFrame();
+    mSlot.submit(first);
+    mSlot.submit(second);
+    mSlot.submit(third);
+    assertEquals(1, mAnalyzer.frames.size());
+    assertTrue(mSlot.isBusy());
+    assertEquals(1, first.getRefs());
+    assertEquals(0, second.getRefs());
+    assertEquals(1, third.getRefs());
+    assertEquals(3, mSlot.getSubmittedCount());
+    assertEquals(1, mSlot.getReplacedCount());
+
+    mSlot.finished();
+    assertEquals(0, first.getRefs());
+    assertEquals(2, mAnalyzer.frames.size());
+    assertSame(third, mAnalyzer.frames.get(1));
+
+    mSlot.finished();
+    assertEquals(0, third.getRefs());
+    assertFalse(mSlot.isBusy());
+    assertEquals(2, mSlot.getAnalyzedCount());
+  }
+
+  @Test
+  public void unpacedSlotRunsBackToBack() {
+    for (int i = 0; i < 5; i++) {
+      mSlot.submit(new TestFrame());
+      mSlot.finished();
+    }
+    assertEquals(5, mAnalyzer.frames.size());
+    assertEquals(0, mSlot.getRateLimitedCount());
+    assertEquals(0, mSlot.getMinIntervalNanos());
+  }
+
+  @Test
+  public void targetFpsDropsFramesThatComeTooSoon() {
+    mSlot.setTargetFps(10);
+    mSlot.submit(new TestFrame());
+    mSlot.finished();
+
+    mNow = 50 * MS;
+    TestFrame early = new TestFrame();
+    mSlot.submit(early);
+    assertEquals(1, mAnalyzer.frames.size());
+    assertEquals(1, mSlot.getRateLimitedCount());
+    assertEquals(0, early.getRefs());
+
+    mNow = 100 * MS;
+    mSlot.submit(new TestFrame());
+    assertEquals(2, mAnalyzer.frames.size());
+  }
+
+  @Test
+  public void waitingFrameIsDroppedIfTooSoon() {
+    mSlot.setTargetFps(10);
+    mSlot.submit(new TestFrame());
+    TestFrame waiting = new TestFrame();
+    mSlot.submit(waiting);
+
+    mNow = 30 * MS;
+    mSlot.finished();
+    assertEquals(1, mAnalyzer.frames.size());
+    assertEquals(1, mSlot.getRateLimitedCount());
+    assertEquals(0, waiting.getRefs());
+    assertFalse(mSlot.isBusy());
+  }
+
+  @Test
+  public void clearWaitingReleasesTheFrame() {
+    mSlot.submit(new TestFrame());
+    TestFrame waiting = new TestFrame();
+    mSlot.submit(waiting);
+    mSlot.clearWaiting();
+    assertEquals(0, waiting.getRefs());
+    mSlot.finished();
+    assertEquals(1, mAnalyzer.frames.size());
+  }
+
+  @Test
+  public void latencyIsTimedOnTheWorker() throws InterruptedException {
+    FrameAnalysisDispatcher<TestFrame>.Slot slot = mDispatcher.addAnalyzer("timed",
+        new FrameAnalysisDispatcher.Analyzer<TestFrame>() {
+          @Override
+          public void analyze(TestFrame frame, Executor executor) {
+            executor.execute(new Runnable() {
+              @Override
+              public void run() {
+                mNow += 200 * MS;
+              }
+            });
+          }
+        });
+    slot.setCpuBudget(0.5f);
+    slot.submit(new TestFrame());
+    for (int i = 0; i < 500 && slot.getAverageLatencyNanos() == 0; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(200 * MS, slot.getAverageLatencyNanos());
+    assertEquals(400 * MS, slot.getMinIntervalNanos());
+  }
+
+  @Test
+  public void pressureReachesPacedSlots() {
+    mSlot.setTargetFps(10);
+    mDispatcher.setPressure(FrameRateGovernor.PRESSURE_MODERATE);
+    assertEquals(200 * MS, mSlot.getMinIntervalNanos());
+
+    // Slots added later start at the current pressure; unpaced ones aren't slowed.
+    FrameAnalysisDispatcher<TestFrame>.Slot later = mDispatcher.addAnalyzer("later", new RecordingAnalyzer());
+    assertEquals(0, later.getMinIntervalNanos());
+    later.setTargetFps(10);
+    assertEquals(200 * MS, later.getMinIntervalNanos());
+
+    mDispatcher.setPressure(FrameRateGovernor.PRESSURE_NONE);
+    assertEquals(100 * MS, mSlot.getMinIntervalNanos());
+  }
+
+  @Test
+  public void framesAreReleasedAfterShutdown() {
+    FrameAnalysisDispatcher<TestFrame>.Slot slot = mDispatcher.addAnalyzer("pooled",
+        new FrameAnalysisDispatcher.Analyzer<TestFrame>() {
+          @Override
+          public void analyze(TestFrame frame, Executor executor) {
+            executor.execute(new Runnable() {
+              @Override
+              public void run() {
+              }
+            });
+          }
+        });
+    mDispatcher.shutdown();
+    TestFrame frame = new TestFrame();
+    slot.submit(frame);
+    assertEquals(0, frame.getRefs());
+    assertFalse(slot.isBusy());
+  }
+}
@@ -0,0 +1,113 @@
+package org.reactnative.camera.tasks;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FrameRateGovernorTest {
+  private static final long MS = 1000000L;
+
+  @Test
+  public void averageStartsAtTheFirstSample() {
+    FrameRateGovernor governor = new FrameRateGovernor();
+    assertEquals(0, governor.getAverageLatencyNanos());
+    governor.onAnalysisFinished(200 * MS);
+    assertEquals(200 * MS, governor.getAverageLatencyNanos());
+  }
+
+  @Test
+  public void averageWeighsTheNewestSampleByAFifth() {
+    FrameRateGovernor governor = new FrameRateGovernor();
+    governor.onAnalysisFinished(200 * MS);
+    governor.onAnalysisFinished(100 * MS);
+    assertEquals(180 * MS, governor.getAverageLatencyNanos());
+    governor.onAnalysisFinished(180 * MS);
+    assertEquals(180 * MS, governor.getAverageLatencyNanos());
+    // One slow frame moves the average, but doesn't take it over.
+    governor.onAnalysisFinished(1180 * MS);
+    assertEquals(380 * MS, governor.getAverageLatencyNanos());
+  }
+
+  @Test
+  public void negativeSamplesAreIgnored() {
+    FrameRateGovernor governor = new FrameRateGovernor();
+    governor.onAnalysisFinished(-1);
+    assertEquals(0, governor.getAverageLatencyNanos());
+    governor.onAnalysisFinished(100 * MS);
+    governor.onAnalysisFinished(-1);
+    assertEquals(100 * MS, governor.getAverageLatencyNanos());
+  }
+
+  @Test
+  public void notPacingByDefault() {
+    FrameRateGovernor governor = new FrameRateGovernor();
+    governor.onAnalysisFinished(200 * MS);
+    governor.setPressure(FrameRateGovernor.PRESSURE_SEVERE);
+    assertFalse(governor.isPacing());
+    assertEquals(1, governor.getCpuBudget(), 0);
+    assertEquals(0, governor.getMinIntervalNanos());
+  }
+
+  @Test
+  public void budgetSpacesAnalysesOut() {
+    FrameRateGovernor governor = new FrameRateGovernor();
+    governor.setCpuBudget(0.5f);
+    assertTrue(governor.isPacing());
+    assertEquals(0, governor.getMinIntervalNanos());
+    governor.onAnalysisFinished(200 * MS);
+    assertEquals(400 * MS, governor.getMinIntervalNanos());
+    governor.setCpuBudget(0.25f);
+    assertEquals(800 * MS, governor.getMinIntervalNanos());
+  }
+
+  @Test
+  public void slowerOfBudgetAndMaxFpsWins() {
+    FrameRateGovernor governor = new FrameRateGovernor();
+    governor.setMaxFps(10);
+    assertTrue(governor.isPacing());
+    assertEquals(100 * MS, governor.getMinIntervalNanos());
+
+    // With the full budget, the analysis time itself is the interval.
+    governor.onAnalysisFinished(40 * MS);
+    assertEquals(100 * MS, governor.getMinIntervalNanos());
+    governor.setCpuBudget(0.25f);
+    assertEquals(160 * MS, governor.getMinIntervalNanos());
+    governor.setMaxFps(2);
+    assertEquals(500 * MS, governor.getMinIntervalNanos());
+
+    governor.setMaxFps(0);
+    governor.setCpuBudget(1);
+    assertFalse(governor.isPacing());
+  }
+
+  @Test
+  public void pressureStretchesPacedIntervals() {
+    FrameRateGovernor governor = new FrameRateGovernor();
+    governor.setMaxFps(10);
+    governor.setPressure(FrameRateGovernor.PRESSURE_MODERATE);
+    assertEquals(200 * MS, governor.getMinIntervalNanos());
+    governor.setPressure(FrameRateGovernor.PRESSURE_SEVERE);
+    assertEquals(400 * MS, governor.getMinIntervalNanos());
+    governor.setPressure(FrameRateGovernor.PRESSURE_NONE);
+    assertEquals(100 * MS, governor.getMinIntervalNanos());
+  }
+
+  @Test
+  public void outOfRangeValuesAreClamped() {
+    FrameRateGovernor governor = new FrameRateGovernor();
+    governor.setCpuBudget(0);
+    assertEquals(1, governor.getCpuBudget(), 0);
+    governor.setCpuBudget(-0.5f);
+    assertEquals(1, governor.getCpuBudget(), 0);
+    governor.setCpuBudget(2);
+    assertEquals(1, governor.getCpuBudget(), 0);
+    governor.setPressure(7);
+    assertEquals(FrameRateGovernor.PRESSURE_SEVERE, governor.getPressure());
+    governor.setPressure(-1);
+    assertEquals(FrameRateGovernor.PRESSURE_NONE, governor.getPressure());
+    governor.setMaxFps(-5);
+    assertFalse(governor.isPacing());
+  }
+}
@@ -0,0 +1,195 @@
+package org.reactnative.camera.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BucketedPoolTest {
+  // Stands in for a bitmap: a size bucket and a byte count.
+  private static class Item {
+    final String bucket;
+    final long bytes;
+
+    Item(String bucket, long bytes) {
+      this.bucket = bucket;
+      this.bytes = bytes;
+    }
+  }
+
+  private final List<Item> mEvicted = new ArrayList<>();
+
+  private BucketedPool<Item> pool(long maxBytes) {
+    return new BucketedPool<>(maxBytes, new BucketedPool.Adapter<Item>() {
+      @Override
+      public Object getBucket(Item item) {
+        return item.bucket;
+      }
+
+      @Override
+      public long getByteCount(Item item) {
+        return item.bytes;
+      }
+
+      @Override
+      public void onEvicted(Item item) {
+        mEvicted.add(item);
+      }
+    });
+  }
+
+  @Before
+  public void setUp() {
+    mEvicted.clear();
+  }
+
+  @Test
+  public void takeReturnsTheMostRecentlyReleasedInTheBucket() {
+    BucketedPool<Item> pool = pool(1000);
+    Item a1 = new Item("a", 10);
+    Item b = new Item("b", 10);
+    Item a2 = new Item("a", 10);
+    pool.release(a1);
+    pool.release(b);
+    pool.release(a2);
+    assertSame(a2, pool.take("a"));
+    assertSame(a1, pool.take("a"));
+    assertNull(pool.take("a"));
+    assertNull(pool.take("c"));
+    assertSame(b, pool.take("b"));
+    assertTrue(mEvicted.isEmpty());
+  }
+
+  @Test
+  public void bytesAreTracked() {
+    BucketedPool<Item> pool = pool(1000);
+    assertEquals(1000, pool.getMaxByteCount());
+    pool.release(new Item("a", 100));
+    pool.release(new Item("b", 250));
+    assertEquals(2, pool.size());
+    assertEquals(350, pool.getByteCount());
+    pool.take("a");
+    assertEquals(250, pool.getByteCount());
+    pool.take("b");
+    assertEquals(0, pool.getByteCount());
+  }
+
+  @Test
+  public void overBudgetEvictsTheLeastRecentlyReleased() {
+    BucketedPool<Item> pool = pool(300);
+    Item first = new Item("a", 100);
+    Item second = new Item("b", 100);
+    Item third = new Item("c", 100);
+    pool.release(first);
+    pool.release(second);
+    pool.release(third);
+    assertTrue(mEvicted.isEmpty());
+
+    // Taking and releasing again makes an item the most recent.
+    pool.release(pool.take("a"));
+    pool.release(new Item("d", 150));
+    assertEquals(Arrays.asList(second, third), mEvicted);
+    assertEquals(250, pool.getByteCount());
+    assertSame(first, pool.take("a"));
+  }
+
+  @Test
+  public void oversizedItemsAreEvictedOnTheirOwn() {
+    BucketedPool<Item> pool = pool(300);
+    Item kept = new Item("a", 200);
+    Item huge = new Item("b", 301);
+    pool.release(kept);
+    pool.release(huge);
+    assertEquals(Arrays.asList(huge), mEvicted);
+    assertEquals(1, pool.size());
+    assertEquals(200, pool.getByteCount());
+    assertNull(pool.take("b"));
+    assertSame(kept, pool.take("a"));
+  }
+
+  @Test
+  public void itemFillingTheWholeBudgetIsKept() {
+    BucketedPool<Item> pool = pool(300);
+    Item small = new Item("a", 1);
+    Item full = new Item("b", 300);
+    pool.release(small);
+    pool.release(full);
+    assertEquals(Arrays.asList(small), mEvicted);
+    assertSame(full, pool.take("b"));
+  }
+
+  @Test
+  public void budgetCanGrowAndShrink() {
+    BucketedPool<Item> pool = pool(300);
+    Item first = new Item("a", 200);
+    Item second = new Item("b", 200);
+    pool.setMaxByteCount(400);
+    assertEquals(400, pool.getMaxByteCount());
+    pool.release(first);
+    pool.release(second);
+    assertTrue(mEvicted.isEmpty());
+
+    // Shrinking evicts the least recently released until the rest fit.
+    pool.setMaxByteCount(300);
+    assertEquals(Arrays.asList(first), mEvicted);
+    assertEquals(200, pool.getByteCount());
+    assertSame(second, pool.take("b"));
+  }
+
+  @Test
+  public void releasingAHeldItemDoesNothing() {
+    BucketedPool<Item> pool = pool(300);
+    Item item = new Item("a", 100);
+    pool.release(item);
+    pool.release(item);
+    assertEquals(1, pool.size());
+    assertEquals(100, pool.getByteCount());
+    assertSame(item, pool.take("a"));
+    assertNull(pool.take("a"));
+    assertTrue(mEvicted.isEmpty());
+  }
+
+  @Test
+  public void clearEvictsEverything() {
+    BucketedPool<Item> pool = pool(1000);
+    Item a = new Item("a", 100);
+    Item b = new Item("b", 100);
+    pool.release(a);
+    pool.release(b);
+    pool.clear();
+    assertEquals(0, pool.size());
+    assertEquals(0, pool.getByteCount());
+    assertEquals(2, mEvicted.size());
+    assertTrue(mEvicted.containsAll(Arrays.asList(a, b)));
+    assertNull(pool.take("a"));
+  }
+
+  @Test
+  public void steadyCapturesReuseTheirItems() {
+    BucketedPool<Item> pool = pool(1000);
+    int allocations = 0;
+    for (int capture = 0; capture < 100; capture++) {
+      Item decoded = pool.take("decoded");
+      if (decoded == null) {
+        decoded = new Item("decoded", 300);
+        allocations++;
+      }
+      Item output = pool.take("output");
+      if (output == null) {
+        output = new Item("output", 200);
+        allocations++;
+      }
+      pool.release(decoded);
+      pool.release(output);
+    }
+    assertEquals(2, allocations);
+    assertTrue(mEvicted.isEmpty());
+  }
+}
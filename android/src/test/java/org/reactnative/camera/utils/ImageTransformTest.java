@@ -0,0 +1,219 @@
+package org.reactnative.camera.utils;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ImageTransformTest {
+  // Pixels are numbered, so any pixel that lands in the wrong place shows.
+  private static class Image {
+    final int width;
+    final int height;
+    final int[] pixels;
+
+    Image(int width, int height) {
+      this.width = width;
+      this.height = height;
+      pixels = new int[width * height];
+    }
+
+    int get(int x, int y) {
+      return pixels[y * width + x];
+    }
+
+    void set(int x, int y, int value) {
+      pixels[y * width + x] = value;
+    }
+  }
+
+  private static Image numbered(int width, int height) {
+    Image image = new Image(width, height);
+    for (int i = 0; i < image.pixels.length; i++) {
+      image.pixels[i] = i;
+    }
+    return image;
+  }
+
+  // What the canvas does with the transform, without filtering: each output pixel takes the
+  // source pixel its centre maps back to.
+  private static Image render(Image source, ImageTransform transform) {
+    float[] values = new float[9];
+    transform.getValues(values);
+    float a = values[0], b = values[1], c = values[2], d = values[3], e = values[4], f = values[5];
+    float determinant = a * e - b * d;
+    Image output = new Image(transform.getWidth(), transform.getHeight());
+    for (int y = 0; y < output.height; y++) {
+      for (int x = 0; x < output.width; x++) {
+        float dx = x + 0.5f - c;
+        float dy = y + 0.5f - f;
+        int sourceX = (int) Math.floor((e * dx - b * dy) / determinant);
+        int sourceY = (int) Math.floor((-d * dx + a * dy) / determinant);
+        assertTrue(sourceX >= 0 && sourceX < source.width && sourceY >= 0 && sourceY < source.height);
+        output.set(x, y, source.get(sourceX, sourceY));
+      }
+    }
+    return output;
+  }
+
+  // The edits one at a time, as index formulas.
+
+  private static Image rotate(Image in, int degrees) {
+    switch (((degrees % 360) + 360) % 360) {
+      case 90: {
+        Image out = new Image(in.height, in.width);
+        for (int y = 0; y < out.height; y++) {
+          for (int x = 0; x < out.width; x++) {
+            out.set(x, y, in.get(y, in.height - 1 - x));
+          }
+        }
+        return out;
+      }
+      case 180:
+        return rotate(rotate(in, 90), 90);
+      case 270:
+        return rotate(rotate(rotate(in, 90), 90), 90);
+      default:
+        return in;
+    }
+  }
+
+  private static Image mirror(Image in) {
+    Image out = new Image(in.width, in.height);
+    for (int y = 0; y < out.height; y++) {
+      for (int x = 0; x < out.width; x++) {
+        out.set(x, y, in.get(in.width - 1 - x, y));
+      }
+    }
+    return out;
+  }
+
+  private static Image crop(Image in, int left, int top, int width, int height) {
+    Image out = new Image(width, height);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        out.set(x, y, in.get(left + x, top + y));
+      }
+    }
+    return out;
+  }
+
+  // Whole-number enlargements, where sampling without filtering is exact.
+  private static Image enlarge(Image in, int factor) {
+    Image out = new Image(in.width * factor, in.height * factor);
+    for (int y = 0; y < out.height; y++) {
+      for (int x = 0; x < out.width; x++) {
+        out.set(x, y, in.get(x / factor, y / factor));
+      }
+    }
+    return out;
+  }
+
+  private static void assertSameImage(Image expected, Image actual) {
+    assertEquals(expected.width, actual.width);
+    assertEquals(expected.height, actual.height);
+    assertArrayEquals(expected.pixels, actual.pixels);
+  }
+
+  @Test
+  public void singleEdits() {
+    Image source = numbered(13, 7);
+    for (int degrees = -360; degrees <= 360; degrees += 90) {
+      assertSameImage(rotate(source, degrees), render(source, new ImageTransform(13, 7).rotate(degrees)));
+    }
+    assertSameImage(mirror(source), render(source, new ImageTransform(13, 7).mirror()));
+    assertSameImage(crop(source, 2, 1, 5, 4), render(source, new ImageTransform(13, 7).crop(2, 1, 5, 4)));
+    assertSameImage(enlarge(source, 3), render(source, new ImageTransform(13, 7).scale(39, 21)));
+  }
+
+  @Test
+  public void randomChainsMatchEditingStepByStep() {
+    Random random = new Random(1);
+    Image source = numbered(13, 7);
+    for (int chain = 0; chain < 2000; chain++) {
+      Image expected = source;
+      ImageTransform transform = new ImageTransform(source.width, source.height);
+      int edits = 1 + random.nextInt(5);
+      for (int edit = 0; edit < edits; edit++) {
+        switch (random.nextInt(4)) {
+          case 0: {
+            int degrees = 90 * (random.nextInt(7) - 3);
+            expected = rotate(expected, degrees);
+            transform.rotate(degrees);
+            break;
+          }
+          case 1:
+            expected = mirror(expected);
+            transform.mirror();
+            break;
+          case 2: {
+            int width = 1 + random.nextInt(expected.width);
+            int height = 1 + random.nextInt(expected.height);
+            int left = random.nextInt(expected.width - width + 1);
+            int top = random.nextInt(expected.height - height + 1);
+            expected = crop(expected, left, top, width, height);
+            transform.crop(left, top, width, height);
+            break;
+          }
+          default: {
+            // Keeps the chains small enough to check quickly.
+            int factor = expected.width * expected.height > 2000 ? 1 : 1 + random.nextInt(3);
+            expected = enlarge(expected, factor);
+            transform.scale(expected.width, expected.height);
+          }
+        }
+        assertEquals(expected.width, transform.getWidth());
+        assertEquals(expected.height, transform.getHeight());
+      }
+      assertSameImage(expected, render(source, transform));
+    }
+  }
+
+  @Test
+  public void identityAndScaling() {
+    assertTrue(new ImageTransform(4, 3).isIdentity());
+    assertTrue(new ImageTransform(4, 3).rotate(180).rotate(180).isIdentity());
+    assertTrue(new ImageTransform(4, 3).mirror().mirror().isIdentity());
+    assertTrue(new ImageTransform(4, 3).rotate(90).rotate(-90).isIdentity());
+    assertFalse(new ImageTransform(4, 3).rotate(90).isIdentity());
+    assertFalse(new ImageTransform(4, 3).crop(0, 0, 4, 2).isIdentity());
+
+    assertFalse(new ImageTransform(4, 3).rotate(270).mirror().isScaling());
+    assertFalse(new ImageTransform(4, 3).crop(1, 1, 2, 2).isScaling());
+    assertTrue(new ImageTransform(4, 3).scale(8, 6).isScaling());
+    assertTrue(new ImageTransform(4, 3).rotate(90).scale(3, 4).mirror().scale(6, 4).isScaling());
+  }
+
+  @Test
+  public void pictureSizeFollowsTheEdits() {
+    // Rotated to portrait, then scaled to a width of 1080 keeping the aspect ratio.
+    ImageTransform transform = new ImageTransform(4000, 3000).rotate(90);
+    transform.scale(1080, transform.getHeight() * 1080 / transform.getWidth()).mirror();
+    assertEquals(1080, transform.getWidth());
+    assertEquals(1440, transform.getHeight());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void cropOutsideThePicture() {
+    new ImageTransform(4, 3).crop(1, 0, 4, 3);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void cropAfterRotationUsesTheRotatedSize() {
+    new ImageTransform(4, 3).rotate(90).crop(0, 0, 4, 3);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rotationNotAQuarterTurn() {
+    new ImageTransform(4, 3).rotate(45);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void scaleToNothing() {
+    new ImageTransform(4, 3).scale(0, 3);
+  }
+}
@@ -0,0 +1,150 @@
+package org.reactnative.facedetector;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FaceTrackerTest {
+  private static final long MS = 1000000L;
+  private static final float EPSILON = 1e-3f;
+
+  private static float[] state(float x, float y, float width, float height, float roll, float yaw) {
+    return new float[] { x, y, width, height, roll, yaw };
+  }
+
+  private static void detect(FaceTracker<String> tracker, long timeNanos, int id, float[] state) {
+    tracker.beginUpdate(timeNanos);
+    tracker.observe(id, "face " + id, state);
+    tracker.endUpdate();
+  }
+
+  private static float[] predict(FaceTracker<String> tracker, long timeNanos) {
+    List<FaceTracker.Estimate<String>> estimates = tracker.predict(timeNanos);
+    assertEquals(1, estimates.size());
+    return estimates.get(0).state;
+  }
+
+  @Test
+  public void newFaceStartsStill() {
+    FaceTracker<String> tracker = new FaceTracker<>();
+    detect(tracker, 0, 1, state(10, 20, 30, 40, 5, -5));
+    float[] predicted = predict(tracker, 100 * MS);
+    assertEquals(10, predicted[FaceTracker.X], EPSILON);
+    assertEquals(20, predicted[FaceTracker.Y], EPSILON);
+    assertEquals(30, predicted[FaceTracker.WIDTH], EPSILON);
+    assertEquals(40, predicted[FaceTracker.HEIGHT], EPSILON);
+    assertEquals(5, predicted[FaceTracker.ROLL], EPSILON);
+    assertEquals(-5, predicted[FaceTracker.YAW], EPSILON);
+  }
+
+  @Test
+  public void alphaBetaUpdate() {
+    FaceTracker<String> tracker = new FaceTracker<>();
+    detect(tracker, 0, 1, state(0, 0, 100, 100, 0, 0));
+    detect(tracker, 100 * MS, 1, state(10, 0, 100, 100, 0, 0));
+    // Predicted 0, found 10: the position takes 85% of the error, the velocity
+    // 40% of it over the 0.1 s between detections.
+    assertEquals(8.5f, predict(tracker, 100 * MS)[FaceTracker.X], EPSILON);
+    assertEquals(8.5f + 40 * 0.05f, predict(tracker, 150 * MS)[FaceTracker.X], EPSILON);
+  }
+
+  @Test
+  public void followsSteadyMotionBetweenDetections() {
+    FaceTracker<String> tracker = new FaceTracker<>();
+    // Moving 300 px/s and growing 30 px/s, detected at 6 Hz, shown at 30 Hz.
+    float[] detected = null;
+    float trackedError = 0;
+    float heldError = 0;
+    int frames = 0;
+    for (int frame = 0; frame < 90; frame++) {
+      long time = frame * 33 * MS;
+      float seconds = time / 1e9f;
+      float[] truth = state(100 + 300 * seconds, 50, 80 + 30 * seconds, 80 + 30 * seconds, 0, 0);
+      if (frame % 5 == 0) {
+        detect(tracker, time, 1, truth);
+        detected = truth;
+      } else if (frame > 20) {
+        float[] predicted = predict(tracker, time);
+        trackedError += Math.abs(predicted[FaceTracker.X] - truth[FaceTracker.X]);
+        heldError += Math.abs(detected[FaceTracker.X] - truth[FaceTracker.X]);
+        frames++;
+      }
+    }
+    // Much closer than leaving the box where the face was last detected.
+    assertTrue(trackedError / frames < 1);
+    assertTrue(heldError / frames > 10);
+  }
+
+  @Test
+  public void anglesWrapTheShortWayRound() {
+    FaceTracker<String> tracker = new FaceTracker<>();
+    detect(tracker, 0, 1, state(0, 0, 100, 100, 170, -175));
+    detect(tracker, 100 * MS, 1, state(0, 0, 100, 100, -170, 175));
+    // 20 degrees on from 170 is -170, not 340 degrees back; the update lands 17 degrees on.
+    float[] predicted = predict(tracker, 100 * MS);
+    assertEquals(-173, predicted[FaceTracker.ROLL], EPSILON);
+    assertEquals(176.5f, predicted[FaceTracker.YAW], EPSILON);
+    // And keeps turning the same way, at 80 degrees per second.
+    predicted = predict(tracker, 200 * MS);
+    assertEquals(-165, predicted[FaceTracker.ROLL], EPSILON);
+    assertEquals(172.5f, predicted[FaceTracker.YAW], EPSILON);
+  }
+
+  @Test
+  public void extrapolationIsCapped() {
+    FaceTracker<String> tracker = new FaceTracker<>();
+    detect(tracker, 0, 1, state(0, 0, 100, 100, 0, 0));
+    detect(tracker, 100 * MS, 1, state(10, 0, 100, 100, 0, 0));
+    long last = 100 * MS;
+    float atCap = predict(tracker, last + FaceTracker.MAX_PREDICTION_NANOS)[FaceTracker.X];
+    assertEquals(8.5f + 40 * 0.3f, atCap, EPSILON);
+    assertEquals(atCap, predict(tracker, last + 10 * FaceTracker.MAX_PREDICTION_NANOS)[FaceTracker.X], 0);
+    // Frames from before the detection show the face where it was detected.
+    assertEquals(8.5f, predict(tracker, last - 50 * MS)[FaceTracker.X], EPSILON);
+  }
+
+  @Test
+  public void shrinkingFacesStopAtZero() {
+    FaceTracker<String> tracker = new FaceTracker<>();
+    detect(tracker, 0, 1, state(0, 0, 100, 100, 0, 0));
+    detect(tracker, 100 * MS, 1, state(0, 0, 10, 10, 0, 0));
+    float[] predicted = predict(tracker, 400 * MS);
+    assertEquals(0, predicted[FaceTracker.WIDTH], 0);
+    assertEquals(0, predicted[FaceTracker.HEIGHT], 0);
+  }
+
+  @Test
+  public void repeatedFrameReplacesWithoutVelocity() {
+    FaceTracker<String> tracker = new FaceTracker<>();
+    detect(tracker, 100 * MS, 1, state(0, 0, 100, 100, 0, 0));
+    detect(tracker, 100 * MS, 1, state(10, 0, 100, 100, 0, 0));
+    assertEquals(10, predict(tracker, 200 * MS)[FaceTracker.X], EPSILON);
+  }
+
+  @Test
+  public void missingFacesAreDropped() {
+    FaceTracker<String> tracker = new FaceTracker<>();
+    tracker.beginUpdate(0);
+    tracker.observe(1, "one", state(0, 0, 10, 10, 0, 0));
+    tracker.observe(2, "two", state(50, 0, 10, 10, 0, 0));
+    tracker.endUpdate();
+    assertEquals(2, tracker.size());
+
+    detect(tracker, 100 * MS, 2, state(60, 0, 10, 10, 0, 0));
+    List<FaceTracker.Estimate<String>> estimates = tracker.predict(100 * MS);
+    assertEquals(1, estimates.size());
+    assertEquals(2, estimates.get(0).id);
+    assertEquals("face 2", estimates.get(0).face);
+
+    // Coming back, a face starts over.
+    detect(tracker, 200 * MS, 1, state(0, 0, 10, 10, 0, 0));
+    assertEquals(1, tracker.size());
+    assertEquals(1, tracker.predict(200 * MS).get(0).id);
+
+    tracker.clear();
+    assertTrue(tracker.predict(300 * MS).isEmpty());
+  }
+}
@@ -0,0 +1,138 @@
+package org.reactnative.frame;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PreviewFrameTest {
+  private static final int WIDTH = 6;
+  private static final int HEIGHT = 4;
+
+  private static byte[] nv21(long seed) {
+    byte[] data = new byte[WIDTH * HEIGHT * 3 / 2];
+    new Random(seed).nextBytes(data);
+    return data;
+  }
+
+  private static PreviewFrame frame(byte[] data) {
+    return new PreviewFrame(data, WIDTH, HEIGHT, 0, 0, null);
+  }
+
+  private static void assertInverted(byte[] data, byte[] inverted) {
+    assertEquals(data.length, inverted.length);
+    for (int i = 0; i < WIDTH * HEIGHT; i++) {
+      assertEquals((byte) ~data[i], inverted[i]);
+    }
+    for (int i = WIDTH * HEIGHT; i < inverted.length; i++) {
+      assertEquals((byte) 128, inverted[i]);
+    }
+  }
+
+  @Test
+  public void onlyLuminanceIsInverted() {
+    byte[] data = nv21(1);
+    byte[] original = data.clone();
+    PreviewFrame frame = frame(data);
+    byte[] inverted = frame.getInvertedLuminance();
+    assertInverted(original, inverted);
+    assertArrayEquals(original, data);
+    // Built once, then shared.
+    assertSame(inverted, frame.getInvertedLuminance());
+    frame.release();
+    assertArrayEquals(original, data);
+  }
+
+  @Test
+  public void spareIsReusedOnlyAfterRelease() {
+    PreviewFrame first = frame(nv21(2));
+    byte[] firstInverted = first.getInvertedLuminance();
+
+    byte[] secondData = nv21(3);
+    PreviewFrame second = frame(secondData);
+    assertNotSame(firstInverted, second.getInvertedLuminance());
+    second.release();
+
+    first.release();
+    byte[] thirdData = nv21(4);
+    PreviewFrame third = frame(thirdData);
+    byte[] thirdInverted = third.getInvertedLuminance();
+    assertSame(firstInverted, thirdInverted);
+    // Reused, the chroma plane is still neutral and the luminance is the new frame's.
+    assertInverted(thirdData, thirdInverted);
+    third.release();
+  }
+
+  @Test
+  public void noReuseWhileAFrameIsStillRetained() {
+    byte[] data = nv21(5);
+    PreviewFrame held = frame(data);
+    byte[] inverted = held.getInvertedLuminance();
+    held.retain();
+    held.release();
+
+    PreviewFrame other = frame(nv21(6));
+    assertNotSame(inverted, other.getInvertedLuminance());
+    other.release();
+    // Releasing the other frame mustn't have handed out the held one's buffer either.
+    PreviewFrame another = frame(nv21(7));
+    assertNotSame(inverted, another.getInvertedLuminance());
+    assertInverted(data, inverted);
+    assertSame(inverted, held.getInvertedLuminance());
+    another.release();
+    held.release();
+  }
+
+  @Test
+  public void spareOfAnotherSizeIsNotUsed() {
+    PreviewFrame small = frame(nv21(8));
+    byte[] smallInverted = small.getInvertedLuminance();
+    small.release();
+
+    byte[] data = new byte[8 * 6 * 3 / 2];
+    new Random(9).nextBytes(data);
+    PreviewFrame large = new PreviewFrame(data, 8, 6, 0, 0, null);
+    byte[] inverted = large.getInvertedLuminance();
+    assertNotSame(smallInverted, inverted);
+    assertEquals(data.length, inverted.length);
+    large.release();
+  }
+
+  @Test
+  public void ownerIsToldOnTheLastRelease() {
+    final List<PreviewFrame> released = new ArrayList<>();
+    PreviewFrame frame = new PreviewFrame(nv21(10), WIDTH, HEIGHT, 90, 0, new PreviewFrame.Owner() {
+      @Override
+      public void onFrameReleased(PreviewFrame frame) {
+        released.add(frame);
+      }
+    });
+    frame.retain();
+    frame.release();
+    assertTrue(released.isEmpty());
+    frame.release();
+    assertEquals(1, released.size());
+    assertSame(frame, released.get(0));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void retainAfterTheLastRelease() {
+    PreviewFrame frame = frame(nv21(11));
+    frame.release();
+    frame.retain();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void releasedTooManyTimes() {
+    PreviewFrame frame = frame(nv21(12));
+    frame.release();
+    frame.release();
+  }
+}
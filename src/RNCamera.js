@@ -40,6 +40,7 @@ type PictureOptions = {
   exif?: boolean,
   width?: number,
   fixOrientation?: boolean,
+  losslessOrientation?: boolean,
   forceUpOrientation?: boolean,
   pauseAfterCapture?: boolean,
 };
@@ -90,11 +91,16 @@ type PropsType = typeof View.props & {
   type?: number | string,
   onCameraReady?: Function,
   onBarCodeRead?: Function,
+  onBarCodesRead?: Function,
+  barCodeDedupWindow?: number,
+  barCodeReadInterval?: number,
   onPictureSaved?: Function,
   onGoogleVisionBarcodesDetected?: Function,
   faceDetectionMode?: number,
   flashMode?: number | string,
   barCodeTypes?: Array<string>,
+  barCodeScanArea?: { x: number, y: number, width: number, height: number },
+  barCodeDownsample?: boolean,
   googleVisionBarcodeType?: number,
   googleVisionBarcodeMode?: number,
   whiteBalance?: number | string,
@@ -102,6 +108,7 @@ type PropsType = typeof View.props & {
   autoFocus?: string | boolean | number,
   autoFocusPointOfInterest?: { x: number, y: number },
   faceDetectionClassifications?: number,
+  faceDetectionInterpolation?: boolean,
   onFacesDetected?: ({ faces: Array<TrackedFaceFeature> }) => void,
   onTextRecognized?: ({ textBlocks: Array<TrackedTextFeature> }) => void,
   captureAudio?: boolean,
@@ -109,6 +116,20 @@ type PropsType = typeof View.props & {
   playSoundOnCapture?: boolean,
   videoStabilizationMode?: number | string,
   pictureSize?: string,
+  frameAnalysisTargetFps?: {
+    barCodeScanner?: number,
+    faceDetector?: number,
+    googleVisionBarcodeDetector?: number,
+    textRecognizer?: number,
+  },
+  frameAnalysisCpuBudget?: {
+    barCodeScanner?: number,
+    faceDetector?: number,
+    googleVisionBarcodeDetector?: number,
+    textRecognizer?: number,
+  },
+  frameExportQueueDepth?: number,
+  frameExportDropPolicy?: 'dropOldest' | 'dropNewest' | 'block',
 };
 
 type StateType = {
@@ -207,6 +228,9 @@ export default class Camera extends React.Component<PropsType, StateType> {
     onMountError: PropTypes.func,
     onCameraReady: PropTypes.func,
     onBarCodeRead: PropTypes.func,
+    onBarCodesRead: PropTypes.func,
+    barCodeDedupWindow: PropTypes.number,
+    barCodeReadInterval: PropTypes.number,
     onPictureSaved: PropTypes.func,
     onGoogleVisionBarcodesDetected: PropTypes.func,
     onFacesDetected: PropTypes.func,
@@ -214,9 +238,21 @@ export default class Camera extends React.Component<PropsType, StateType> {
     faceDetectionMode: PropTypes.number,
     faceDetectionLandmarks: PropTypes.number,
     faceDetectionClassifications: PropTypes.number,
+    faceDetectionInterpolation: PropTypes.bool,
     barCodeTypes: PropTypes.arrayOf(PropTypes.string),
+    barCodeScanArea: PropTypes.shape({
+      x: PropTypes.number,
+      y: PropTypes.number,
+      width: PropTypes.number,
+      height: PropTypes.number,
+    }),
+    barCodeDownsample: PropTypes.bool,
     googleVisionBarcodeType: PropTypes.number,
     googleVisionBarcodeMode: PropTypes.number,
+    frameAnalysisTargetFps: PropTypes.objectOf(PropTypes.number),
+    frameAnalysisCpuBudget: PropTypes.objectOf(PropTypes.number),
+    frameExportQueueDepth: PropTypes.number,
+    frameExportDropPolicy: PropTypes.oneOf(['dropOldest', 'dropNewest', 'block']),
     type: PropTypes.oneOfType([PropTypes.string, PropTypes.number]),
     flashMode: PropTypes.oneOfType([PropTypes.string, PropTypes.number]),
     whiteBalance: PropTypes.oneOfType([PropTypes.string, PropTypes.number]),
@@ -322,6 +358,22 @@ export default class Camera extends React.Component<PropsType, StateType> {
     }
   }
 
+  async getFrameAnalysisStatsAsync() {
+    if (Platform.OS === 'android') {
+      return await CameraManager.getFrameAnalysisStats(this._cameraHandle);
+    } else {
+      throw new Error('Frame analysis stats are not supported on iOS');
+    }
+  }
+
+  async getFrameExportStatsAsync() {
+    if (Platform.OS === 'android') {
+      return await CameraManager.getFrameExportStats(this._cameraHandle);
+    } else {
+      throw new Error('Frame export stats are not supported on iOS');
+    }
+  }
+
   getAvailablePictureSizes = async (): string[] => {
     //$FlowFixMe
     return await CameraManager.getAvailablePictureSizes(this.props.ratio, this._cameraHandle);
@@ -482,6 +534,7 @@ export default class Camera extends React.Component<PropsType, StateType> {
               this.props.onGoogleVisionBarcodesDetected,
             )}
             onBarCodeRead={this._onObjectDetected(this.props.onBarCodeRead)}
+            onBarCodesRead={this._onObjectDetected(this.props.onBarCodesRead)}
             onFacesDetected={this._onObjectDetected(this.props.onFacesDetected)}
             onTextRecognized={this._onObjectDetected(this.props.onTextRecognized)}
             onPictureSaved={this._onPictureSaved}
@@ -503,6 +556,11 @@ export default class Camera extends React.Component<PropsType, StateType> {
       newProps.barCodeScannerEnabled = true;
     }
 
+    if (props.onBarCodesRead) {
+      newProps.barCodeScannerEnabled = true;
+      newProps.barCodeMultiScanEnabled = true;
+    }
+
     if (props.onGoogleVisionBarcodesDetected) {
       newProps.googleVisionBarcodeDetectorEnabled = true;
     }
@@ -542,11 +600,13 @@ const RNCamera = requireNativeComponent('RNCamera', Camera, {
     accessibilityLabel: true,
     accessibilityLiveRegion: true,
     barCodeScannerEnabled: true,
+    barCodeMultiScanEnabled: true,
     googleVisionBarcodeDetectorEnabled: true,
     faceDetectorEnabled: true,
     textRecognizerEnabled: true,
     importantForAccessibility: true,
     onBarCodeRead: true,
+    onBarCodesRead: true,
     onGoogleVisionBarcodesDetected: true,
     onCameraReady: true,
     onPictureSaved: true,
@@ -141,6 +141,13 @@ export interface RNCameraProps {
 
   // -- BARCODE PROPS
   barCodeTypes?: Array<keyof BarCodeType>;
+  /**
+   * Android only. Part of the preview to scan for barcodes, in 0 to 1 coordinates of the
+   * preview as displayed. Defaults to the whole preview.
+   */
+  barCodeScanArea?: { x: number; y: number; width: number; height: number };
+  /** Android only. Scan large previews at half resolution */
+  barCodeDownsample?: boolean;
   googleVisionBarcodeType?: keyof GoogleVisionBarcodeType;
   onBarCodeRead?(event: {
     data: string;
@@ -153,6 +160,27 @@ export interface RNCameraProps {
     bounds: [Point<string>, Point<string>] | { origin: Point<string>; size: Size<string> };
   }): void;
 
+  /**
+   * Android only. Reports every barcode in view at once, instead of onBarCodeRead. A code
+   * that stays in view is reported once, and again only after it has been out of view for
+   * barCodeDedupWindow milliseconds.
+   */
+  onBarCodesRead?(event: {
+    barCodes: {
+      data: string;
+      rawData?: string;
+      type: keyof BarCodeType;
+      bounds: { origin: Point<string>[]; width: number; height: number };
+    }[];
+  }): void;
+  /** Android only. Value: milliseconds, defaults to 1000 */
+  barCodeDedupWindow?: number;
+  /**
+   * Android only. onBarCodeRead reports the same code at most once per this many
+   * milliseconds while it stays in view. Defaults to 0, reporting every frame it's read in.
+   */
+  barCodeReadInterval?: number;
+
   // -- FACE DETECTION PROPS
 
   onGoogleVisionBarcodesDetected?(response: { barcodes: Barcode[] }): void;
@@ -161,12 +189,40 @@ export interface RNCameraProps {
   faceDetectionMode?: keyof FaceDetectionMode;
   faceDetectionLandmarks?: keyof FaceDetectionLandmarks;
   faceDetectionClassifications?: keyof FaceDetectionClassifications;
+  /**
+   * Android only. Also calls onFacesDetected on every preview frame between detections, with
+   * the faces moved to where their recent motion predicts them to be.
+   */
+  faceDetectionInterpolation?: boolean;
 
   // -- ANDROID ONLY PROPS
   /** Android only */
   onTextRecognized?(response: { textBlocks: TrackedTextFeature[] }): void;
   /** Android only */
   ratio?: string;
+  /** Android only. Analyses per second per frame analyzer; missing or 0 means no limit */
+  frameAnalysisTargetFps?: {
+    barCodeScanner?: number;
+    faceDetector?: number;
+    googleVisionBarcodeDetector?: number;
+    textRecognizer?: number;
+  };
+  /**
+   * Android only. Share of a worker thread each frame analyzer may keep busy, from 0 to 1.
+   * Analyzers are spaced out by their measured analysis time to stay within it, and slowed
+   * down further when the device runs hot or low on battery. Defaults to 1, which doesn't
+   * pace the analyzer.
+   */
+  frameAnalysisCpuBudget?: {
+    barCodeScanner?: number;
+    faceDetector?: number;
+    googleVisionBarcodeDetector?: number;
+    textRecognizer?: number;
+  };
+  /** Android only. Recorded frame thumbnails that may wait to be compressed. Defaults to 4 */
+  frameExportQueueDepth?: number;
+  /** Android only. What happens to a thumbnail that arrives while the queue is full */
+  frameExportDropPolicy?: 'dropOldest' | 'dropNewest' | 'block';
   /** Android only */
   permissionDialogTitle?: string;
   /** Android only */
@@ -242,6 +298,7 @@ interface TakePictureOptions {
   /** Android only */
   skipProcessing?: boolean;
   fixOrientation?: boolean;
+  losslessOrientation?: boolean;
 
   /** iOS only */
   forceUpOrientation?: boolean;
@@ -298,10 +355,33 @@ export class RNCamera extends Component<RNCameraProps & ViewProperties> {
   /** Android only */
   getSupportedRatiosAsync(): Promise<string[]>;
 
+  /** Android only */
+  getFrameAnalysisStatsAsync(): Promise<{ [analyzer: string]: FrameAnalysisStats }>;
+
+  /** Android only */
+  getFrameExportStatsAsync(): Promise<FrameExportStats>;
+
   /** iOS only */
   isRecording(): Promise<boolean>;
 }
 
+interface FrameAnalysisStats {
+  submitted: number;
+  analyzed: number;
+  replaced: number;
+  rateLimited: number;
+  latencyMs: number;
+  intervalMs: number;
+}
+
+interface FrameExportStats {
+  submitted: number;
+  dropped: number;
+  completed: number;
+  queueLatencyMs: number;
+  maxQueueLatencyMs: number;
+}
+
 interface DetectionOptions {
   mode?: keyof FaceDetectionMode;
   detectLandmarks?: keyof FaceDetectionLandmarks;